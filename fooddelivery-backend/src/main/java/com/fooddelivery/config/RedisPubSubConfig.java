@@ -0,0 +1,22 @@
+package com.fooddelivery.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class RedisPubSubConfig {
+
+    // Shared subscriber connection for cross-node channels. One dispatch thread keeps
+    // messages in the order Redis delivered them, which the kitchen feed relies on
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor());
+        return container;
+    }
+}
@@ -2,14 +2,20 @@ package com.fooddelivery.config;
 
 import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.annotation.OnDisconnect;
 import com.corundumstudio.socketio.annotation.OnEvent;
 import com.fooddelivery.service.DeliveryPartnerService;
+import com.fooddelivery.service.SocketMessagingService;
+import com.fooddelivery.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @RequiredArgsConstructor
@@ -18,6 +24,17 @@ public class SocketEventHandler {
 
     private final SocketIOServer server;
     private final DeliveryPartnerService deliveryPartnerService;
+    private final SocketMessagingService socketMessagingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${socketio.inbound.location.rate-per-second:2}")
+    private double locationRatePerSecond;
+
+    @Value("${socketio.inbound.location.burst:5}")
+    private int locationBurst;
+
+    // Per-session inbound limiter for update_location floods
+    private final Map<UUID, TokenBucket> locationBuckets = new ConcurrentHashMap<>();
 
     // We need to register listeners explicitly if not using annotation scanner or
     // if manual start interferes.
@@ -35,18 +52,34 @@ public class SocketEventHandler {
 
     @OnEvent("update_location")
     public void onUpdateLocation(SocketIOClient client, Map<String, Object> data) {
-        // Expected: { userId: "...", lat: 12.34, lng: 56.78 }
-        try {
-            String userId = (String) data.get("userId");
-            Double lat = Double.valueOf(data.get("lat").toString());
-            Double lng = Double.valueOf(data.get("lng").toString());
-            
-            if (userId != null) {
-               deliveryPartnerService.updateLocation(userId, lat, lng);
-               // log.debug("Location updated for {}", userId);
-            }
-        } catch (Exception e) {
-            log.error("Error updating location via socket: {}", e.getMessage());
+        TokenBucket bucket = locationBuckets.computeIfAbsent(client.getSessionId(),
+                id -> new TokenBucket(locationRatePerSecond, locationBurst));
+        if (!bucket.tryConsume()) {
+            meterRegistry.counter("socketio.inbound.throttled", "event", "update_location").increment();
+            return;
         }
+
+        // Handlers run on the Netty worker loop, so this timer is event-loop occupancy
+        meterRegistry.timer("socketio.inbound.handler", "event", "update_location").record(() -> {
+            // Expected: { userId: "...", lat: 12.34, lng: 56.78 }
+            try {
+                String userId = (String) data.get("userId");
+                Double lat = Double.valueOf(data.get("lat").toString());
+                Double lng = Double.valueOf(data.get("lng").toString());
+
+                if (userId != null) {
+                    deliveryPartnerService.updateLocation(userId, lat, lng);
+                    // log.debug("Location updated for {}", userId);
+                }
+            } catch (Exception e) {
+                log.error("Error updating location via socket: {}", e.getMessage());
+            }
+        });
+    }
+
+    @OnDisconnect
+    public void onDisconnect(SocketIOClient client) {
+        locationBuckets.remove(client.getSessionId());
+        socketMessagingService.removeClient(client.getSessionId());
     }
 }
@@ -1,12 +1,26 @@
 package com.fooddelivery.config;
 
 import com.corundumstudio.socketio.SocketIOServer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class SocketIOConfig {
 
+    @Value("${socketio.host:localhost}")
+    private String host;
+
+    @Value("${socketio.port:9092}")
+    private int port;
+
+    // Netty event loop sizing. 0 lets Netty pick (2 x cores).
+    @Value("${socketio.boss-threads:1}")
+    private int bossThreads;
+
+    @Value("${socketio.worker-threads:0}")
+    private int workerThreads;
+
     @Bean
     public com.corundumstudio.socketio.annotation.SpringAnnotationScanner springAnnotationScanner(
             SocketIOServer socketServer) {
@@ -16,8 +30,10 @@ public class SocketIOConfig {
     @Bean
     public SocketIOServer socketIOServer() {
         com.corundumstudio.socketio.Configuration config = new com.corundumstudio.socketio.Configuration();
-        config.setHostname("localhost");
-        config.setPort(9092);
+        config.setHostname(host);
+        config.setPort(port);
+        config.setBossThreads(bossThreads);
+        config.setWorkerThreads(workerThreads);
 
         // CORS and other settings
         config.setOrigin("*");
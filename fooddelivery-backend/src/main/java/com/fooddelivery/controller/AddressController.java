@@ -3,14 +3,13 @@ package com.fooddelivery.controller;
 import com.fooddelivery.dto.request.AddressRequest;
 import com.fooddelivery.dto.response.AddressResponse;
 import com.fooddelivery.dto.response.ApiResponse;
-import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.UserPrincipal;
 import com.fooddelivery.service.AddressService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,38 +20,33 @@ import java.util.List;
 public class AddressController {
 
     private final AddressService addressService;
-    private final UserRepository userRepository;
-
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
 
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<AddressResponse>> addAddress(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<AddressResponse>> addAddress(@AuthenticationPrincipal UserPrincipal principal,
                                                                    @RequestBody @Valid AddressRequest request) {
-        return ResponseEntity.ok(ApiResponse.success("Address added", addressService.addAddress(getUserId(userDetails), request)));
+        return ResponseEntity.ok(ApiResponse.success("Address added", addressService.addAddress(principal.getId(), request)));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<AddressResponse>> updateAddress(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<AddressResponse>> updateAddress(@AuthenticationPrincipal UserPrincipal principal,
                                                                       @PathVariable String id,
                                                                       @RequestBody @Valid AddressRequest request) {
-        return ResponseEntity.ok(ApiResponse.success("Address updated", addressService.updateAddress(getUserId(userDetails), id, request)));
+        return ResponseEntity.ok(ApiResponse.success("Address updated", addressService.updateAddress(principal.getId(), id, request)));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getMyAddresses(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(ApiResponse.success("Addresses fetched", addressService.getMyAddresses(getUserId(userDetails))));
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getMyAddresses(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success("Addresses fetched", addressService.getMyAddresses(principal.getId())));
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<Void>> deleteAddress(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<Void>> deleteAddress(@AuthenticationPrincipal UserPrincipal principal,
                                                            @PathVariable String id) {
-        addressService.deleteAddress(getUserId(userDetails), id);
+        addressService.deleteAddress(principal.getId(), id);
         return ResponseEntity.ok(ApiResponse.success("Address deleted", null));
     }
 }
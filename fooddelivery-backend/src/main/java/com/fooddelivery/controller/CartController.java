@@ -4,38 +4,35 @@ import com.fooddelivery.dto.request.AddToCartRequest;
 import com.fooddelivery.dto.request.UpdateCartRequest;
 import com.fooddelivery.dto.response.ApiResponse;
 import com.fooddelivery.dto.response.CartResponse;
-import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.dto.response.OfferQuoteResponse;
+import com.fooddelivery.security.UserPrincipal;
 import com.fooddelivery.service.CartService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/cart")
 @RequiredArgsConstructor
 public class CartController {
 
     private final CartService cartService;
-    private final UserRepository userRepository;
-
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
 
     @GetMapping
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<CartResponse>> getCart(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(ApiResponse.success("Cart fetched", cartService.getMyCart(getUserId(userDetails))));
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success("Cart fetched", cartService.getMyCart(principal.getId())));
     }
 
     @PostMapping("/add")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<Object>> addToCart(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<Object>> addToCart(@AuthenticationPrincipal UserPrincipal principal,
                                                  @RequestBody AddToCartRequest request) {
-        CartResponse cart = cartService.addToCart(getUserId(userDetails), request);
+        CartResponse cart = cartService.addToCart(principal.getId(), request);
         // Spec response says "Item added to cart", data: { cartId, itemsCount }
         // But returning full cart is also fine, or I can map exactly.
         // Spec: "data": { "cartId": "...", "itemsCount": 3 }
@@ -47,22 +44,30 @@ public class CartController {
 
     @PutMapping("/update")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<CartResponse>> updateCart(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<CartResponse>> updateCart(@AuthenticationPrincipal UserPrincipal principal,
                                                         @RequestBody UpdateCartRequest request) {
-        return ResponseEntity.ok(ApiResponse.success("Cart item updated", cartService.updateCartItem(getUserId(userDetails), request)));
+        return ResponseEntity.ok(ApiResponse.success("Cart item updated", cartService.updateCartItem(principal.getId(), request)));
     }
 
     @DeleteMapping("/item/{cartItemId}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<CartResponse>> removeCartItem(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<CartResponse>> removeCartItem(@AuthenticationPrincipal UserPrincipal principal,
                                                             @PathVariable String cartItemId) {
-        return ResponseEntity.ok(ApiResponse.success("Item removed from cart", cartService.removeCartItem(getUserId(userDetails), cartItemId)));
+        return ResponseEntity.ok(ApiResponse.success("Item removed from cart", cartService.removeCartItem(principal.getId(), cartItemId)));
+    }
+
+    @GetMapping("/offers")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<List<OfferQuoteResponse>>> getApplicableOffers(
+            @AuthenticationPrincipal UserPrincipal principal, @RequestParam String deliveryAddressId) {
+        return ResponseEntity.ok(ApiResponse.success("Offers fetched",
+                cartService.getApplicableOffers(principal.getId(), deliveryAddressId)));
     }
 
     @DeleteMapping("/clear")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<Void>> clearCart(@AuthenticationPrincipal UserDetails userDetails) {
-        cartService.clearCart(getUserId(userDetails));
+    public ResponseEntity<ApiResponse<Void>> clearCart(@AuthenticationPrincipal UserPrincipal principal) {
+        cartService.clearCart(principal.getId());
         return ResponseEntity.ok(ApiResponse.success("Cart cleared", null));
     }
 }
@@ -1,6 +1,7 @@
 package com.fooddelivery.controller;
 
 import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.dto.response.CursorPage;
 import com.fooddelivery.entity.DeliveryAssignment;
 import com.fooddelivery.entity.DeliveryPartner;
 import com.fooddelivery.entity.Order;
@@ -8,13 +9,16 @@ import com.fooddelivery.entity.OrderStatus;
 import com.fooddelivery.repository.DeliveryAssignmentRepository;
 import com.fooddelivery.repository.DeliveryPartnerRepository;
 import com.fooddelivery.repository.OrderRepository;
-import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.UserPrincipal;
+import com.fooddelivery.service.RiderOrderIndex;
+import com.fooddelivery.util.KeysetCursor;
+import com.fooddelivery.util.Money;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -31,20 +35,16 @@ public class DeliveryOrderController {
     private final OrderRepository orderRepository;
     private final DeliveryPartnerRepository deliveryPartnerRepository;
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
-    private final UserRepository userRepository;
     private final com.fooddelivery.service.DispatchService dispatchService;
     private final com.fooddelivery.service.OrderService orderService;
-
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
+    private final RiderOrderIndex riderOrderIndex;
 
     @GetMapping("/requests")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAssignedOrderRequests(
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserPrincipal principal) {
 
-        String userId = getUserId(userDetails);
+        String userId = principal.getId();
         DeliveryPartner partner = deliveryPartnerRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Partner not found"));
 
@@ -57,7 +57,7 @@ public class DeliveryOrderController {
             map.put("assignmentId", a.getId());
             map.put("orderId", order.getId());
             map.put("restaurantName", order.getRestaurant().getName());
-            map.put("earnings", a.getExpectedEarning() != null ? a.getExpectedEarning() : 0.0);
+            map.put("earnings", Money.toRupees(Money.orZero(a.getExpectedEarning())));
 
             try {
                 if (order.getRestaurant().getAddress() != null) {
@@ -78,11 +78,11 @@ public class DeliveryOrderController {
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     @Transactional
     public ResponseEntity<ApiResponse<Map<String, Object>>> respondToAssignment(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal UserPrincipal principal,
             @PathVariable String assignmentId,
             @RequestBody com.fooddelivery.dto.request.RespondAssignmentRequest request) {
 
-        String userId = getUserId(userDetails);
+        String userId = principal.getId();
 
         try {
             if (request.isAccepted()) {
@@ -119,18 +119,11 @@ public class DeliveryOrderController {
     @GetMapping("/active")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getActiveOrders(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        String userId = getUserId(userDetails);
+            @AuthenticationPrincipal UserPrincipal principal) {
+        String userId = principal.getId();
         var partner = deliveryPartnerRepository.findByUserId(userId).orElseThrow();
 
-        List<Order> allPartnerOrders = orderRepository.findAll().stream()
-                .filter(o -> o.getDeliveryPartner() != null && o.getDeliveryPartner().getId().equals(partner.getId()))
-                .collect(Collectors.toList());
-
-        List<Order> orders = allPartnerOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.RIDER_ACCEPTED
-                        || o.getStatus() == OrderStatus.ASSIGNED_TO_RIDER || o.getStatus() == OrderStatus.PICKED_UP)
-                .collect(Collectors.toList());
+        List<Order> orders = riderOrderIndex.activeOrders(partner.getId());
 
         List<Map<String, Object>> response = orders.stream()
                 .map(this::mapOrderToResponse)
@@ -153,7 +146,7 @@ public class DeliveryOrderController {
         map.put("customerPhone", order.getUser().getPhone());
 
         // Add Payment Info for COD
-        map.put("totalAmount", order.getTotalAmount());
+        map.put("totalAmount", Money.toRupees(order.getTotalAmount()));
         map.put("paymentMethod", order.getPaymentMethod());
         map.put("paymentStatus", order.getPaymentStatus());
 
@@ -183,7 +176,7 @@ public class DeliveryOrderController {
             e.printStackTrace();
         }
 
-        map.put("earnings", order.getRiderEarning() != null ? order.getRiderEarning() : 0.0);
+        map.put("earnings", Money.toRupees(Money.orZero(order.getRiderEarning())));
         return map;
     }
 
@@ -213,26 +206,36 @@ public class DeliveryOrderController {
         return ResponseEntity.ok(ApiResponse.success("Order delivered", response));
     }
 
+    // Newest first, one keyset page at a time; pass nextCursor back for the next page
     @GetMapping("/history")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
-    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getHistory(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        String userId = getUserId(userDetails);
+    public ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> getHistory(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        String userId = principal.getId();
         var partner = deliveryPartnerRepository.findByUserId(userId).orElseThrow();
 
-        List<Order> orders = orderRepository.findAll().stream()
-                .filter(o -> o.getDeliveryPartner() != null && o.getDeliveryPartner().getId().equals(partner.getId()))
-                .filter(o -> o.getStatus() == OrderStatus.DELIVERED)
-                .collect(Collectors.toList());
+        int size = CursorPage.clampLimit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        PageRequest fetch = PageRequest.of(0, size + 1);
+        List<Order> rows = after == null
+                ? orderRepository.findRiderOrderPage(partner.getId(), OrderStatus.DELIVERED, fetch)
+                : orderRepository.findRiderOrderPageAfter(partner.getId(), OrderStatus.DELIVERED, after.createdAt(),
+                        after.id(), fetch);
+        CursorPage<Order> page = CursorPage.of(rows, size, o -> new KeysetCursor(o.getCreatedAt(), o.getId()));
 
-        List<Map<String, Object>> res = orders.stream().map(o -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("orderId", o.getId());
-            map.put("earning", o.getRiderEarning() != null ? o.getRiderEarning() : 0.0);
-            map.put("deliveredAt", o.getDeliveredAt());
-            return map;
-        }).collect(Collectors.toList());
+        List<Map<String, Object>> items = page.getItems().stream().map(this::mapHistoryEntry)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(ApiResponse.success("Order history fetched",
+                new CursorPage<>(items, page.getNextCursor())));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success("Order history fetched", res));
+    private Map<String, Object> mapHistoryEntry(Order o) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("orderId", o.getId());
+        map.put("earning", Money.toRupees(Money.orZero(o.getRiderEarning())));
+        map.put("deliveredAt", o.getDeliveredAt());
+        return map;
     }
 }
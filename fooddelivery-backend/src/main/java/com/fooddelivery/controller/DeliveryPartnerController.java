@@ -3,7 +3,7 @@ package com.fooddelivery.controller;
 import com.fooddelivery.dto.request.DeliveryPartnerRequest;
 import com.fooddelivery.dto.response.ApiResponse;
 import com.fooddelivery.dto.response.DeliveryPartnerResponse;
-import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.UserPrincipal;
 import com.fooddelivery.service.DeliveryPartnerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +11,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -23,23 +22,18 @@ import java.util.List;
 public class DeliveryPartnerController {
 
     private final DeliveryPartnerService deliveryPartnerService;
-    private final UserRepository userRepository;
-
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
 
     @PostMapping(value = "/register", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<DeliveryPartnerResponse>> register(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal UserPrincipal principal,
             @RequestPart("data") @Valid DeliveryPartnerRequest request,
             @RequestPart("license") MultipartFile license,
             @RequestPart("aadhar") MultipartFile aadhar,
             @RequestPart("rc") MultipartFile rc) {
 
         return ResponseEntity.ok(ApiResponse.success("Application submitted successfully",
-                deliveryPartnerService.submitApplication(getUserId(userDetails), request, license, aadhar, rc)));
+                deliveryPartnerService.submitApplication(principal.getId(), request, license, aadhar, rc)));
     }
 
     @GetMapping("/pending")
@@ -66,9 +60,9 @@ public class DeliveryPartnerController {
     @PatchMapping("/status/online")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<DeliveryPartnerResponse>> goOnline(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal UserPrincipal principal,
             @RequestBody java.util.Map<String, Double> location) {
-        String userId = getUserId(userDetails);
+        String userId = principal.getId();
         return ResponseEntity.ok(ApiResponse.success("Partner is now online",
                 deliveryPartnerService.toggleOnlineStatus(userId, true, location.get("latitude"),
                         location.get("longitude"))));
@@ -77,8 +71,8 @@ public class DeliveryPartnerController {
     @PatchMapping("/status/offline")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<DeliveryPartnerResponse>> goOffline(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        String userId = getUserId(userDetails);
+            @AuthenticationPrincipal UserPrincipal principal) {
+        String userId = principal.getId();
         return ResponseEntity.ok(ApiResponse.success("Partner is now offline",
                 deliveryPartnerService.toggleOnlineStatus(userId, false, null, null)));
     }
@@ -86,9 +80,9 @@ public class DeliveryPartnerController {
     @PatchMapping("/location")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<Void>> updateLocation(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal UserPrincipal principal,
             @RequestBody java.util.Map<String, Double> location) {
-        String userId = getUserId(userDetails);
+        String userId = principal.getId();
         deliveryPartnerService.updateLocation(userId, location.get("latitude"), location.get("longitude"));
         return ResponseEntity.ok(ApiResponse.success("Location updated", null));
     }
@@ -96,8 +90,8 @@ public class DeliveryPartnerController {
     @GetMapping("/profile")
     @PreAuthorize("hasRole('DELIVERY_PARTNER')")
     public ResponseEntity<ApiResponse<DeliveryPartnerResponse>> getProfile(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        String userId = getUserId(userDetails);
+            @AuthenticationPrincipal UserPrincipal principal) {
+        String userId = principal.getId();
         return ResponseEntity.ok(ApiResponse.success("Profile fetched", deliveryPartnerService.getProfile(userId)));
     }
 }
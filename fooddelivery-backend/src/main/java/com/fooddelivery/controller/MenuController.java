@@ -3,9 +3,12 @@ package com.fooddelivery.controller;
 import com.fooddelivery.dto.request.MenuItemRequest;
 import com.fooddelivery.dto.response.ApiResponse;
 import com.fooddelivery.dto.response.MenuItemResponse;
+import com.fooddelivery.service.MenuReadModel;
 import com.fooddelivery.service.MenuService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,14 +16,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/v1") // Spec said /api/v1/restaurants/...
 @RequiredArgsConstructor
 public class MenuController {
 
     private final MenuService menuService;
+    private final MenuReadModel menuReadModel;
 
     @PostMapping(value = "/restaurants/{restaurantId}/menu-items", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
@@ -34,10 +36,22 @@ public class MenuController {
                 HttpStatus.CREATED);
     }
 
+    // Pre-serialized read model; clients revalidate with If-None-Match and get 304 while it is unchanged
     @GetMapping("/restaurants/{restaurantId}/menu-items")
-    public ResponseEntity<ApiResponse<List<MenuItemResponse>>> getMenuItems(@PathVariable String restaurantId) {
-        List<MenuItemResponse> response = menuService.getMenuItems(restaurantId);
-        return ResponseEntity.ok(ApiResponse.success("Menu Items fetched", response));
+    public ResponseEntity<byte[]> getMenuItems(@PathVariable String restaurantId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        MenuReadModel.Snapshot menu = menuReadModel.get(restaurantId);
+        if (menu.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(menu.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(menu.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(menu.body());
     }
 
     @PutMapping(value = "/restaurants/{restaurantId}/menu-items/{itemId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -3,18 +3,24 @@ package com.fooddelivery.controller;
 import com.fooddelivery.dto.response.ApiResponse;
 import com.fooddelivery.dto.request.CreateOrderRequest;
 import com.fooddelivery.dto.request.PaymentConfirmationRequest;
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.dto.response.EtaReplayResponse;
+import com.fooddelivery.dto.response.OrderSummaryResponse;
 import com.fooddelivery.dto.response.OrderTrackingResponse;
 import com.fooddelivery.entity.Order;
 import com.fooddelivery.entity.OrderStatus;
-import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.UserPrincipal;
+import com.fooddelivery.service.EtaReplay;
+import com.fooddelivery.service.IdempotencyService;
 import com.fooddelivery.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,27 +30,32 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserRepository userRepository;
+    private final IdempotencyService idempotencyService;
+    private final EtaReplay etaReplay;
 
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     @PostMapping("/create")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Order>> createOrder(@AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<ApiResponse<Order>> createOrder(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @RequestBody CreateOrderRequest request) {
+        String userId = principal.getId();
+        Order order = idempotencyService.execute("create-order:" + userId, idempotencyKey, request,
+                () -> orderService.createOrder(userId, request), Order::getId, orderService::getOrder);
         return ResponseEntity
-                .ok(ApiResponse.success("Order created. Complete payment to proceed.",
-                        orderService.createOrder(getUserId(userDetails), request)));
+                .ok(ApiResponse.success("Order created. Complete payment to proceed.", order));
     }
 
     @PostMapping("/{id}/confirm-payment")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<Order>> confirmPayment(@PathVariable String id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @RequestBody PaymentConfirmationRequest request) {
-        return ResponseEntity.ok(ApiResponse.success("Payment confirmed. Order placed successfully.",
-                orderService.confirmPayment(id, request.getPaymentId(), request.getSignature())));
+        Order order = idempotencyService.execute("confirm-payment:" + id, idempotencyKey, request,
+                () -> orderService.confirmPayment(id, request.getPaymentId(), request.getSignature()),
+                Order::getId, orderService::getOrder);
+        return ResponseEntity.ok(ApiResponse.success("Payment confirmed. Order placed successfully.", order));
     }
 
     @PatchMapping("/{id}/accept")
@@ -85,15 +96,35 @@ public class OrderController {
     @PostMapping("/{id}/cancel")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<Order>> cancelOrder(@PathVariable String id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserPrincipal principal) {
         return ResponseEntity
-                .ok(ApiResponse.success("Order cancelled", orderService.cancelOrder(id, getUserId(userDetails))));
+                .ok(ApiResponse.success("Order cancelled", orderService.cancelOrder(id, principal.getId())));
     }
 
     @GetMapping("/my")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<List<Order>>> getMyOrders(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(ApiResponse.success("My Orders", orderService.getMyOrders(getUserId(userDetails))));
+    public ResponseEntity<ApiResponse<List<Order>>> getMyOrders(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(ApiResponse.success("My Orders", orderService.getMyOrders(principal.getId())));
+    }
+
+    @GetMapping("/my/history")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryResponse>>> getMyOrderHistory(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("My Orders",
+                orderService.getMyOrderHistory(principal.getId(), cursor, limit)));
+    }
+
+    // Scores the ETA model against delivered orders created in [from, to)
+    @GetMapping("/eta/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<EtaReplayResponse>> replayEta(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5000") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("ETA replay", etaReplay.replay(from, to, limit)));
     }
 
     @GetMapping("/{id}")
@@ -105,9 +136,9 @@ public class OrderController {
     @GetMapping("/active")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<List<OrderTrackingResponse>>> getActiveOrders(
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserPrincipal principal) {
         return ResponseEntity
-                .ok(ApiResponse.success("Active orders fetched", orderService.getActiveOrders(getUserId(userDetails))));
+                .ok(ApiResponse.success("Active orders fetched", orderService.getActiveOrders(principal.getId())));
     }
 
     @GetMapping("/{id}/tracking")
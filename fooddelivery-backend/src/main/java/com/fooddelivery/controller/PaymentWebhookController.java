@@ -0,0 +1,85 @@
+package com.fooddelivery.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.entity.PaymentEvent;
+import com.fooddelivery.repository.PaymentEventRepository;
+import com.fooddelivery.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Gateway webhook receiver. Only verifies, dedupes and stores the event; the
+ * payment reconciliation job applies it to the order, so the gateway gets its
+ * 200 quickly and retries are harmless.
+ */
+@RestController
+@RequestMapping("/api/v1/payments")
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentWebhookController {
+
+    private static final Set<String> HANDLED_EVENTS = Set.of("payment.captured", "order.paid", "payment.failed");
+
+    private final PaymentService paymentService;
+    private final PaymentEventRepository paymentEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/webhook")
+    public ResponseEntity<ApiResponse<Void>> webhook(@RequestBody String payload,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        if (!paymentService.verifyWebhook(payload, signature)) {
+            return new ResponseEntity<>(ApiResponse.error("Invalid webhook signature", "INVALID_SIGNATURE"),
+                    HttpStatus.UNAUTHORIZED);
+        }
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Malformed webhook payload", "BAD_REQUEST"));
+        }
+
+        String eventType = root.path("event").asText();
+        if (!HANDLED_EVENTS.contains(eventType)) {
+            return ResponseEntity.ok(ApiResponse.success("Ignored"));
+        }
+
+        JsonNode payment = root.path("payload").path("payment").path("entity");
+        String gatewayOrderId = payment.path("order_id").asText(null);
+        if (gatewayOrderId == null) {
+            gatewayOrderId = root.path("payload").path("order").path("entity").path("id").asText(null);
+        }
+        if (eventId == null || eventId.isEmpty()) {
+            eventId = DigestUtils.md5DigestAsHex(payload.getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (paymentEventRepository.existsByEventId(eventId)) {
+            return ResponseEntity.ok(ApiResponse.success("Duplicate"));
+        }
+        try {
+            paymentEventRepository.save(PaymentEvent.builder()
+                    .eventId(eventId)
+                    .eventType(eventType)
+                    .gatewayOrderId(gatewayOrderId)
+                    .gatewayPaymentId(payment.path("id").asText(null))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Concurrent delivery of the same event
+            return ResponseEntity.ok(ApiResponse.success("Duplicate"));
+        }
+
+        log.info("PAYMENT: Webhook {} for gateway order {} stored", eventType, gatewayOrderId);
+        return ResponseEntity.ok(ApiResponse.success("Received"));
+    }
+}
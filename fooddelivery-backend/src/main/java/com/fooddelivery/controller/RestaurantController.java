@@ -4,7 +4,13 @@ import com.fooddelivery.dto.request.DocumentUploadRequest;
 import com.fooddelivery.dto.request.RestaurantRequest;
 import com.fooddelivery.dto.request.RestaurantStatusUpdateRequest;
 import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.dto.response.KitchenSnapshotResponse;
+import com.fooddelivery.dto.response.NearbyRestaurantResponse;
+import com.fooddelivery.dto.response.OrderSummaryResponse;
 import com.fooddelivery.dto.response.RestaurantResponse;
+import com.fooddelivery.service.KitchenFeed;
+import com.fooddelivery.service.RestaurantDiscovery;
 import com.fooddelivery.service.RestaurantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +30,8 @@ import java.util.Map;
 public class RestaurantController {
 
     private final RestaurantService restaurantService;
+    private final KitchenFeed kitchenFeed;
+    private final RestaurantDiscovery restaurantDiscovery;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
@@ -111,6 +119,17 @@ public class RestaurantController {
         return ResponseEntity.ok(ApiResponse.success("Restaurants found", restaurantService.searchRestaurants(city)));
     }
 
+    @GetMapping("/nearby")
+    public ResponseEntity<ApiResponse<List<NearbyRestaurantResponse>>> nearbyRestaurants(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "true") boolean openNow,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("Restaurants found",
+                restaurantDiscovery.nearby(lat, lng, radiusKm, openNow, Math.max(1, Math.min(limit, 200)))));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     public ResponseEntity<ApiResponse<RestaurantResponse>> updateRestaurant(
@@ -128,4 +147,21 @@ public class RestaurantController {
             @PathVariable String id) {
         return ResponseEntity.ok(ApiResponse.success("Orders fetched", restaurantService.getOrders(id)));
     }
+
+    // Kitchen display: snapshot of open orders, kept current by kitchen_delta socket events
+    @GetMapping("/{id}/orders/live")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public ResponseEntity<ApiResponse<KitchenSnapshotResponse>> getKitchenSnapshot(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success("Open orders", kitchenFeed.snapshot(id)));
+    }
+
+    @GetMapping("/{id}/orders/history")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryResponse>>> getRestaurantOrderHistory(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("Orders fetched",
+                restaurantService.getOrderHistory(id, cursor, limit)));
+    }
 }
@@ -0,0 +1,40 @@
+package com.fooddelivery.controller;
+
+import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.dto.response.SearchResultResponse;
+import com.fooddelivery.service.SearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchIndex searchIndex;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SearchResultResponse>>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ApiResponse.success("Search results",
+                searchIndex.search(q, lat, lng, radiusKm, Math.max(1, Math.min(limit, 100)))));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<ApiResponse<List<SearchResultResponse>>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng) {
+        return ResponseEntity.ok(ApiResponse.success("Suggestions", searchIndex.search(q, lat, lng, null, 8)));
+    }
+}
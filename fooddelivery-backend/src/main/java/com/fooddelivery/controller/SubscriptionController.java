@@ -1,14 +1,13 @@
 package com.fooddelivery.controller;
 
 import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.security.UserPrincipal;
 import com.fooddelivery.service.PaymentService;
 import com.fooddelivery.service.UserService;
-import com.fooddelivery.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -20,18 +19,13 @@ public class SubscriptionController {
 
     private final PaymentService paymentService;
     private final UserService userService;
-    private final UserRepository userRepository;
-
-    private String getUserId(UserDetails userDetails) {
-        return userRepository.findByEmail(userDetails.getUsername()).orElseThrow().getId();
-    }
 
     @PostMapping("/initiate")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<ApiResponse<Map<String, String>>> initiateSubscription(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<ApiResponse<Map<String, String>>> initiateSubscription(@AuthenticationPrincipal UserPrincipal principal) {
         // Cost: 100 paise = ₹1
         String referenceId = "SUB_" + System.currentTimeMillis();
-        String orderId = paymentService.createOrder(1.0, referenceId);
+        String orderId = paymentService.createOrder(100L, referenceId);
         
         return ResponseEntity.ok(ApiResponse.success("Subscription initiated", Map.of(
             "razorpayOrderId", orderId,
@@ -43,7 +37,7 @@ public class SubscriptionController {
     @PostMapping("/verify")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<ApiResponse<String>> verifySubscription(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal UserPrincipal principal,
             @RequestBody Map<String, String> payload) {
         
         String razorpayOrderId = payload.get("razorpayOrderId");
@@ -56,7 +50,7 @@ public class SubscriptionController {
         }
 
         // Upgrade User
-        userService.upgradeToPremium(getUserId(userDetails));
+        userService.upgradeToPremium(principal.getId());
 
         return ResponseEntity.ok(ApiResponse.success("Subscription Activated", "PREMIUM_ACTIVATED"));
     }
@@ -0,0 +1,117 @@
+package com.fooddelivery.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user's cart as one self-contained document, the unit a CartStore reads and
+ * writes. Amounts are in paise.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDocument {
+    private String cartId;
+    private String userId;
+    private String restaurantId;
+    private Long menuVersion; // PricedMenu version the lines were last priced against
+    @Builder.Default
+    private List<Line> lines = new ArrayList<>();
+
+    // Lines by fingerprint, built on first lookup and reset by the line methods below
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Map<String, Line> linesByFingerprint = new HashMap<>();
+
+    /** @return the line for this item and option selection, or null */
+    public Line findLine(String fingerprint) {
+        if (linesByFingerprint.isEmpty()) {
+            for (Line line : lines) {
+                if (line.getFingerprint() == null) {
+                    // Stored before lines carried a fingerprint
+                    line.setFingerprint(Line.fingerprint(line.getMenuItemId(),
+                            line.getOptions().stream().map(LineOption::getOptionId).toArray(String[]::new)));
+                }
+                linesByFingerprint.putIfAbsent(line.getFingerprint(), line);
+            }
+        }
+        return linesByFingerprint.get(fingerprint);
+    }
+
+    public void addLine(Line line) {
+        lines.add(line);
+        linesByFingerprint.clear();
+    }
+
+    public boolean removeLine(String lineId) {
+        linesByFingerprint.clear();
+        return lines.removeIf(l -> l.getId().equals(lineId));
+    }
+
+    public void clearLines() {
+        lines.clear();
+        linesByFingerprint.clear();
+    }
+
+    /** Call after changing a line's options. */
+    public void linesChanged() {
+        linesByFingerprint.clear();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String id; // Null until the store has saved the line
+        private String menuItemId;
+        private String fingerprint; // Item id + sorted option ids, see fingerprint()
+        private String name;
+        private String imageUrl;
+        private int quantity;
+        private long itemPrice; // Base price of the item
+        private long totalPrice; // (Base + Options) * Qty
+        @Builder.Default
+        private boolean available = true; // False while the item is off the menu or unavailable
+        @Builder.Default
+        private List<LineOption> options = new ArrayList<>();
+
+        /** Canonical key of an item and option selection, independent of option order. */
+        public static String fingerprint(String menuItemId, String... optionIds) {
+            String[] sorted = optionIds.clone();
+            Arrays.sort(sorted);
+            String canonical = menuItemId + ":" + String.join(",", sorted);
+            return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineOption {
+        private String groupId;
+        private String groupName;
+        private String optionId;
+        private String name;
+        private long price; // Price at time of addition
+    }
+}
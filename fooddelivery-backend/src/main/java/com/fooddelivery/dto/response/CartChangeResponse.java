@@ -0,0 +1,23 @@
+package com.fooddelivery.dto.response;
+
+import com.fooddelivery.util.Paise;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartChangeResponse {
+    // Type: PRICE_CHANGED, OPTION_REMOVED, UNAVAILABLE, AVAILABLE
+    private String type;
+    private String cartItemId;
+    private String name; // Item name, or the option for OPTION_REMOVED
+    // Line totals in paise, serialized as rupees
+    @Paise
+    private Long oldPrice;
+    @Paise
+    private Long newPrice;
+}
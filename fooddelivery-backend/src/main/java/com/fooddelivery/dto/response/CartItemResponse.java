@@ -14,5 +14,6 @@ public class CartItemResponse {
     private Double basePrice;
     private Double finalPrice; // Unit price with options? Or total line price? Spec says "finalPrice: 560" for qty 2 @ 280. So line total.
     private String imageUrl;
+    private Boolean available;
     private List<CartOptionResponse> options;
 }
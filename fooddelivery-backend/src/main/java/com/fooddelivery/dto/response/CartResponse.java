@@ -14,4 +14,5 @@ public class CartResponse {
     private Double tax;
     private Double deliveryFee;
     private Double total;
+    private List<CartChangeResponse> changes; // Since the cart was last priced
 }
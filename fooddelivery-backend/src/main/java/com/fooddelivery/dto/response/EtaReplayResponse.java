@@ -0,0 +1,31 @@
+package com.fooddelivery.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Offline ETA benchmark: model error by the status the prediction was made at, next to the old fixed formula
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtaReplayResponse {
+    private int orders;
+    private int events;
+    private List<Score> stages;
+    private Score baseline;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Score {
+        private String stage;
+        private int predictions;
+        private double meanAbsErrorMinutes;
+        private double p90AbsErrorMinutes;
+        private double meanBiasMinutes; // Positive: predicted later than delivered
+    }
+}
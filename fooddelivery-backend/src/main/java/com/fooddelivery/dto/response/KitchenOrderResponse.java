@@ -0,0 +1,33 @@
+package com.fooddelivery.dto.response;
+
+import com.fooddelivery.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Open order as shown on a restaurant's kitchen display: what to cook, no pricing or addresses
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenOrderResponse {
+    private String orderId;
+    private OrderStatus status;
+    private String customerName;
+    private String paymentMethod;
+    private LocalDateTime createdAt;
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String name;
+        private Integer quantity;
+        private String optionsJson;
+    }
+}
@@ -0,0 +1,15 @@
+package com.fooddelivery.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenSnapshotResponse {
+    private long seq; // Deltas with a higher seq apply on top of this snapshot
+    private List<KitchenOrderResponse> orders;
+}
@@ -0,0 +1,17 @@
+package com.fooddelivery.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyRestaurantResponse {
+    private RestaurantResponse restaurant;
+    private double distanceKm;
+    private int etaMinutes;
+    private boolean openNow;
+    // Kitchen at capacity: listed last, checkout refuses new orders for now
+    private boolean busy;
+}
@@ -0,0 +1,23 @@
+package com.fooddelivery.dto.response;
+
+import com.fooddelivery.util.Paise;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferQuoteResponse {
+    private String code;
+    private String title;
+    private String discountType;
+    private boolean autoApply;
+    // Amounts in paise, serialized as rupees
+    @Paise
+    private Long discount;
+    @Paise
+    private Long total; // Cart total with this offer applied
+}
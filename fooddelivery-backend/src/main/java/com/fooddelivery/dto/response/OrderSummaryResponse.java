@@ -0,0 +1,27 @@
+package com.fooddelivery.dto.response;
+
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.PaymentStatus;
+import com.fooddelivery.util.Paise;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Order history row, selected as a JPQL constructor projection (see OrderRepository)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private String orderId;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private String paymentMethod;
+    @Paise
+    private Long totalAmount; // paise, serialized as rupees
+    private String restaurantId;
+    private String restaurantName;
+    private String customerName;
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.fooddelivery.dto.response;
 
+import com.fooddelivery.util.Paise;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,11 +11,17 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PricingResponse {
-    private Double subtotal;
-    private Double discount;
-    private Double tax;
-    private Double deliveryFee;
-    private Double total;
+    // Amounts in paise, serialized as rupees
+    @Paise
+    private Long subtotal;
+    @Paise
+    private Long discount;
+    @Paise
+    private Long tax;
+    @Paise
+    private Long deliveryFee;
+    @Paise
+    private Long total;
     private String offerApplied;
     private Integer etaMinutes;
 }
@@ -0,0 +1,32 @@
+package com.fooddelivery.dto.response;
+
+import com.fooddelivery.entity.FoodType;
+import com.fooddelivery.util.Paise;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One search hit: a restaurant, or a dish with the restaurant serving it
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchResultResponse {
+    public enum Type {
+        RESTAURANT, DISH
+    }
+
+    private Type type;
+    private String id;
+    private String name;
+    private String restaurantId;
+    private String restaurantName;
+    private String imageUrl;
+    @Paise
+    private Long price; // paise, dishes only
+    private FoodType foodType;
+    private Double distanceKm; // Only when the query has a location
+}
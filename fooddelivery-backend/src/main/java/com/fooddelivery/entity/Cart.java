@@ -1,5 +1,6 @@
 package com.fooddelivery.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -31,6 +32,11 @@ public class Cart extends BaseEntity {
     @JoinColumn(name = "restaurant_id")
     private Restaurant restaurant;
 
+    private Long menuVersion; // PricedMenu version the lines were last priced against
+
+    @Column(length = 36)
+    private String documentId; // CartDocument id, kept across Redis snapshots; null on older rows
+
     @Builder.Default
     @OneToMany(mappedBy = "cart")
     private List<CartItem> items = new ArrayList<>();
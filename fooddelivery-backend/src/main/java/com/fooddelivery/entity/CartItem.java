@@ -1,7 +1,12 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -24,11 +29,14 @@ import java.util.List;
 @AllArgsConstructor
 public class CartItem extends BaseEntity {
 
-    @ManyToOne
+    @Column(name = "line_id", length = 36)
+    private String lineId; // CartDocument line id, kept across Redis snapshots; null on older rows
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id", nullable = false)
     private Cart cart;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "menu_item_id", nullable = false)
     private MenuItem menuItem;
 
@@ -38,8 +46,14 @@ public class CartItem extends BaseEntity {
     @Builder.Default
     private List<CartItemOption> options = new ArrayList<>();
 
-    private Double itemPrice; // Base price of Item
-    private Double totalPrice; // (Base + Options) * Qty
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long itemPrice; // paise, Base price of Item
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long totalPrice; // paise, (Base + Options) * Qty
+
+    private Boolean available; // Null or true unless revalidation found the item unavailable
 
     public void addOption(CartItemOption option) {
         options.add(option);
@@ -1,6 +1,10 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,7 +23,7 @@ import lombok.Setter;
 @AllArgsConstructor
 public class CartItemOption extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_item_id", nullable = false)
     private CartItem cartItem;
 
@@ -28,5 +32,7 @@ public class CartItemOption extends BaseEntity {
     
     private String optionId;
     private String optionName;
-    private Double price; // Price at time of addition
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long price; // paise, Price at time of addition
 }
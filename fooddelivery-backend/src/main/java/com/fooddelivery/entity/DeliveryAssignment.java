@@ -1,5 +1,8 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -29,7 +32,9 @@ public class DeliveryAssignment extends BaseEntity {
     @JoinColumn(name = "delivery_partner_id", nullable = false)
     private DeliveryPartner deliveryPartner;
 
-    private Double expectedEarning;
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long expectedEarning; // paise
 
     private String status;
 
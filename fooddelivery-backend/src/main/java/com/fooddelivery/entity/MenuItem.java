@@ -1,8 +1,12 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.JoinColumn;
@@ -27,11 +31,11 @@ import java.util.List;
 @AllArgsConstructor
 public class MenuItem extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurant_id", nullable = false)
     private Restaurant restaurant;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -39,7 +43,9 @@ public class MenuItem extends BaseEntity {
     private String name;
 
     private String description;
-    private Double basePrice;
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long basePrice; // paise
 
     @Enumerated(EnumType.STRING)
     private FoodType foodType; // VEG, NON_VEG, VEGAN
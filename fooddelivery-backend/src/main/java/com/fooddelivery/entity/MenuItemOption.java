@@ -1,6 +1,10 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,10 +23,12 @@ import lombok.Setter;
 @AllArgsConstructor
 public class MenuItemOption extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "option_group_id", nullable = false)
     private MenuItemOptionGroup optionGroup;
 
     private String label; // Cheese, Coke
-    private Double extraPrice;
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long extraPrice; // paise
 }
@@ -1,6 +1,9 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -29,9 +32,13 @@ public class Offer extends BaseEntity {
     // Type: FLAT, PERCENTAGE, DELIVERY_DISCOUNT
     private String discountType;
 
-    private Double discountValue;
-    private Double maxDiscountAmount;
-    private Double minOrderAmount;
+    private Double discountValue; // Percent for PERCENTAGE, rupees for FLAT
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long maxDiscountAmount; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long minOrderAmount; // paise
 
     private Integer usageLimitPerUser;
     private Integer totalUsageLimit;
@@ -42,4 +49,6 @@ public class Offer extends BaseEntity {
     private String applicableRestaurantId; // Nullable, null means platform-wide (UUID string)
 
     private boolean active;
+
+    private boolean autoApply; // Applied without a code when it is the best eligible offer
 }
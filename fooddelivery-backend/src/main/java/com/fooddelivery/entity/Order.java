@@ -1,5 +1,8 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -18,7 +21,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @jakarta.persistence.Index(name = "idx_orders_razorpay_order_id", columnList = "razorpay_order_id"),
+        // Keyset pagination of order history, newest first
+        @jakarta.persistence.Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id"),
+        @jakarta.persistence.Index(name = "idx_orders_restaurant_created", columnList = "restaurant_id, created_at, id"),
+        // Open orders for the kitchen display
+        @jakarta.persistence.Index(name = "idx_orders_restaurant_status", columnList = "restaurant_id, status"),
+        // Rider active orders (status IN) and delivered history pages
+        @jakarta.persistence.Index(name = "idx_orders_partner_status", columnList = "delivery_partner_id, status, created_at, id"),
+        // Kitchen load reconciliation: the few orders still waiting on a kitchen
+        @jakarta.persistence.Index(name = "idx_orders_status", columnList = "status")
+})
 @Getter
 @Setter
 @Builder
@@ -53,19 +67,32 @@ public class Order extends BaseEntity {
     @jakarta.persistence.Column(length = 32)
     private OrderType orderType;
 
-    private Double subtotalAmount;
-    private Double discountAmount;
-    private Double taxAmount;
-    private Double deliveryFee;
-    private Double totalAmount;
-
-    private Double riderEarning; // Amount payable to rider
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long subtotalAmount; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long discountAmount; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long taxAmount; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long deliveryFee; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long totalAmount; // paise
+
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long riderEarning; // paise, Amount payable to rider
 
     private String offerAppliedCode;
 
     private String paymentMethod; // COD or ONLINE
 
     // Razorpay Fields
+    @jakarta.persistence.Column(name = "razorpay_order_id")
     private String razorpayOrderId;
     private String paymentId;
 
@@ -0,0 +1,66 @@
+package com.fooddelivery.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row written in the same transaction as an order status change. The
+ * relay picks these up in id order and runs the side effects (ledger, dispatch,
+ * rider unlock, notifications) outside the request.
+ */
+@Entity
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_status_id", columnList = "status, id"),
+        @Index(name = "idx_order_events_order_id", columnList = "order_id, id")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Monotonic, gives per-order ordering
+
+    @Column(name = "order_id", nullable = false)
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OrderStatus toStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    private String lastError;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 36)
+    private String claimedBy; // Relay lock token while IN_PROGRESS
+
+    private LocalDateTime claimedAt;
+
+    public enum Status {
+        PENDING,
+        IN_PROGRESS, // Claimed by a relay; its effects are running
+        PROCESSED,
+        FAILED // Gave up after max attempts
+    }
+}
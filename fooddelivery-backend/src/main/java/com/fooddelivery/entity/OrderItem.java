@@ -1,6 +1,10 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,7 +23,7 @@ import lombok.Setter;
 @AllArgsConstructor
 public class OrderItem extends BaseEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnore
     private Order order;
@@ -27,8 +31,12 @@ public class OrderItem extends BaseEntity {
     private String menuItemId; // Changed to String as per request but it's an ID reference snapshot
     private String name;
     private Integer quantity;
-    private Double basePrice;
-    private Double totalPrice;
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long basePrice; // paise
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long totalPrice; // paise
 
     private String optionsJson;
 }
@@ -0,0 +1,55 @@
+package com.fooddelivery.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Gateway webhook event, stored as received and matched to orders by
+ * razorpayOrderId in batches by the reconciliation job.
+ */
+@Entity
+@Table(name = "payment_events", indexes = {
+        @Index(name = "idx_payment_events_status_id", columnList = "status, id")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Gateway delivery id, webhooks are retried so this dedupes them
+    @Column(name = "event_id", nullable = false, unique = true, length = 64)
+    private String eventId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType; // payment.captured, order.paid, payment.failed
+
+    @Column(length = 64)
+    private String gatewayOrderId;
+
+    @Column(length = 64)
+    private String gatewayPaymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+
+    public enum Status {
+        PENDING,
+        PROCESSED,
+        UNMATCHED // No order carries this gateway order id
+    }
+}
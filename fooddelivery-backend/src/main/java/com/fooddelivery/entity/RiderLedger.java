@@ -1,5 +1,7 @@
 package com.fooddelivery.entity;
 
+import com.fooddelivery.util.Paise;
+import com.fooddelivery.util.PaiseConverter;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
@@ -27,7 +29,9 @@ public class RiderLedger {
     private LedgerType type;
 
     @Column(nullable = false)
-    private Double amount; // Positive = Credit (Payable to Rider), Negative = Debit (Rider owes)
+    @Convert(converter = PaiseConverter.class)
+    @Paise
+    private Long amount; // paise, Positive = Credit (Payable to Rider), Negative = Debit (Rider owes)
 
     private String description;
 
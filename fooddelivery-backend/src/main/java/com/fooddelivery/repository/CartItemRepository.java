@@ -2,8 +2,25 @@ package com.fooddelivery.repository;
 
 import com.fooddelivery.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, String> {
+
+    // Initializes the options collection of every line in the cart in one select
+    @Query("SELECT DISTINCT ci FROM CartItem ci LEFT JOIN FETCH ci.options WHERE ci.cart.id = :cartId")
+    List<CartItem> fetchOptionsByCartId(@Param("cartId") String cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItemOption o WHERE o.cartItem.id IN (SELECT ci.id FROM CartItem ci WHERE ci.cart.id = :cartId)")
+    int deleteOptionsByCartId(@Param("cartId") String cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteByCartId(@Param("cartId") String cartId);
 }
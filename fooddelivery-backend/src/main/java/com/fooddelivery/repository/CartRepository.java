@@ -2,6 +2,8 @@ package com.fooddelivery.repository;
 
 import com.fooddelivery.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,4 +11,9 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, String> {
     Optional<Cart> findByUserId(String userId);
+
+    // Checkout graph: user, restaurant, lines and their menu items in one select
+    @Query("SELECT DISTINCT c FROM Cart c JOIN FETCH c.user LEFT JOIN FETCH c.restaurant "
+            + "LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.menuItem WHERE c.user.id = :userId")
+    Optional<Cart> findForCheckout(@Param("userId") String userId);
 }
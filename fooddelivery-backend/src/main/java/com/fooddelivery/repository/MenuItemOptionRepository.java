@@ -1,7 +1,27 @@
 package com.fooddelivery.repository;
 
 import com.fooddelivery.entity.MenuItemOption;
+import com.fooddelivery.entity.MenuItemOptionGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface MenuItemOptionRepository extends JpaRepository<MenuItemOption, String> {
+
+    // id, label, extraPrice, group id, group name, menu item id
+    @Query("SELECT o.id, o.label, o.extraPrice, g.id, g.name, g.menuItem.id FROM MenuItemOption o "
+            + "JOIN o.optionGroup g WHERE g.menuItem.restaurant.id = :restaurantId")
+    List<Object[]> findPriceRowsByRestaurantId(@Param("restaurantId") String restaurantId);
+
+    // group id, group name, menu item id, isRequired, isMultiSelect
+    @Query("SELECT g.id, g.name, g.menuItem.id, g.isRequired, g.isMultiSelect FROM MenuItemOptionGroup g "
+            + "WHERE g.menuItem.restaurant.id = :restaurantId")
+    List<Object[]> findGroupRowsByRestaurantId(@Param("restaurantId") String restaurantId);
+
+    // Initializes the options of every option group on the restaurant's menu in one select
+    @Query("SELECT DISTINCT g FROM MenuItemOptionGroup g LEFT JOIN FETCH g.options "
+            + "WHERE g.menuItem.restaurant.id = :restaurantId")
+    List<MenuItemOptionGroup> fetchGroupOptionsByRestaurantId(@Param("restaurantId") String restaurantId);
 }
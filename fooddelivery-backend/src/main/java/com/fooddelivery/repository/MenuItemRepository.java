@@ -1,9 +1,11 @@
 package com.fooddelivery.repository;
 
 import com.fooddelivery.entity.MenuItem;
+import com.fooddelivery.entity.RestaurantStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +15,23 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, String> {
     List<MenuItem> findByRestaurantId(@org.springframework.data.repository.query.Param("restaurantId") String restaurantId);
 
     List<MenuItem> findByCategoryId(String categoryId);
+
+    // Menu read model: items with their option groups in one select
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT m FROM MenuItem m "
+            + "LEFT JOIN FETCH m.optionGroups WHERE m.restaurant.id = :restaurantId ORDER BY m.id")
+    List<MenuItem> findMenuByRestaurantId(@org.springframework.data.repository.query.Param("restaurantId") String restaurantId);
+
+    // id, name, basePrice, isAvailable, imageUrl
+    @org.springframework.data.jpa.repository.Query("SELECT m.id, m.name, m.basePrice, m.isAvailable, m.imageUrl FROM MenuItem m WHERE m.restaurant.id = :restaurantId")
+    List<Object[]> findPriceRowsByRestaurantId(@org.springframework.data.repository.query.Param("restaurantId") String restaurantId);
+
+    // Search index rows: id, name, description, foodType, basePrice, isAvailable, imageUrl, restaurant id
+    @org.springframework.data.jpa.repository.Query("SELECT m.id, m.name, m.description, m.foodType, m.basePrice, m.isAvailable, m.imageUrl, m.restaurant.id FROM MenuItem m WHERE m.restaurant.status IN :statuses")
+    List<Object[]> findSearchRows(@org.springframework.data.repository.query.Param("statuses") Collection<RestaurantStatus> statuses);
+
+    @org.springframework.data.jpa.repository.Query("SELECT m.id, m.name, m.description, m.foodType, m.basePrice, m.isAvailable, m.imageUrl, m.restaurant.id FROM MenuItem m WHERE m.restaurant.id = :restaurantId")
+    List<Object[]> findSearchRowsByRestaurantId(@org.springframework.data.repository.query.Param("restaurantId") String restaurantId);
+
+    @org.springframework.data.jpa.repository.Query("SELECT m.id, m.name, m.description, m.foodType, m.basePrice, m.isAvailable, m.imageUrl, m.restaurant.id FROM MenuItem m WHERE m.id = :id")
+    List<Object[]> findSearchRowsById(@org.springframework.data.repository.query.Param("id") String id);
 }
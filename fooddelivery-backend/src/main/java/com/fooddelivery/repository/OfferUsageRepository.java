@@ -0,0 +1,12 @@
+package com.fooddelivery.repository;
+
+import com.fooddelivery.entity.OfferUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OfferUsageRepository extends JpaRepository<OfferUsage, String> {
+    long countByOfferId(String offerId);
+
+    long countByOfferIdAndUserId(String offerId, String userId);
+}
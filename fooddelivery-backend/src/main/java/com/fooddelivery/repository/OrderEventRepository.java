@@ -0,0 +1,39 @@
+package com.fooddelivery.repository;
+
+import com.fooddelivery.entity.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+    List<OrderEvent> findByStatusOrderByIdAsc(OrderEvent.Status status, Pageable pageable);
+
+    // An earlier event of the order is still being relayed, or was left claimed by a dead node
+    boolean existsByOrderIdAndStatusAndIdLessThan(String orderId, OrderEvent.Status status, Long id);
+
+    @Modifying
+    @Query("update OrderEvent e set e.status = :claimed, e.claimedBy = :token, e.claimedAt = :now "
+            + "where e.id = :id and e.status = :pending")
+    int claim(Long id, String token, LocalDateTime now, OrderEvent.Status pending, OrderEvent.Status claimed);
+
+    @Modifying
+    @Query("update OrderEvent e set e.status = :processed, e.processedAt = :now "
+            + "where e.id = :id and e.status = :claimed and e.claimedBy = :token")
+    int complete(Long id, String token, LocalDateTime now, OrderEvent.Status claimed, OrderEvent.Status processed);
+
+    // Claims older than the relay lock belong to a node that died mid-event
+    @Modifying
+    @Query("update OrderEvent e set e.status = :pending, e.claimedBy = null, e.attempts = e.attempts + 1 "
+            + "where e.status = :claimed and e.claimedAt < :cutoff")
+    int releaseClaimsBefore(LocalDateTime cutoff, OrderEvent.Status claimed, OrderEvent.Status pending);
+
+    // ETA replay, served by idx_order_events_order_id
+    List<OrderEvent> findByOrderIdInOrderByIdAsc(Collection<String> orderIds);
+}
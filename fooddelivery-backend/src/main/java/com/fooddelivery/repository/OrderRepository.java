@@ -1,21 +1,133 @@
 package com.fooddelivery.repository;
 
+import com.fooddelivery.dto.response.OrderSummaryResponse;
+import com.fooddelivery.entity.DeliveryPartner;
 import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
+
+    String SUMMARY = "select new com.fooddelivery.dto.response.OrderSummaryResponse(o.id, o.status, "
+            + "o.paymentStatus, o.paymentMethod, o.totalAmount, r.id, r.name, u.name, o.createdAt) "
+            + "from Order o join o.restaurant r join o.user u ";
+    String AFTER_CURSOR = "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) ";
+    String NEWEST_FIRST = "order by o.createdAt desc, o.id desc";
+
+    // List endpoints serialize user, restaurant and rider: join them instead of one select per distinct row
+    @EntityGraph(attributePaths = { "user", "restaurant", "deliveryPartner" })
     List<Order> findByUserIdOrderByCreatedAtDesc(String userId);
 
+    @EntityGraph(attributePaths = { "user", "restaurant", "deliveryPartner" })
     List<Order> findByRestaurantIdOrderByCreatedAtDesc(String restaurantId);
 
+    // Kitchen display: open orders and single orders with their lines in one select
+    @EntityGraph(attributePaths = { "user", "items" })
+    List<Order> findByRestaurantIdAndStatusInOrderByCreatedAtAsc(String restaurantId,
+            Collection<OrderStatus> statuses);
+
+    @EntityGraph(attributePaths = { "user", "items" })
+    java.util.Optional<Order> findWithItemsById(String id);
+
+    @EntityGraph(attributePaths = { "user", "restaurant" })
+    List<Order> findByDeliveryPartnerIdAndStatusIn(String deliveryPartnerId, Collection<OrderStatus> statuses);
+
+    @EntityGraph(attributePaths = { "user", "restaurant", "deliveryPartner" })
+    List<Order> findByIdIn(Collection<String> ids);
+
+    // Rider history, served by idx_orders_partner_status
+    @Query("select o from Order o where o.deliveryPartner.id = :deliveryPartnerId and o.status = :status "
+            + NEWEST_FIRST)
+    List<Order> findRiderOrderPage(String deliveryPartnerId, OrderStatus status, Pageable pageable);
+
+    @Query("select o from Order o where o.deliveryPartner.id = :deliveryPartnerId and o.status = :status "
+            + AFTER_CURSOR + NEWEST_FIRST)
+    List<Order> findRiderOrderPageAfter(String deliveryPartnerId, OrderStatus status, LocalDateTime createdAt,
+            String id, Pageable pageable);
+
+    @Modifying
+    @Query("update Order o set o.estimatedDeliveryTime = :eta where o.id = :id")
+    int updateEstimatedDeliveryTime(String id, LocalDateTime eta);
+
+    // ETA replay: delivered orders oldest first, served by idx_orders_status
+    @EntityGraph(attributePaths = { "restaurant" })
+    List<Order> findByStatusAndCreatedAtBetweenOrderByCreatedAtAsc(OrderStatus status, LocalDateTime from,
+            LocalDateTime to, Pageable pageable);
+
+    // Kitchen load seed: id, restaurant id, status; served by idx_orders_status
+    @Query("select o.id, o.restaurant.id, o.status from Order o where o.status in :statuses")
+    List<Object[]> findKitchenLoadRows(Collection<OrderStatus> statuses);
+
+    @EntityGraph(attributePaths = { "user", "restaurant", "deliveryPartner" })
     List<Order> findByUserIdAndStatusNotInOrderByCreatedAtDesc(String userId,
             java.util.Collection<com.fooddelivery.entity.OrderStatus> statuses);
 
-    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
-    @org.springframework.data.jpa.repository.Query("select o from Order o where o.id = :id")
-    java.util.Optional<Order> findByIdForUpdate(String id);
+    // Read-only: changes made to the entity are never flushed, the state machine persists them
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select o from Order o where o.id = :id")
+    java.util.Optional<Order> findByIdReadOnly(String id);
+
+    @Modifying
+    @Query("update Order o set o.status = :to, o.paymentStatus = :paymentStatus, o.paymentId = :paymentId, "
+            + "o.deliveredAt = :deliveredAt, o.updatedAt = :now where o.id = :id and o.status = :from")
+    int compareAndSetStatus(String id, OrderStatus from, OrderStatus to, PaymentStatus paymentStatus,
+            String paymentId, LocalDateTime deliveredAt, LocalDateTime now);
+
+    @Modifying
+    @Query("update Order o set o.status = :to, o.updatedAt = :now where o.id = :id and o.status in :from")
+    int updateStatusIfIn(String id, Collection<OrderStatus> from, OrderStatus to, LocalDateTime now);
+
+    // Clears the persistence context so callers re-read the assigned order
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.deliveryPartner = :partner, o.riderEarning = :earning, o.status = :to, "
+            + "o.updatedAt = :now where o.id = :id and o.deliveryPartner is null and o.status = :from")
+    int assignRider(String id, DeliveryPartner partner, Long earning, OrderStatus from, OrderStatus to,
+            LocalDateTime now);
+
+    @Query("select o.status from Order o where o.id = :id")
+    java.util.Optional<OrderStatus> findStatusById(String id);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select o from Order o where o.razorpayOrderId in :razorpayOrderIds")
+    List<Order> findByRazorpayOrderIdIn(Collection<String> razorpayOrderIds);
+
+    // Online orders whose gateway order could not be created at checkout
+    @Query("select o from Order o where o.status = :status and o.paymentMethod = 'ONLINE' "
+            + "and o.razorpayOrderId is null and o.createdAt < :before order by o.createdAt")
+    List<Order> findAwaitingGatewayOrder(OrderStatus status, LocalDateTime before, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.razorpayOrderId = :razorpayOrderId, o.updatedAt = :now "
+            + "where o.id = :id and o.razorpayOrderId is null")
+    int attachRazorpayOrderId(String id, String razorpayOrderId, LocalDateTime now);
+
+    // Keyset pages of order history, served by idx_orders_user_created / idx_orders_restaurant_created
+    @Query(SUMMARY + "where o.user.id = :userId " + NEWEST_FIRST)
+    List<OrderSummaryResponse> findUserOrderPage(String userId, Pageable pageable);
+
+    @Query(SUMMARY + "where o.user.id = :userId " + AFTER_CURSOR + NEWEST_FIRST)
+    List<OrderSummaryResponse> findUserOrderPageAfter(String userId, LocalDateTime createdAt, String id,
+            Pageable pageable);
+
+    @Query(SUMMARY + "where o.restaurant.id = :restaurantId " + NEWEST_FIRST)
+    List<OrderSummaryResponse> findRestaurantOrderPage(String restaurantId, Pageable pageable);
+
+    @Query(SUMMARY + "where o.restaurant.id = :restaurantId " + AFTER_CURSOR + NEWEST_FIRST)
+    List<OrderSummaryResponse> findRestaurantOrderPageAfter(String restaurantId, LocalDateTime createdAt, String id,
+            Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.fooddelivery.repository;
+
+import com.fooddelivery.entity.PaymentEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+    List<PaymentEvent> findByStatusOrderByIdAsc(PaymentEvent.Status status, Pageable pageable);
+
+    boolean existsByEventId(String eventId);
+}
@@ -2,18 +2,37 @@ package com.fooddelivery.repository;
 
 import com.fooddelivery.entity.Restaurant;
 import com.fooddelivery.entity.RestaurantStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, String> {
     List<Restaurant> findByOwnerId(String ownerId);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id FROM Restaurant r WHERE r.owner.id = :ownerId")
+    List<String> findIdsByOwnerId(@org.springframework.data.repository.query.Param("ownerId") String ownerId);
     List<Restaurant> findByStatus(RestaurantStatus status);
     Optional<Restaurant> findByIdAndOwnerId(String id, String ownerId);
     boolean existsByPhone(String phone);
     @org.springframework.data.jpa.repository.Query("SELECT r FROM Restaurant r WHERE LOWER(r.address.city) LIKE LOWER(CONCAT('%', :city, '%')) AND r.status = :status")
     List<Restaurant> findByAddressCityAndStatus(@org.springframework.data.repository.query.Param("city") String city, @org.springframework.data.repository.query.Param("status") RestaurantStatus status);
+
+    // Discovery index loads: restaurants with owner and cuisine types in one select
+    @EntityGraph(attributePaths = { "owner", "cuisineTypes" })
+    List<Restaurant> findByStatusIn(Collection<RestaurantStatus> statuses);
+
+    @EntityGraph(attributePaths = { "owner", "cuisineTypes" })
+    Optional<Restaurant> findWithOwnerById(String id);
+
+    // Schedule engine rows: id, status, openingTime, closingTime
+    @org.springframework.data.jpa.repository.Query("SELECT r.id, r.status, r.openingTime, r.closingTime FROM Restaurant r WHERE r.status IN :statuses")
+    List<Object[]> findScheduleRows(@org.springframework.data.repository.query.Param("statuses") Collection<RestaurantStatus> statuses);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id, r.status, r.openingTime, r.closingTime FROM Restaurant r WHERE r.id = :id")
+    List<Object[]> findScheduleRowById(@org.springframework.data.repository.query.Param("id") String id);
 }
@@ -14,16 +14,12 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    // Login, and access tokens issued before they carried the user id
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPasswordHash())
-                .roles(user.getRole().name().replace("ROLE_", "")) // Spring expects format without ROLE_ prefix or use
-                                                                   // authorities
-                .build();
+        return UserPrincipal.from(user);
     }
 }
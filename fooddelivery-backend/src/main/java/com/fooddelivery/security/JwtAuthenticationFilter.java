@@ -1,5 +1,7 @@
 package com.fooddelivery.security;
 
+import com.fooddelivery.entity.Role;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -16,23 +19,30 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates bearer access tokens from their claims alone: the principal is
+ * built from the user id and role in the token, and TokenRevocations refuses
+ * tokens issued before a role change or logout. Refresh and OTP tokens are not
+ * accepted here. Tokens issued before user id claims existed still fall back to a
+ * user lookup until they expire.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocations tokenRevocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String token = getJwtFromRequest(request);
+        Claims claims = StringUtils.hasText(token) ? tokenProvider.parseClaims(token) : null;
+        UserDetails userDetails = claims != null ? principalFrom(claims) : null;
 
-        if (StringUtils.hasText(token) && tokenProvider.validateToken(token)) {
-            String username = tokenProvider.getUsernameFromToken(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+        if (userDetails != null) {
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -43,6 +53,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails principalFrom(Claims claims) {
+        String type = claims.get(JwtTokenProvider.TYPE_CLAIM, String.class);
+        if (type != null && !JwtTokenProvider.ACCESS.equals(type)) {
+            return null;
+        }
+        String userId = claims.get(JwtTokenProvider.USER_ID_CLAIM, String.class);
+        String role = claims.get(JwtTokenProvider.ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            try {
+                return userDetailsService.loadUserByUsername(claims.getSubject());
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        if (tokenRevocations.isAccessRevoked(userId, claims.getIssuedAt())) {
+            return null;
+        }
+        return new UserPrincipal(userId, claims.getSubject(), Role.valueOf(role), null);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,13 +1,12 @@
 package com.fooddelivery.security;
 
+import com.fooddelivery.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
@@ -16,6 +15,13 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    // Access and refresh tokens carry the user id and role so requests need no user lookup
+    public static final String TYPE_CLAIM = "type";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String ACCESS = "ACCESS";
+    public static final String REFRESH = "REFRESH";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -29,16 +35,27 @@ public class JwtTokenProvider {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
     }
 
-    public String generateToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(userDetails.getUsername())
+                .setSubject(user.getEmail())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(new Date().getTime() + jwtExpiration))
+                .claim(TYPE_CLAIM, ACCESS)
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /** Claims of a validly signed, unexpired token, or null. */
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
     public String getUsernameFromToken(String token) {
         Claims claims = Jwts.parserBuilder()
                 .setSigningKey(key)
@@ -69,13 +86,13 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public String generateRefreshToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+    public String generateRefreshToken(User user) {
         return Jwts.builder()
-                .setSubject(userDetails.getUsername())
+                .setSubject(user.getEmail())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(new Date().getTime() + 604800000)) // 7 days
-                .claim("type", "REFRESH")
+                .claim(TYPE_CLAIM, REFRESH)
+                .claim(USER_ID_CLAIM, user.getId())
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
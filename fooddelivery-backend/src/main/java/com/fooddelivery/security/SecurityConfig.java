@@ -33,7 +33,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/location/**").permitAll()
                         .requestMatchers("/api/v1/restaurants/**").permitAll()
                         .requestMatchers("/api/v1/menu-items/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/search/**").permitAll()
                         .requestMatchers("/api/v1/navigation/**").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/payments/webhook").permitAll() // Signature checked
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -0,0 +1,152 @@
+package com.fooddelivery.security;
+
+import com.fooddelivery.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user cutoffs that make claims-only tokens safe: tokens issued before a
+ * user's cutoff are refused. A role change moves the access cutoff, so the next
+ * request gets a 401 and the client refreshes into a token with the new role; a
+ * logout moves both cutoffs, signing the user out of every session.
+ *
+ * Cutoffs live in Redis for as long as the longest token, and the access cutoff is
+ * cached in memory for auth.revocation.cache-seconds so the filter rarely leaves the
+ * process; changes are published on auth-revocations so every node updates at once.
+ * If Redis is unreachable tokens are accepted, as they were before cutoffs existed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocations {
+
+    private static final String CHANNEL = "auth-revocations";
+    private static final String ACCESS_PREFIX = "auth_access_before:";
+    private static final String REFRESH_PREFIX = "auth_refresh_before:";
+    private static final Duration TTL = Duration.ofDays(7); // Refresh token lifetime
+
+    private record Cutoff(long beforeSeconds, long loadedAtNanos) {
+    }
+
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${auth.revocation.cache-seconds:30}")
+    private long cacheSeconds;
+
+    @Value("${auth.revocation.cache-max-entries:100000}")
+    private int cacheMaxEntries;
+
+    private final Map<String, Cutoff> accessCutoffs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+    }
+
+    /** Refuses the user's earlier access tokens once the surrounding transaction commits. */
+    public void rolesChanged(String userId) {
+        afterCommit(() -> cut(userId, false));
+    }
+
+    /** Refuses every access and refresh token issued to the user so far. */
+    public void revokeAll(String userId) {
+        afterCommit(() -> cut(userId, true));
+    }
+
+    public boolean isAccessRevoked(String userId, Date issuedAt) {
+        Cutoff cutoff = accessCutoffs.get(userId);
+        if (cutoff == null || System.nanoTime() - cutoff.loadedAtNanos() > TimeUnit.SECONDS.toNanos(cacheSeconds)) {
+            cutoff = new Cutoff(read(ACCESS_PREFIX + userId), System.nanoTime());
+            remember(userId, cutoff);
+        }
+        return revoked(cutoff.beforeSeconds(), issuedAt);
+    }
+
+    // Refresh is rare, so it always reads Redis
+    public boolean isRefreshRevoked(String userId, Date issuedAt) {
+        return revoked(read(REFRESH_PREFIX + userId), issuedAt);
+    }
+
+    private void cut(String userId, boolean refreshToo) {
+        // JWT iat has second precision; a token issued later in this same second still passes
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        remember(userId, new Cutoff(now, System.nanoTime()));
+        try {
+            redisService.set(ACCESS_PREFIX + userId, String.valueOf(now), TTL);
+            if (refreshToo) {
+                redisService.set(REFRESH_PREFIX + userId, String.valueOf(now), TTL);
+            }
+            redisService.publish(CHANNEL, userId + "|" + now);
+        } catch (Exception e) {
+            log.warn("AUTH: Could not record token cutoff for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.indexOf('|');
+        if (separator < 0) {
+            return;
+        }
+        try {
+            remember(message.substring(0, separator),
+                    new Cutoff(Long.parseLong(message.substring(separator + 1)), System.nanoTime()));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private long read(String key) {
+        try {
+            String value = redisService.get(key);
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (Exception e) {
+            log.warn("AUTH: Could not read token cutoff {}: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void remember(String userId, Cutoff cutoff) {
+        if (accessCutoffs.size() >= cacheMaxEntries) {
+            // Approximate bound: drop an arbitrary tenth rather than track recency
+            Iterator<String> it = accessCutoffs.keySet().iterator();
+            for (int i = 0; i < cacheMaxEntries / 10 + 1 && it.hasNext(); i++) {
+                it.next();
+                it.remove();
+            }
+        }
+        accessCutoffs.put(userId, cutoff);
+    }
+
+    private static boolean revoked(long beforeSeconds, Date issuedAt) {
+        return beforeSeconds > 0 && (issuedAt == null || issuedAt.getTime() / 1000 < beforeSeconds);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
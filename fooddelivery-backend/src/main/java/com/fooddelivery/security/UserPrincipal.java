@@ -0,0 +1,48 @@
+package com.fooddelivery.security;
+
+import com.fooddelivery.entity.Role;
+import com.fooddelivery.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated user as controllers see it: the id and role come straight from the
+ * access token's claims, so {@code @AuthenticationPrincipal UserPrincipal} needs no
+ * user lookup. The password is only set when loaded for a login.
+ */
+@Getter
+public class UserPrincipal implements UserDetails {
+
+    private final String id;
+    private final String email;
+    private final Role role;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    public UserPrincipal(String id, String email, Role role, String password) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.password = password;
+        this.authorities = List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getPasswordHash());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -8,10 +8,11 @@ import com.fooddelivery.entity.User;
 import com.fooddelivery.entity.UserStatus;
 import com.fooddelivery.repository.UserRepository;
 import com.fooddelivery.security.JwtTokenProvider;
+import com.fooddelivery.security.TokenRevocations;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -30,6 +31,7 @@ public class AuthService {
     private final OtpRepository otpRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final TokenRevocations tokenRevocations;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
     private final PasswordValidationService passwordValidator;
@@ -111,46 +113,40 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
+        authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
 
-        String accessToken = tokenProvider.generateToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(authentication);
         User user = userRepository.findByEmail(request.getEmail()).orElseThrow();
-
-        return createAuthResponse(accessToken, refreshToken, user);
+        return loginWithoutPassword(user);
     }
 
     private AuthResponse loginWithoutPassword(User user) {
-        org.springframework.security.core.userdetails.User principal = new org.springframework.security.core.userdetails.User(
-                user.getEmail(), "", java.util.Collections.emptyList());
-
-        Authentication auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
-        String accessToken = tokenProvider.generateToken(auth);
-        String refreshToken = tokenProvider.generateRefreshToken(auth);
+        String accessToken = tokenProvider.generateToken(user);
+        String refreshToken = tokenProvider.generateRefreshToken(user);
         return createAuthResponse(accessToken, refreshToken, user);
     }
 
+    // Reissues both tokens from the current user row, so a changed role is picked up here
     public AuthResponse refreshToken(String refreshToken) {
-        if (!tokenProvider.validateToken(refreshToken)) {
+        Claims claims = tokenProvider.parseClaims(refreshToken);
+        if (claims == null || !JwtTokenProvider.REFRESH.equals(claims.get(JwtTokenProvider.TYPE_CLAIM, String.class))) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        User user = userRepository.findByEmail(claims.getSubject()).orElseThrow();
+        if (tokenRevocations.isRefreshRevoked(user.getId(), claims.getIssuedAt())) {
             throw new RuntimeException("Invalid refresh token");
         }
-        String email = tokenProvider.getUsernameFromToken(refreshToken);
-        User user = userRepository.findByEmail(email).orElseThrow();
-
-        org.springframework.security.core.userdetails.User principal = new org.springframework.security.core.userdetails.User(
-                user.getEmail(), "", java.util.Collections.emptyList());
-
-        Authentication auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
-        String newAccessToken = tokenProvider.generateToken(auth);
-        String newRefreshToken = tokenProvider.generateRefreshToken(auth);
 
-        return createAuthResponse(newAccessToken, newRefreshToken, user);
+        return loginWithoutPassword(user);
     }
 
+    // Signs the user out of every session: earlier access and refresh tokens are refused
     public void logout(String refreshToken) {
-        // In a stateless JWT, we can't really "logout" without a blacklist.
-        // For now, we will just return success as per spec.
+        Claims claims = tokenProvider.parseClaims(refreshToken);
+        String userId = claims != null ? claims.get(JwtTokenProvider.USER_ID_CLAIM, String.class) : null;
+        if (userId != null) {
+            tokenRevocations.revokeAll(userId);
+        }
     }
 
     private AuthResponse createAuthResponse(String accessToken, String refreshToken, User user) {
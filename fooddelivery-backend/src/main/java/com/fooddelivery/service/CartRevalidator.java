@@ -0,0 +1,93 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.CartDocument;
+import com.fooddelivery.dto.response.CartChangeResponse;
+import com.fooddelivery.util.Money;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Brings a cart in line with the current menu snapshot in one pass over its
+ * lines, and only when the snapshot's version differs from the one the cart was
+ * last priced against, so an unchanged menu costs a single comparison per view.
+ *
+ * Lines take current item and option prices, the same ones checkout charges.
+ * Items that left the menu or are unavailable are flagged, not dropped, and
+ * options that no longer exist are removed. Every difference is reported.
+ */
+@Component
+public class CartRevalidator {
+
+    /** @return what changed; the cart's menuVersion is updated whenever it was stale */
+    public List<CartChangeResponse> revalidate(CartDocument cart, PricedMenuCache.PricedMenu menu) {
+        if (cart.getMenuVersion() != null && cart.getMenuVersion() == menu.getVersion()) {
+            return List.of();
+        }
+
+        List<CartChangeResponse> changes = new ArrayList<>();
+        boolean optionsChanged = false;
+        for (CartDocument.Line line : cart.getLines()) {
+            PricedMenuCache.PricedItem item = menu.item(line.getMenuItemId());
+            if (item == null || !item.available()) {
+                if (line.isAvailable()) {
+                    line.setAvailable(false);
+                    changes.add(change("UNAVAILABLE", line, line.getName(), line.getTotalPrice(), null));
+                }
+                continue;
+            }
+            if (!line.isAvailable()) {
+                line.setAvailable(true);
+                changes.add(change("AVAILABLE", line, line.getName(), null, null));
+            }
+
+            long unit = item.basePrice();
+            boolean removedOption = false;
+            Iterator<CartDocument.LineOption> options = line.getOptions().iterator();
+            while (options.hasNext()) {
+                CartDocument.LineOption selected = options.next();
+                PricedMenuCache.PricedOption option = menu.option(selected.getOptionId());
+                if (option == null || !option.menuItemId().equals(item.id())) {
+                    options.remove();
+                    removedOption = true;
+                    changes.add(change("OPTION_REMOVED", line, selected.getName(), null, null));
+                    continue;
+                }
+                selected.setPrice(option.extraPrice());
+                unit = Money.add(unit, option.extraPrice());
+            }
+
+            long oldTotal = line.getTotalPrice();
+            line.setName(item.name());
+            line.setItemPrice(item.basePrice());
+            line.setTotalPrice(Money.times(unit, line.getQuantity()));
+            if (line.getTotalPrice() != oldTotal) {
+                changes.add(change("PRICE_CHANGED", line, line.getName(), oldTotal, line.getTotalPrice()));
+            }
+            if (removedOption) {
+                optionsChanged = true;
+                line.setFingerprint(CartDocument.Line.fingerprint(line.getMenuItemId(),
+                        line.getOptions().stream().map(CartDocument.LineOption::getOptionId).toArray(String[]::new)));
+            }
+        }
+        if (optionsChanged) {
+            cart.linesChanged();
+        }
+
+        cart.setMenuVersion(menu.getVersion());
+        return changes;
+    }
+
+    private static CartChangeResponse change(String type, CartDocument.Line line, String name, Long oldPrice,
+            Long newPrice) {
+        return CartChangeResponse.builder()
+                .type(type)
+                .cartItemId(line.getId())
+                .name(name)
+                .oldPrice(oldPrice)
+                .newPrice(newPrice)
+                .build();
+    }
+}
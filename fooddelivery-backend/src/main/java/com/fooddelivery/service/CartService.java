@@ -1,246 +1,325 @@
 package com.fooddelivery.service;
 
+import com.fooddelivery.dto.CartDocument;
 import com.fooddelivery.dto.request.AddToCartRequest;
 import com.fooddelivery.dto.request.CartOptionRequest;
 import com.fooddelivery.dto.request.UpdateCartRequest;
+import com.fooddelivery.dto.response.CartChangeResponse;
 import com.fooddelivery.dto.response.CartItemResponse;
 import com.fooddelivery.dto.response.CartOptionResponse;
 import com.fooddelivery.dto.response.CartResponse;
-import com.fooddelivery.entity.*;
-import com.fooddelivery.repository.*;
+import com.fooddelivery.dto.response.OfferQuoteResponse;
+import com.fooddelivery.util.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Cart operations as read-modify-write of the user's cart document. Item and
+ * option details come from the cached menu snapshot, so with the Redis store an
+ * add-to-cart is one key read and one key write.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
-    private final MenuItemRepository menuItemRepository;
-    private final MenuItemOptionRepository menuItemOptionRepository;
+    private final CartStore cartStore;
+    private final PricedMenuCache pricedMenuCache;
+    private final RestaurantSchedule restaurantSchedule;
+    private final CartRevalidator cartRevalidator;
+    private final PricingService pricingService;
+    private final MeterRegistry meterRegistry;
 
-    @Transactional
+    private Timer addTimer;
+    private Timer updateTimer;
+    private Timer removeTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        addTimer = operationTimer("add");
+        updateTimer = operationTimer("update");
+        removeTimer = operationTimer("remove");
+    }
+
+    private Timer operationTimer(String operation) {
+        return Timer.builder("cart.operations")
+                .description("Cart mutations, by operation")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /** Reprices the cart first if the restaurant's menu changed since it was last priced. */
     public CartResponse getMyCart(String userId) {
-        Cart cart = getOrCreateCart(userId);
-        return mapToResponse(cart);
+        CartDocument cart = loadOrNew(userId);
+        if (cart.getRestaurantId() == null) {
+            return mapToResponse(cart, List.of());
+        }
+        Long pricedVersion = cart.getMenuVersion();
+        List<CartChangeResponse> changes = cartRevalidator.revalidate(cart,
+                pricedMenuCache.get(cart.getRestaurantId()));
+        if (!Objects.equals(pricedVersion, cart.getMenuVersion())) {
+            cartStore.save(cart);
+        }
+        return mapToResponse(cart, changes);
+    }
+
+    /** Offers applicable to the user's cart, best saving first. */
+    public List<OfferQuoteResponse> getApplicableOffers(String userId, String deliveryAddressId) {
+        CartDocument cart = cartStore.load(userId);
+        return cart != null ? pricingService.rankOffers(cart, userId, deliveryAddressId) : List.of();
     }
 
-    public Cart getCartEntity(String userId) {
-        return getOrCreateCart(userId);
+    /** The user's cart for checkout, or empty if they have none. */
+    public Optional<CartDocument> getCartForCheckout(String userId) {
+        return Optional.ofNullable(cartStore.load(userId));
     }
 
-    @Transactional
     public CartResponse addToCart(String userId, AddToCartRequest request) {
-        Cart cart = getOrCreateCart(userId);
-        MenuItem item = menuItemRepository.findById(request.getItemId())
-                .orElseThrow(() -> new RuntimeException("Menu Item not found"));
+        return addTimer.record(() -> doAddToCart(userId, request));
+    }
+
+    private CartResponse doAddToCart(String userId, AddToCartRequest request) {
+        if (!restaurantSchedule.isOpen(request.getRestaurantId())) {
+            throw new RuntimeException("Restaurant is closed right now");
+        }
+        CartDocument cart = loadOrNew(userId);
+        PricedMenuCache.PricedMenu menu = pricedMenuCache.get(request.getRestaurantId());
+        PricedMenuCache.PricedItem item = menu.item(request.getItemId());
+        if (item == null) {
+            throw new RuntimeException("Menu Item not found");
+        }
+        if (!item.available()) {
+            throw new RuntimeException("Item is currently unavailable: " + item.name());
+        }
+
+        List<CartDocument.LineOption> options = resolveOptions(menu, item, request.getOptions());
 
         // 1. Check Restaurant Conflict
-        if (cart.getRestaurant() != null && !cart.getRestaurant().getId().equals(request.getRestaurantId())) {
+        if (cart.getRestaurantId() != null && !cart.getRestaurantId().equals(request.getRestaurantId())) {
             // Auto-clear
-            cartItemRepository.deleteAll(cart.getItems());
-            cart.getItems().clear();
-            cart.setRestaurant(item.getRestaurant());
-            cartRepository.save(cart);
-        } else if (cart.getRestaurant() == null) {
-            cart.setRestaurant(item.getRestaurant());
-            cartRepository.save(cart);
+            cart.clearLines();
         }
+        cart.setRestaurantId(request.getRestaurantId());
+        List<CartChangeResponse> changes = cartRevalidator.revalidate(cart, menu);
 
         // 2. Check for matching item (Merge logic)
-        Optional<CartItem> existingItem = findMatchingItem(cart, request.getItemId(), request.getOptions());
+        String fingerprint = fingerprint(item.id(), options);
+        CartDocument.Line existingLine = cart.findLine(fingerprint);
 
-        if (existingItem.isPresent()) {
-            CartItem cartItem = existingItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
-            updateItemPrice(cartItem); // Recalculate just in case
-            cartItemRepository.save(cartItem);
+        if (existingLine != null) {
+            existingLine.setQuantity(existingLine.getQuantity() + request.getQuantity());
+            updateLinePrice(existingLine, item); // Recalculate just in case
         } else {
             // Create New
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .menuItem(item)
+            CartDocument.Line line = CartDocument.Line.builder()
+                    .menuItemId(item.id())
+                    .fingerprint(fingerprint)
+                    .name(item.name())
+                    .imageUrl(item.imageUrl())
                     .quantity(request.getQuantity())
-                    .itemPrice(item.getBasePrice())
+                    .options(options)
                     .build();
-            
-            // Add options
-            if (request.getOptions() != null) {
-                for (CartOptionRequest optReq : request.getOptions()) {
-                    MenuItemOption option = menuItemOptionRepository.findById(optReq.getOptionId())
-                            .orElseThrow(() -> new RuntimeException("Option not found: " + optReq.getOptionId()));
-                    
-                    CartItemOption cartOption = CartItemOption.builder()
-                            .optionGroupId(optReq.getGroupId()) // Or option.getOptionGroup().getId()
-                            .optionGroupName(option.getOptionGroup().getName())
-                            .optionId(option.getId())
-                            .optionName(option.getLabel())
-                            .price(option.getExtraPrice())
-                            .build();
-                    newItem.addOption(cartOption);
-                }
-            }
-            updateItemPrice(newItem);
-            cart.getItems().add(newItem);
-            cartItemRepository.save(newItem);
+            updateLinePrice(line, item);
+            cart.addLine(line);
         }
 
-        return mapToResponse(cartRepository.save(cart)); // Save cart to be sure properties update
+        cartStore.save(cart);
+        return mapToResponse(cart, changes);
     }
 
-    @Transactional
     public CartResponse updateCartItem(String userId, UpdateCartRequest request) {
-        Cart cart = getOrCreateCart(userId);
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getId().equals(request.getCartItemId()))
+        return updateTimer.record(() -> doUpdateCartItem(userId, request));
+    }
+
+    private CartResponse doUpdateCartItem(String userId, UpdateCartRequest request) {
+        CartDocument cart = loadOrNew(userId);
+        CartDocument.Line line = cart.getLines().stream()
+                .filter(l -> l.getId().equals(request.getCartItemId()))
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Cart Item not found"));
 
         if (request.getQuantity() != null) {
+            // Spec says "Quantity <=0 BAD_REQUEST", removal is DELETE /cart/item
             if (request.getQuantity() <= 0) {
-                // Remove logic if qty 0? Spec says "DELETE /cart/item" is separate. 
-                // But typically qty 0 means remove. Let's assume validation prevents <=0 or we remove.
-                // Spec says "Quantity <=0 BAD_REQUEST", so we throw.
                 throw new RuntimeException("Quantity must be > 0");
             }
-            item.setQuantity(request.getQuantity());
+            line.setQuantity(request.getQuantity());
+        }
+
+        PricedMenuCache.PricedMenu menu = pricedMenuCache.get(cart.getRestaurantId());
+        List<CartChangeResponse> changes = cartRevalidator.revalidate(cart, menu);
+        PricedMenuCache.PricedItem item = menu.item(line.getMenuItemId());
+        if (!line.isAvailable() || item == null) {
+            throw new RuntimeException("Item is currently unavailable: " + line.getName());
         }
 
-        // Updating options is complex (re-creating list), spec allows it.
-        // For now, let's assume update is mostly Qty. 
-        // If options provided, we replace.
+        // If options provided, we replace; a line that now matches another one is merged into it
         if (request.getOptions() != null) {
-             // Clear existing options
-             item.getOptions().clear();
-             // Add new
-             for (CartOptionRequest optReq : request.getOptions()) {
-                MenuItemOption option = menuItemOptionRepository.findById(optReq.getOptionId())
-                        .orElseThrow(() -> new RuntimeException("Option not found"));
-                
-                CartItemOption cartOption = CartItemOption.builder()
-                        .optionGroupId(optReq.getGroupId())
-                        .optionGroupName(option.getOptionGroup().getName())
-                        .optionId(option.getId())
-                        .optionName(option.getLabel())
-                        .price(option.getExtraPrice())
-                        .build();
-                item.addOption(cartOption);
+            List<CartDocument.LineOption> options = resolveOptions(menu, item, request.getOptions());
+            String fingerprint = fingerprint(item.id(), options);
+            CartDocument.Line twin = cart.findLine(fingerprint);
+            if (twin != null && twin != line) {
+                twin.setQuantity(twin.getQuantity() + line.getQuantity());
+                cart.removeLine(line.getId());
+                line = twin;
+            } else {
+                line.setOptions(options);
+                line.setFingerprint(fingerprint);
+                cart.linesChanged();
             }
         }
 
-        updateItemPrice(item);
-        cartItemRepository.save(item);
-        return mapToResponse(cartRepository.findById(cart.getId()).orElseThrow());
+        updateLinePrice(line, item);
+        cartStore.save(cart);
+        return mapToResponse(cart, changes);
     }
 
-    @Transactional
     public CartResponse removeCartItem(String userId, String cartItemId) {
-        Cart cart = getOrCreateCart(userId);
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getId().equals(cartItemId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
+        return removeTimer.record(() -> doRemoveCartItem(userId, cartItemId));
+    }
+
+    private CartResponse doRemoveCartItem(String userId, String cartItemId) {
+        CartDocument cart = loadOrNew(userId);
+        boolean removed = cart.removeLine(cartItemId);
+        if (!removed) {
+            throw new RuntimeException("Item not found in cart");
+        }
 
-        cart.getItems().remove(item);
-        cartItemRepository.delete(item);
-        
-        // If empty, clear restaurant?
-        if (cart.getItems().isEmpty()) {
-            cart.setRestaurant(null);
+        if (cart.getLines().isEmpty()) {
+            cart.setRestaurantId(null);
         }
-        
-        return mapToResponse(cartRepository.save(cart));
+
+        cartStore.save(cart);
+        return mapToResponse(cart, List.of());
     }
 
-    @Transactional
+    /** Empties the cart; inside a transaction the store applies it on commit. */
     public void clearCart(String userId) {
-        Cart cart = getOrCreateCart(userId);
-        cartItemRepository.deleteAll(cart.getItems());
-        cart.getItems().clear();
-        cart.setRestaurant(null);
-        cartRepository.save(cart);
+        cartStore.delete(userId);
     }
 
     // Helpers
 
-    private Cart getOrCreateCart(String userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    User user = userRepository.findById(userId).orElseThrow();
-                    return cartRepository.save(Cart.builder().user(user).build());
-                });
-    }
-
-    private Optional<CartItem> findMatchingItem(Cart cart, String itemId, List<CartOptionRequest> requestedOptions) {
-        // Simple logic: Check if itemId matches AND option IDs match exactly.
-        // Requested Options: List of {groupId, optionId}
-        // Existing Options: List of CartItemOption {optionId...}
-        
-        List<String> reqOptionIds = requestedOptions == null ? new ArrayList<>() : 
-            requestedOptions.stream().map(CartOptionRequest::getOptionId).sorted().collect(Collectors.toList());
-
-        return cart.getItems().stream()
-                .filter(ci -> ci.getMenuItem().getId().equals(itemId))
-                .filter(ci -> {
-                    List<String> existingIds = ci.getOptions().stream()
-                            .map(CartItemOption::getOptionId).sorted().collect(Collectors.toList());
-                    return existingIds.equals(reqOptionIds);
-                })
-                .findFirst();
-    }
-
-    private void updateItemPrice(CartItem item) {
-        double base = item.getMenuItem().getBasePrice(); // Or item.getItemPrice() (snapshot)
-        // Let's use current menu price or snapshot? Usually snapshot.
-        // But if I use base from entity, I should update snapshot.
-        item.setItemPrice(item.getMenuItem().getBasePrice()); 
-        
-        double optionsTotal = item.getOptions().stream().mapToDouble(CartItemOption::getPrice).sum();
-        item.setTotalPrice((base + optionsTotal) * item.getQuantity());
-    }
-
-    private CartResponse mapToResponse(Cart cart) {
-        double subtotal = cart.getItems().stream().mapToDouble(CartItem::getTotalPrice).sum();
-        double tax = subtotal * 0.05; // 5% example tax
-        double deliveryFee = subtotal > 0 ? 40.0 : 0.0; // Flat 40 if not empty
-        double total = subtotal + tax + deliveryFee;
-
-        List<CartItemResponse> items = cart.getItems().stream().map(i -> 
+    private CartDocument loadOrNew(String userId) {
+        CartDocument cart = cartStore.load(userId);
+        return cart != null ? cart : CartDocument.builder().userId(userId).build();
+    }
+
+    /**
+     * Resolves the selected options against the cached menu and enforces the
+     * item's option group rules: at most one option in a single-select group and
+     * at least one in every required group.
+     */
+    private List<CartDocument.LineOption> resolveOptions(PricedMenuCache.PricedMenu menu,
+            PricedMenuCache.PricedItem item, List<CartOptionRequest> requested) {
+        List<CartDocument.LineOption> options = new ArrayList<>(requested != null ? requested.size() : 0);
+        Map<String, Integer> selectedPerGroup = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        if (requested != null) {
+            for (CartOptionRequest optReq : requested) {
+                PricedMenuCache.PricedOption option = menu.option(optReq.getOptionId());
+                if (option == null || !option.menuItemId().equals(item.id())) {
+                    throw new RuntimeException("Option not found: " + optReq.getOptionId());
+                }
+                if (!seen.add(option.id())) {
+                    throw new RuntimeException("Option selected more than once: " + option.label());
+                }
+                selectedPerGroup.merge(option.groupId(), 1, Integer::sum);
+                options.add(CartDocument.LineOption.builder()
+                        .groupId(option.groupId())
+                        .groupName(option.groupName())
+                        .optionId(option.id())
+                        .name(option.label())
+                        .price(option.extraPrice())
+                        .build());
+            }
+        }
+
+        for (PricedMenuCache.OptionGroupRule group : menu.groups(item.id())) {
+            int selected = selectedPerGroup.getOrDefault(group.id(), 0);
+            if (group.required() && selected == 0) {
+                throw new RuntimeException("Please select an option for " + group.name());
+            }
+            if (!group.multiSelect() && selected > 1) {
+                throw new RuntimeException("Only one option can be selected for " + group.name());
+            }
+        }
+        return options;
+    }
+
+    private static String fingerprint(String menuItemId, List<CartDocument.LineOption> options) {
+        String[] optionIds = new String[options.size()];
+        for (int i = 0; i < optionIds.length; i++) {
+            optionIds[i] = options.get(i).getOptionId();
+        }
+        return CartDocument.Line.fingerprint(menuItemId, optionIds);
+    }
+
+    private void updateLinePrice(CartDocument.Line line, PricedMenuCache.PricedItem item) {
+        // Current base price; option prices are current as of resolveOptions or the last revalidation
+        line.setItemPrice(item.basePrice());
+
+        long unit = item.basePrice();
+        for (CartDocument.LineOption option : line.getOptions()) {
+            unit = Money.add(unit, option.getPrice());
+        }
+        line.setTotalPrice(Money.times(unit, line.getQuantity()));
+    }
+
+    // Totals follow PricingService; the fee is the base fee until checkout knows the address
+    private CartResponse mapToResponse(CartDocument cart, List<CartChangeResponse> changes) {
+        long subtotal = 0;
+        for (CartDocument.Line line : cart.getLines()) {
+            if (line.isAvailable()) {
+                subtotal = Money.add(subtotal, line.getTotalPrice());
+            }
+        }
+        long tax = pricingService.tax(subtotal);
+        long deliveryFee = subtotal > 0 ? pricingService.baseDeliveryFee() : 0;
+        long total = subtotal + tax + deliveryFee;
+
+        List<CartItemResponse> items = cart.getLines().stream().map(l ->
             CartItemResponse.builder()
-                    .cartItemId(i.getId())
-                    .itemId(i.getMenuItem().getId())
-                    .name(i.getMenuItem().getName())
-                    .quantity(i.getQuantity())
-                    .basePrice(i.getItemPrice())
-                    .finalPrice(i.getTotalPrice())
-                    .imageUrl(i.getMenuItem().getImageUrl())
-                    .options(i.getOptions().stream().map(o -> 
+                    .cartItemId(l.getId())
+                    .itemId(l.getMenuItemId())
+                    .name(l.getName())
+                    .quantity(l.getQuantity())
+                    .basePrice(Money.toRupees(l.getItemPrice()))
+                    .finalPrice(Money.toRupees(l.getTotalPrice()))
+                    .imageUrl(l.getImageUrl())
+                    .available(l.isAvailable())
+                    .options(l.getOptions().stream().map(o ->
                         CartOptionResponse.builder()
-                                .groupName(o.getOptionGroupName())
-                                .optionSelected(o.getOptionName())
-                                .extraPrice(o.getPrice())
+                                .groupName(o.getGroupName())
+                                .optionSelected(o.getName())
+                                .extraPrice(Money.toRupees(o.getPrice()))
                                 .build()
                     ).collect(Collectors.toList()))
                     .build()
         ).collect(Collectors.toList());
 
         return CartResponse.builder()
-                .cartId(cart.getId())
-                .restaurantId(cart.getRestaurant() != null ? cart.getRestaurant().getId() : null)
+                .cartId(cart.getCartId())
+                .restaurantId(cart.getRestaurantId())
                 .items(items)
-                .subtotal(subtotal)
-                .tax(tax)
-                .deliveryFee(deliveryFee)
-                .total(total)
+                .subtotal(Money.toRupees(subtotal))
+                .tax(Money.toRupees(tax))
+                .deliveryFee(Money.toRupees(deliveryFee))
+                .total(Money.toRupees(total))
+                .changes(changes)
                 .build();
     }
 }
@@ -0,0 +1,19 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.CartDocument;
+
+/**
+ * Storage for carts as whole documents. Selected with cart.store: jpa (default)
+ * keeps carts in the cart tables, redis keeps them as one key per user.
+ */
+public interface CartStore {
+
+    /** @return the user's cart, or null if they have none */
+    CartDocument load(String userId);
+
+    /** Persists the cart and assigns ids to new lines. */
+    void save(CartDocument cart);
+
+    /** Removes the cart; deferred until commit when called inside a transaction. */
+    void delete(String userId);
+}
@@ -7,6 +7,7 @@ import com.fooddelivery.entity.Role;
 import com.fooddelivery.entity.User;
 import com.fooddelivery.repository.DeliveryPartnerRepository;
 import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.TokenRevocations;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +24,7 @@ public class DeliveryPartnerService {
     private final UserRepository userRepository;
     private final CloudinaryService cloudinaryService;
     private final RedisService redisService;
+    private final TokenRevocations tokenRevocations;
 
     @Transactional
     public DeliveryPartnerResponse submitApplication(String userId, DeliveryPartnerRequest request,
@@ -73,6 +75,7 @@ public class DeliveryPartnerService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setRole(Role.ROLE_DELIVERY_PARTNER);
         userRepository.save(user);
+        tokenRevocations.rolesChanged(user.getId());
 
         return mapToResponse(saved);
     }
@@ -1,6 +1,5 @@
 package com.fooddelivery.service;
 
-import com.corundumstudio.socketio.SocketIOServer;
 import com.fooddelivery.entity.DeliveryAssignment;
 import com.fooddelivery.entity.DeliveryPartner;
 import com.fooddelivery.entity.Order;
@@ -8,6 +7,8 @@ import com.fooddelivery.entity.OrderStatus;
 import com.fooddelivery.repository.DeliveryAssignmentRepository;
 import com.fooddelivery.repository.DeliveryPartnerRepository;
 import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.util.Geo;
+import com.fooddelivery.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -33,9 +35,11 @@ public class DispatchService {
     private final DeliveryPartnerRepository deliveryPartnerRepository;
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
     private final OrderRepository orderRepository;
-    private final SocketIOServer socketIOServer;
+    private final SocketMessagingService socketMessagingService;
     private final ScoringService scoringService;
     private final PricingService pricingService;
+    private final OrderStateMachine orderStateMachine;
+    private final RiderOrderIndex riderOrderIndex;
     private final org.springframework.transaction.support.TransactionTemplate transactionTemplate;
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
 
@@ -69,19 +73,15 @@ public class DispatchService {
 
                 transactionTemplate.execute(status -> {
                     Order order = orderRepository.findById(orderId).orElse(null);
-                    if (order != null) {
-                        order.setStatus(OrderStatus.NO_RIDER_AVAILABLE);
-                        orderRepository.save(order);
-
+                    if (order != null
+                            && orderStateMachine.tryTransition(orderId, order.getStatus(), OrderStatus.NO_RIDER_AVAILABLE)) {
                         // Notify User via Socket
                         String room = "user_" + order.getUser().getId();
-                        if (socketIOServer.getRoomOperations(room) != null) {
-                            socketIOServer.getRoomOperations(room).sendEvent("order_escalated", Map.of(
-                                    "orderId", orderId,
-                                    "status", "NO_RIDER_AVAILABLE",
-                                    "message", "We are widening the search for a delivery partner."));
-                            log.info("Sent order_escalated event to {}", room);
-                        }
+                        socketMessagingService.sendToRoom(room, "order_escalated", Map.of(
+                                "orderId", orderId,
+                                "status", "NO_RIDER_AVAILABLE",
+                                "message", "We are widening the search for a delivery partner."));
+                        log.info("Sent order_escalated event to {}", room);
                     }
                     return null;
                 });
@@ -176,7 +176,7 @@ public class DispatchService {
 
         return candidates.stream()
                 .map(rider -> {
-                    double distKm = calculateDistance(restLat, restLng, rider.getCurrentLatitude(),
+                    double distKm = Geo.distanceKm(restLat, restLng, rider.getCurrentLatitude(),
                             rider.getCurrentLongitude());
                     double durationMin = (distKm / 30.0) * 60;
                     double score = scoringService.scoreRider(rider, distKm, durationMin,
@@ -230,7 +230,7 @@ public class DispatchService {
                     return false;
                 }
 
-                double payout = pricingService.calculatePayout(best.getDistanceKm(), best.getDurationMin(),
+                long payout = pricingService.calculatePayout(best.getDistanceKm(), best.getDurationMin(),
                         surgeMultiplier);
 
                 DeliveryAssignment assignment = DeliveryAssignment.builder()
@@ -242,25 +242,22 @@ public class DispatchService {
                         .build();
                 assignment = deliveryAssignmentRepository.save(assignment); // Ensure ID is generated!
 
-                // CRITICAL: Update Order Status so we don't dispatch again immediately
-                freshOrder.setStatus(OrderStatus.OFFER_SENT);
-                orderRepository.save(freshOrder);
+                // Reflect the outstanding offer. Skipped if the kitchen already moved the order on
+                // (e.g. READY_FOR_PICKUP); the assignment itself guards against double dispatch.
+                orderStateMachine.tryTransition(orderId, freshOrder.getStatus(), OrderStatus.OFFER_SENT);
 
                 Map<String, Object> payload = Map.of(
                         "assignmentId", assignment.getId().toString(),
                         "orderId", freshOrder.getId(),
                         "restaurantName", freshOrder.getRestaurant().getName(),
-                        "earnings", payout,
+                        "earnings", Money.toRupees(payout),
                         "pickupLat", freshOrder.getRestaurant().getAddress().getLatitude(),
                         "pickupLng", freshOrder.getRestaurant().getAddress().getLongitude(),
                         "distanceKm", best.getDistanceKm(),
                         "eta", (int) best.getDurationMin(),
                         "surge", surgeMultiplier > 1.0);
 
-                if (socketIOServer.getRoomOperations("rider_" + rider.getUserId()) != null) {
-                    socketIOServer.getRoomOperations("rider_" + rider.getUserId())
-                            .sendEvent("assignment_request", payload);
-                }
+                socketMessagingService.sendToRoom("rider_" + rider.getUserId(), "assignment_request", payload);
                 return true;
             });
         } finally {
@@ -300,12 +297,8 @@ public class DispatchService {
                     redisService.increment("reject_count:" + orderId + ":" + rider.getId());
                     redisService.tryLock("reject_cooldown:" + orderId + ":" + rider.getId(), "1", 30); // 30s cooldown
 
-                    // Revert Order Status so it can be picked up again
-                    Order o = orderRepository.findById(orderId).orElse(null);
-                    if (o != null) {
-                        o.setStatus(OrderStatus.SEARCHING_RIDER); // Revert status
-                        orderRepository.save(o);
-                    }
+                    // Revert Order Status so it can be picked up again (only if still waiting on the offer)
+                    orderStateMachine.tryTransition(orderId, OrderStatus.OFFER_SENT, OrderStatus.SEARCHING_RIDER);
 
                     // Release Rider Lock
                     redisService.unlock(riderLockKey, finalLockToken);
@@ -318,22 +311,11 @@ public class DispatchService {
         }, 15, TimeUnit.SECONDS);
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        double theta = lon1 - lon2;
-        double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2)) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
-        dist = Math.acos(dist);
-        dist = Math.toDegrees(dist);
-        dist = dist * 60 * 1.1515;
-        dist = dist * 1.609344;
-        return dist;
-    }
-
+    // Each update is the whole order, so a newer one replaces any still queued for it
     public void sendOrderUpdate(String riderUserId, Map<String, Object> orderData) {
-        if (socketIOServer.getRoomOperations("rider_" + riderUserId) != null) {
-            socketIOServer.getRoomOperations("rider_" + riderUserId).sendEvent("order_update", orderData);
-            log.info("Sent order update to rider_{}", riderUserId);
-        }
+        socketMessagingService.sendLatestToRoom("rider_" + riderUserId, "order_update",
+                String.valueOf(orderData.get("orderId")), orderData);
+        log.info("Sent order update to rider_{}", riderUserId);
     }
 
     public void releaseRiderLock(String riderId) {
@@ -362,10 +344,29 @@ public class DispatchService {
             throw new IllegalStateException("Assignment expired or already processed");
         }
 
-        Order order = orderRepository.findByIdForUpdate(assignment.getOrder().getId())
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+        // Conditional update instead of a row lock: only succeeds while the order has no rider,
+        // and locks in the earning together with the partner. It compares against the one status
+        // seen, so the event below records the transition that happened; if the restaurant moved
+        // the order in between, it is retried from the new status while that is still a source.
+        String orderId = assignment.getOrder().getId();
+        DeliveryPartner partner = assignment.getDeliveryPartner();
+        Set<OrderStatus> sources = orderStateMachine.sourcesOf(OrderStatus.ASSIGNED_TO_RIDER);
+        OrderStatus previous = assignment.getOrder().getStatus();
+        int updated = 0;
+        for (int attempt = 0; attempt < 3 && sources.contains(previous); attempt++) {
+            updated = orderRepository.assignRider(orderId, partner, assignment.getExpectedEarning(), previous,
+                    OrderStatus.ASSIGNED_TO_RIDER, LocalDateTime.now());
+            if (updated > 0) {
+                break;
+            }
+            OrderStatus current = orderRepository.findStatusById(orderId).orElse(null);
+            if (current == previous) {
+                break; // Status unchanged, so another rider has it
+            }
+            previous = current;
+        }
 
-        if (order.getDeliveryPartner() != null) {
+        if (updated == 0) {
             assignment.setStatus("EXPIRED");
             deliveryAssignmentRepository.save(assignment);
             return false;
@@ -375,14 +376,8 @@ public class DispatchService {
         assignment.setRespondedAt(LocalDateTime.now());
         deliveryAssignmentRepository.save(assignment);
 
-        order.setDeliveryPartner(assignment.getDeliveryPartner());
-        order.setStatus(OrderStatus.ASSIGNED_TO_RIDER);
-        // Lock in the earning
-        if (assignment.getExpectedEarning() != null) {
-            order.setRiderEarning(assignment.getExpectedEarning());
-        }
-        orderRepository.save(order);
-
+        orderStateMachine.record(orderId, previous, OrderStatus.ASSIGNED_TO_RIDER);
+        riderOrderIndex.add(partner.getId(), orderId);
         return true;
     }
 
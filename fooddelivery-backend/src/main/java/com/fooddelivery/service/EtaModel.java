@@ -0,0 +1,221 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.OrderStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Delivery-time model shared by the live EtaPredictor and the offline EtaReplay.
+ * It learns from the order transitions it observes and keeps only streaming
+ * aggregates (exponentially weighted averages), never a history:
+ * <ul>
+ * <li>prep minutes per restaurant (accepted to ready for pickup);</li>
+ * <li>minutes from placement to acceptance;</li>
+ * <li>rider pickup leg (assigned to picked up, when the food was already waiting);</li>
+ * <li>drop minutes per km (picked up to delivered, less the handover).</li>
+ * </ul>
+ * A prediction is the later of kitchen-done and rider-at-restaurant, plus the
+ * drop leg; orders ahead in the kitchen add a queue wait. Each order's first
+ * prediction per status is scored against its delivery through the error sink.
+ */
+final class EtaModel {
+
+    interface ErrorSink {
+        void record(OrderStatus stage, double errorMinutes);
+    }
+
+    /** Per-order facts known at placement; dropKm is -1 without coordinates. */
+    record Trip(String restaurantId, double dropKm) {
+    }
+
+    private static final class Timeline {
+        private final Trip trip;
+        private long lastEventId = -1;
+        private long placedAt = -1;
+        private long acceptedAt = -1;
+        private long readyAt = -1;
+        private long assignedAt = -1;
+        private long pickedUpAt = -1;
+        private long touchedAt;
+        private final Map<OrderStatus, Long> predictions = new EnumMap<>(OrderStatus.class);
+
+        private Timeline(Trip trip) {
+            this.trip = trip;
+        }
+    }
+
+    private final double defaultPrepMinutes;
+    private final int parallelOrders;
+    private final double handoverMinutes;
+    private final double alpha;
+    private final ErrorSink errorSink;
+
+    private final Map<String, Double> prepMinutes = new ConcurrentHashMap<>();
+    private final Map<String, Timeline> timelines = new ConcurrentHashMap<>();
+    // Racing updates may lose a sample; an average over thousands of orders does not notice
+    private volatile double acceptMinutes = 2;
+    private volatile double pickupLegMinutes = 10;
+    private volatile double dropMinutesPerKm;
+    private volatile double typicalDropKm = 4; // For orders without coordinates
+
+    EtaModel(double defaultPrepMinutes, int parallelOrders, double riderSpeedKmph, double handoverMinutes,
+            double alpha, ErrorSink errorSink) {
+        this.defaultPrepMinutes = defaultPrepMinutes;
+        this.parallelOrders = Math.max(1, parallelOrders);
+        this.handoverMinutes = handoverMinutes;
+        this.alpha = alpha;
+        this.errorSink = errorSink;
+        this.dropMinutesPerKm = 60 / riderSpeedKmph;
+    }
+
+    /** Minutes from now for an order not yet placed, as quoted at checkout. */
+    int quoteMinutes(String restaurantId, double dropKm, int ordersAhead) {
+        double prep = prepMinutes.getOrDefault(restaurantId, defaultPrepMinutes);
+        double kitchen = acceptMinutes + queueWait(ordersAhead, prep) + prep;
+        return (int) Math.ceil(Math.max(kitchen, pickupLegMinutes) + dropMinutes(dropKm));
+    }
+
+    /**
+     * Applies one transition and predicts the delivery time.
+     *
+     * @param ordersAhead unfinished orders in the kitchen other than this one
+     * @param riderKm     rider's distance to the restaurant, when assigned and not yet there
+     * @return predicted delivery (epoch millis), or null for an old event or a finished order
+     */
+    Long observe(String orderId, Supplier<Trip> trip, long eventId, OrderStatus to, long atMillis,
+            int ordersAhead, Double riderKm) {
+        Timeline timeline = timelines.computeIfAbsent(orderId, id -> new Timeline(trip.get()));
+        synchronized (timeline) {
+            if (eventId <= timeline.lastEventId) {
+                return null; // Redelivered
+            }
+            timeline.lastEventId = eventId;
+            timeline.touchedAt = atMillis;
+            learn(timeline, to, atMillis);
+
+            if (to == OrderStatus.DELIVERED || to == OrderStatus.CANCELLED || to == OrderStatus.REJECTED) {
+                timelines.remove(orderId);
+                if (to == OrderStatus.DELIVERED) {
+                    timeline.predictions.forEach((stage, predicted) ->
+                            errorSink.record(stage, (predicted - atMillis) / 60_000.0));
+                }
+                return null;
+            }
+            long eta = atMillis + Math.round(minutesLeft(timeline, atMillis, ordersAhead, riderKm) * 60_000);
+            timeline.predictions.putIfAbsent(to, eta);
+            return eta;
+        }
+    }
+
+    /**
+     * Takes over the averages another model learned, e.g. from a replay at startup.
+     * Restaurants this model has already learned keep their own prep time.
+     */
+    void absorb(EtaModel trained) {
+        trained.prepMinutes.forEach(prepMinutes::putIfAbsent);
+        acceptMinutes = trained.acceptMinutes;
+        pickupLegMinutes = trained.pickupLegMinutes;
+        dropMinutesPerKm = trained.dropMinutesPerKm;
+        typicalDropKm = trained.typicalDropKm;
+    }
+
+    /** Drops orders not seen since the cutoff, e.g. ones whose later events went elsewhere. */
+    void forgetBefore(long cutoffMillis) {
+        timelines.values().removeIf(timeline -> timeline.touchedAt < cutoffMillis);
+    }
+
+    int tracked() {
+        return timelines.size();
+    }
+
+    private void learn(Timeline t, OrderStatus to, long at) {
+        switch (to) {
+            case PLACED -> {
+                t.placedAt = first(t.placedAt, at);
+                if (t.trip.dropKm() >= 0) {
+                    typicalDropKm = smooth(typicalDropKm, t.trip.dropKm());
+                }
+            }
+            case ACCEPTED -> {
+                t.acceptedAt = first(t.acceptedAt, at);
+                if (t.placedAt > 0) {
+                    acceptMinutes = smooth(acceptMinutes, minutes(t.placedAt, at));
+                }
+            }
+            case READY_FOR_PICKUP -> {
+                t.readyAt = first(t.readyAt, at);
+                if (t.acceptedAt > 0) {
+                    double prep = minutes(t.acceptedAt, at);
+                    prepMinutes.merge(t.trip.restaurantId(), prep, (old, sample) -> smooth(old, sample));
+                }
+            }
+            case ASSIGNED_TO_RIDER, RIDER_ACCEPTED -> t.assignedAt = first(t.assignedAt, at);
+            case PICKED_UP -> {
+                t.pickedUpAt = first(t.pickedUpAt, at);
+                // Only a rider who found the food waiting measures the trip rather than the kitchen
+                if (t.assignedAt > 0 && t.readyAt > 0 && t.readyAt <= t.assignedAt) {
+                    pickupLegMinutes = smooth(pickupLegMinutes, minutes(t.assignedAt, at));
+                }
+            }
+            case DELIVERED -> {
+                if (t.pickedUpAt > 0 && t.trip.dropKm() >= 0.3) {
+                    double perKm = (minutes(t.pickedUpAt, at) - handoverMinutes) / t.trip.dropKm();
+                    dropMinutesPerKm = smooth(dropMinutesPerKm, Math.max(0.5, perKm));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private double minutesLeft(Timeline t, long now, int ordersAhead, Double riderKm) {
+        double drop = dropMinutes(t.trip.dropKm());
+        if (t.pickedUpAt > 0) {
+            return Math.max(1, drop - minutes(t.pickedUpAt, now));
+        }
+
+        double prep = prepMinutes.getOrDefault(t.trip.restaurantId(), defaultPrepMinutes);
+        double kitchen;
+        if (t.readyAt > 0) {
+            kitchen = 0;
+        } else if (t.acceptedAt > 0) {
+            kitchen = Math.max(1, prep - minutes(t.acceptedAt, now));
+        } else {
+            kitchen = acceptMinutes + queueWait(ordersAhead, prep) + prep;
+        }
+
+        double rider;
+        if (riderKm != null) {
+            rider = riderKm * dropMinutesPerKm + handoverMinutes;
+        } else if (t.assignedAt > 0) {
+            rider = Math.max(1, pickupLegMinutes - minutes(t.assignedAt, now));
+        } else {
+            rider = pickupLegMinutes;
+        }
+        return Math.max(kitchen, rider) + drop;
+    }
+
+    private double dropMinutes(double dropKm) {
+        return handoverMinutes + (dropKm >= 0 ? dropKm : typicalDropKm) * dropMinutesPerKm;
+    }
+
+    // Orders beyond what the kitchen cooks at once each add a share of a prep
+    private double queueWait(int ordersAhead, double prep) {
+        return Math.max(0, ordersAhead - parallelOrders + 1) * prep / parallelOrders;
+    }
+
+    private double smooth(double current, double sample) {
+        return current + alpha * (sample - current);
+    }
+
+    private static long first(long current, long at) {
+        return current > 0 ? current : at;
+    }
+
+    private static double minutes(long fromMillis, long toMillis) {
+        return Math.max(0, toMillis - fromMillis) / 60_000.0;
+    }
+}
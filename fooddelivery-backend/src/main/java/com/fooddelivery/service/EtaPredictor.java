@@ -0,0 +1,183 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.entity.DeliveryPartner;
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderEvent;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.RestaurantAddress;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.util.Geo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live delivery-time predictions. The outbox relay reports every transition; the
+ * EtaModel learns from it and re-predicts, and the new estimate is written to
+ * Order.estimatedDeliveryTime and pushed to the customer as "order_eta".
+ * PricingService quotes checkout ETAs from the same model.
+ *
+ * Features come from streaming aggregates only: the model's own averages, kitchen
+ * queue length from KitchenLoad and, once a rider is assigned, their last known
+ * position. Each node learns from the orders it relays, which is a fair sample of
+ * all of them. Errors against the actual delivery are recorded in eta.error by the
+ * status the prediction was made at; EtaReplay scores the same model offline and
+ * warm-starts it at startup from recent deliveries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EtaPredictor {
+
+    private static final Set<OrderStatus> RIDER_INBOUND = EnumSet.of(OrderStatus.ASSIGNED_TO_RIDER,
+            OrderStatus.RIDER_ACCEPTED);
+
+    private final OrderRepository orderRepository;
+    private final KitchenLoad kitchenLoad;
+    private final SocketMessagingService socketMessagingService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${kitchen-load.default-prep-minutes:15}")
+    private double defaultPrepMinutes;
+
+    @Value("${kitchen-load.parallel-orders:4}")
+    private int parallelOrders;
+
+    @Value("${eta.rider-speed-kmph:20}")
+    private double riderSpeedKmph;
+
+    @Value("${eta.handover-minutes:3}")
+    private double handoverMinutes;
+
+    @Value("${eta.smoothing:0.05}")
+    private double smoothing;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+    private EtaModel model;
+
+    @PostConstruct
+    public void init() {
+        model = newModel((stage, errorMinutes) -> DistributionSummary.builder("eta.error")
+                .description("Predicted minus actual delivery time, in minutes")
+                .baseUnit("minutes")
+                .tag("stage", stage.name())
+                .publishPercentiles(0.1, 0.5, 0.9)
+                .register(meterRegistry)
+                .record(errorMinutes));
+        Gauge.builder("eta.orders.tracked", this, p -> p.model.tracked()).register(meterRegistry);
+        // Orders whose later events were relayed by another node
+        sweeper.scheduleWithFixedDelay(() -> model.forgetBefore(System.currentTimeMillis()
+                - TimeUnit.HOURS.toMillis(6)), 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /** Same model with the live settings, for EtaReplay. */
+    EtaModel newModel(EtaModel.ErrorSink errorSink) {
+        return new EtaModel(defaultPrepMinutes, parallelOrders, riderSpeedKmph, handoverMinutes, smoothing,
+                errorSink);
+    }
+
+    /** Starts the live model from averages EtaReplay learned from recent deliveries. */
+    void warmStart(EtaModel trained) {
+        model.absorb(trained);
+    }
+
+    /** Checkout quote: minutes from now if the order were placed at this restaurant. */
+    public int quoteMinutes(String restaurantId, double dropKm) {
+        return model.quoteMinutes(restaurantId, dropKm, kitchenLoad.openOrders(restaurantId));
+    }
+
+    /** Called by the relay for every recorded transition, after KitchenLoad has seen it. */
+    public void publish(Order order, OrderEvent event) {
+        OrderStatus to = event.getToStatus();
+        // KitchenLoad already counts this order once it is placed
+        int ahead = Math.max(0, kitchenLoad.openOrders(order.getRestaurant().getId())
+                - (to == OrderStatus.PLACED ? 1 : 0));
+        Long eta = model.observe(order.getId(), () -> trip(order), event.getId(), to,
+                toMillis(event.getCreatedAt()), ahead, RIDER_INBOUND.contains(to) ? riderKm(order) : null);
+        if (eta == null) {
+            return;
+        }
+
+        LocalDateTime estimated = LocalDateTime.ofInstant(Instant.ofEpochMilli(eta), ZoneId.systemDefault());
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> orderRepository.updateEstimatedDeliveryTime(order.getId(), estimated));
+        } catch (Exception e) {
+            log.warn("ETA: Could not store estimate for {}: {}", order.getId(), e.getMessage());
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("status", to.name());
+        payload.put("estimatedDeliveryTime", estimated.toString());
+        payload.put("etaMinutes", Math.max(0, (eta - System.currentTimeMillis()) / 60_000));
+        // Only the newest estimate matters, so it replaces one still queued for the client
+        socketMessagingService.sendLatestToRoom("user_" + order.getUser().getId(), "order_eta", order.getId(),
+                payload);
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Restaurant to the delivery address snapshot; -1 if either has no coordinates
+    EtaModel.Trip trip(Order order) {
+        return new EtaModel.Trip(order.getRestaurant().getId(), dropKm(order));
+    }
+
+    private double dropKm(Order order) {
+        RestaurantAddress from = order.getRestaurant().getAddress();
+        if (from == null || from.getLatitude() == null || from.getLongitude() == null
+                || order.getDeliveryAddressJson() == null) {
+            return -1;
+        }
+        try {
+            JsonNode to = objectMapper.readTree(order.getDeliveryAddressJson());
+            if (!to.hasNonNull("latitude") || !to.hasNonNull("longitude")) {
+                return -1;
+            }
+            return Geo.distanceKm(from.getLatitude(), from.getLongitude(), to.get("latitude").asDouble(),
+                    to.get("longitude").asDouble());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private Double riderKm(Order order) {
+        DeliveryPartner rider = order.getDeliveryPartner();
+        RestaurantAddress restaurant = order.getRestaurant().getAddress();
+        if (rider == null || rider.getCurrentLatitude() == null || rider.getCurrentLongitude() == null
+                || restaurant == null || restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+            return null;
+        }
+        return Geo.distanceKm(rider.getCurrentLatitude(), rider.getCurrentLongitude(), restaurant.getLatitude(),
+                restaurant.getLongitude());
+    }
+}
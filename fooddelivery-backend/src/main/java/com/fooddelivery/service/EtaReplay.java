@@ -0,0 +1,173 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.response.EtaReplayResponse;
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderEvent;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.repository.OrderEventRepository;
+import com.fooddelivery.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline benchmark of the ETA model: replays the recorded transitions of
+ * delivered orders in time order through a fresh EtaModel with the live settings,
+ * so every prediction only uses what was known at the time, and scores each one
+ * against the order's deliveredAt. The old fixed formula (35 min + 5 min/km from
+ * createdAt) is scored alongside as the baseline.
+ *
+ * At startup the same replay over the last eta.warm-start.hours trains the live
+ * model, so a restarted node does not quote from defaults until it has relayed
+ * enough orders.
+ *
+ * Rider positions are not kept historically, so replayed pickup legs always use
+ * the learned average; cancelled orders are not replayed, so kitchen queues are
+ * slightly shorter than they were live.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EtaReplay {
+
+    private static final int EVENT_CHUNK = 500;
+
+    private record Replayed(int orders, int events) {
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final EtaPredictor etaPredictor;
+
+    @Value("${eta.replay.max-orders:20000}")
+    private int maxOrders;
+
+    @Value("${eta.warm-start.hours:24}")
+    private long warmStartHours;
+
+    public EtaReplayResponse replay(LocalDateTime from, LocalDateTime to, int limit) {
+        long start = System.nanoTime();
+        Map<OrderStatus, List<Double>> errors = new EnumMap<>(OrderStatus.class);
+        List<Double> baseline = new ArrayList<>();
+        EtaModel model = etaPredictor.newModel(
+                (stage, errorMinutes) -> errors.computeIfAbsent(stage, s -> new ArrayList<>()).add(errorMinutes));
+        Replayed replayed = train(model, from, to, limit, baseline);
+
+        List<EtaReplayResponse.Score> stages = new ArrayList<>();
+        errors.forEach((stage, values) -> stages.add(score(stage.name(), values)));
+        log.info("ETA_REPLAY: {} orders, {} events replayed in {} ms", replayed.orders(), replayed.events(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return EtaReplayResponse.builder()
+                .orders(replayed.orders())
+                .events(replayed.events())
+                .stages(stages)
+                .baseline(score("BASELINE", baseline))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        if (warmStartHours <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            EtaModel model = etaPredictor.newModel((stage, errorMinutes) -> {
+            });
+            LocalDateTime now = LocalDateTime.now();
+            Replayed replayed = train(model, now.minusHours(warmStartHours), now, maxOrders, null);
+            etaPredictor.warmStart(model);
+            log.info("ETA_REPLAY: Warm-started from {} orders in {} ms", replayed.orders(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("ETA_REPLAY: Warm start failed, starting from defaults: {}", e.getMessage());
+        }
+    }
+
+    // Feeds the transitions of delivered orders created in [from, to) to the model, in time order
+    private Replayed train(EtaModel model, LocalDateTime from, LocalDateTime to, int limit, List<Double> baseline) {
+        List<Order> orders = orderRepository.findByStatusAndCreatedAtBetweenOrderByCreatedAtAsc(
+                OrderStatus.DELIVERED, from, to, PageRequest.of(0, Math.max(1, Math.min(limit, maxOrders))));
+        Map<String, Order> byId = new HashMap<>();
+        Map<String, EtaModel.Trip> trips = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getDeliveredAt() == null) {
+                continue;
+            }
+            byId.put(order.getId(), order);
+            EtaModel.Trip trip = etaPredictor.trip(order);
+            trips.put(order.getId(), trip);
+            if (baseline != null && trip.dropKm() >= 0) {
+                long predicted = EtaPredictor.toMillis(order.getCreatedAt())
+                        + TimeUnit.MINUTES.toMillis(35 + (int) (trip.dropKm() * 5));
+                baseline.add((predicted - EtaPredictor.toMillis(order.getDeliveredAt())) / 60_000.0);
+            }
+        }
+
+        List<OrderEvent> events = new ArrayList<>();
+        List<String> ids = new ArrayList<>(byId.keySet());
+        for (int i = 0; i < ids.size(); i += EVENT_CHUNK) {
+            events.addAll(orderEventRepository.findByOrderIdInOrderByIdAsc(
+                    ids.subList(i, Math.min(i + EVENT_CHUNK, ids.size()))));
+        }
+        events.sort(Comparator.comparing(OrderEvent::getCreatedAt).thenComparing(OrderEvent::getId));
+
+        // Orders placed and not yet ready, per restaurant, standing in for KitchenLoad
+        Map<String, Set<String>> inKitchen = new HashMap<>();
+        for (OrderEvent event : events) {
+            Order order = byId.get(event.getOrderId());
+            EtaModel.Trip trip = trips.get(event.getOrderId());
+            OrderStatus status = event.getToStatus();
+            Set<String> kitchen = inKitchen.computeIfAbsent(trip.restaurantId(), r -> new HashSet<>());
+            if (status == OrderStatus.PLACED) {
+                kitchen.add(order.getId());
+            } else if (status == OrderStatus.READY_FOR_PICKUP || status == OrderStatus.PICKED_UP
+                    || status == OrderStatus.DELIVERED) {
+                kitchen.remove(order.getId());
+            }
+            int ahead = kitchen.size() - (kitchen.contains(order.getId()) ? 1 : 0);
+            long at = status == OrderStatus.DELIVERED ? EtaPredictor.toMillis(order.getDeliveredAt())
+                    : EtaPredictor.toMillis(event.getCreatedAt());
+            model.observe(order.getId(), () -> trip, event.getId(), status, at, ahead, null);
+        }
+        return new Replayed(byId.size(), events.size());
+    }
+
+    private static EtaReplayResponse.Score score(String stage, List<Double> errors) {
+        if (errors.isEmpty()) {
+            return new EtaReplayResponse.Score(stage, 0, 0, 0, 0);
+        }
+        double[] abs = new double[errors.size()];
+        double absSum = 0;
+        double sum = 0;
+        for (int i = 0; i < abs.length; i++) {
+            double error = errors.get(i);
+            abs[i] = Math.abs(error);
+            absSum += abs[i];
+            sum += error;
+        }
+        Arrays.sort(abs);
+        return new EtaReplayResponse.Score(stage, abs.length, round(absSum / abs.length),
+                round(abs[Math.min(abs.length - 1, abs.length * 9 / 10)]), round(sum / abs.length));
+    }
+
+    private static double round(double minutes) {
+        return Math.round(minutes * 10) / 10.0;
+    }
+}
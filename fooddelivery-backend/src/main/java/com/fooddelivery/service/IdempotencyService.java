@@ -0,0 +1,106 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Duplicate suppression for client retries. The first request with a key runs
+ * and stores a small receipt (e.g. the order id) in Redis; retries with the same
+ * key replay from the receipt instead of re-running pricing, inserts or gateway
+ * calls. Keys are bound to a fingerprint of the request body, so reusing a key
+ * for a different request is rejected.
+ *
+ * Must be called outside the transaction of the action, so a receipt is only
+ * stored for committed work.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final String PENDING = "P";
+    private static final String DONE = "D";
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-flight-seconds:60}")
+    private long inFlightSeconds;
+
+    /**
+     * @param scope       operation and owner, e.g. "create-order:" + userId
+     * @param key         client supplied Idempotency-Key; null runs the action directly
+     * @param request     request body, fingerprinted to detect key reuse
+     * @param toReceipt   what to remember about the result
+     * @param fromReceipt rebuilds the result for a retry
+     */
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action,
+            Function<T, String> toReceipt, Function<String, T> fromReceipt) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 128) {
+            throw new RuntimeException("Idempotency-Key is too long");
+        }
+
+        String redisKey = "idempotency:" + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        if (!redisService.tryLock(redisKey, PENDING + ":" + fingerprint, inFlightSeconds)) {
+            return replay(redisKey, fingerprint, fromReceipt);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // Failed attempts are not remembered, the client may retry with the same key
+            redisService.unlock(redisKey);
+            throw e;
+        }
+
+        redisService.set(redisKey, DONE + ":" + fingerprint + ":" + toReceipt.apply(result),
+                Duration.ofHours(ttlHours));
+        return result;
+    }
+
+    private <T> T replay(String redisKey, String fingerprint, Function<String, T> fromReceipt) {
+        String stored = redisService.get(redisKey);
+        if (stored == null) {
+            // Expired or released between our attempt and this read
+            throw new RuntimeException("Request with this Idempotency-Key is being processed, please retry");
+        }
+
+        String[] parts = stored.split(":", 3);
+        if (!fingerprint.equals(parts[1])) {
+            throw new RuntimeException("Idempotency-Key was already used for a different request");
+        }
+        if (PENDING.equals(parts[0])) {
+            throw new RuntimeException("Request with this Idempotency-Key is being processed, please retry");
+        }
+
+        log.info("IDEMPOTENCY: Replaying {}", redisKey);
+        return fromReceipt.apply(parts[2]);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return DigestUtils.md5DigestAsHex(body);
+        } catch (Exception e) {
+            return DigestUtils.md5DigestAsHex(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.CartDocument;
+import com.fooddelivery.entity.Cart;
+import com.fooddelivery.entity.CartItem;
+import com.fooddelivery.entity.CartItemOption;
+import com.fooddelivery.repository.CartItemRepository;
+import com.fooddelivery.repository.CartRepository;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Carts in the carts / cart_items / cart_item_options tables. The default store,
+ * and the snapshot target of RedisCartStore's write-behind.
+ */
+@Component
+@RequiredArgsConstructor
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDocument load(String userId) {
+        Cart cart = loadGraph(userId);
+        return cart != null ? toDocument(cart) : null;
+    }
+
+    /**
+     * Applies the document as a diff: lines are matched by the document's line id,
+     * stored on the row, so unchanged lines are not rewritten and options are only
+     * replaced when the selection changed. Document ids survive the round trip.
+     */
+    @Override
+    @Transactional
+    public void save(CartDocument doc) {
+        Cart cart = loadGraph(doc.getUserId());
+        if (cart == null) {
+            cart = cartRepository.save(Cart.builder().user(userRepository.getReferenceById(doc.getUserId())).build());
+        }
+        doc.setCartId(doc.getCartId() != null ? doc.getCartId() : documentId(cart));
+        cart.setDocumentId(doc.getCartId());
+        cart.setRestaurant(doc.getRestaurantId() != null
+                ? restaurantRepository.getReferenceById(doc.getRestaurantId())
+                : null);
+        cart.setMenuVersion(doc.getMenuVersion());
+
+        Map<String, CartItem> existing = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            existing.put(lineId(item), item);
+        }
+
+        List<CartItem> items = new ArrayList<>(doc.getLines().size());
+        for (CartDocument.Line line : doc.getLines()) {
+            if (line.getId() == null) {
+                line.setId(UUID.randomUUID().toString());
+            }
+            CartItem item = existing.remove(line.getId());
+            if (item == null) {
+                item = CartItem.builder()
+                        .cart(cart)
+                        .menuItem(menuItemRepository.getReferenceById(line.getMenuItemId()))
+                        .build();
+            }
+            item.setLineId(line.getId());
+            item.setQuantity(line.getQuantity());
+            item.setItemPrice(line.getItemPrice());
+            item.setTotalPrice(line.getTotalPrice());
+            item.setAvailable(line.isAvailable());
+            if (!sameOptions(item, line)) {
+                new ArrayList<>(item.getOptions()).forEach(item::removeOption);
+                for (CartDocument.LineOption option : line.getOptions()) {
+                    item.addOption(CartItemOption.builder()
+                            .optionGroupId(option.getGroupId())
+                            .optionGroupName(option.getGroupName())
+                            .optionId(option.getOptionId())
+                            .optionName(option.getName())
+                            .price(option.getPrice())
+                            .build());
+                }
+            }
+            items.add(item);
+        }
+
+        cartItemRepository.deleteAll(existing.values());
+        cartItemRepository.saveAll(items);
+        cart.setItems(items);
+    }
+
+    /** Empties the cart with two bulk deletes instead of one delete per line and option. */
+    @Override
+    @Transactional
+    public void delete(String userId) {
+        cartRepository.findByUserId(userId).ifPresent(cart -> {
+            cartItemRepository.deleteOptionsByCartId(cart.getId());
+            cartItemRepository.deleteByCartId(cart.getId());
+            cart.setRestaurant(null);
+        });
+    }
+
+    // Cart, lines, menu items and selected options in two selects
+    private Cart loadGraph(String userId) {
+        Cart cart = cartRepository.findForCheckout(userId).orElse(null);
+        if (cart != null && !cart.getItems().isEmpty()) {
+            cartItemRepository.fetchOptionsByCartId(cart.getId());
+        }
+        return cart;
+    }
+
+    // Rows written before ids were stored keep their row ids until next saved
+    private static String lineId(CartItem item) {
+        return item.getLineId() != null ? item.getLineId() : item.getId();
+    }
+
+    private static String documentId(Cart cart) {
+        return cart.getDocumentId() != null ? cart.getDocumentId() : cart.getId();
+    }
+
+    private static boolean sameOptions(CartItem item, CartDocument.Line line) {
+        if (item.getOptions().size() != line.getOptions().size()) {
+            return false;
+        }
+        for (int i = 0; i < line.getOptions().size(); i++) {
+            if (!line.getOptions().get(i).getOptionId().equals(item.getOptions().get(i).getOptionId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CartDocument toDocument(Cart cart) {
+        List<CartDocument.Line> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            List<CartDocument.LineOption> options = new ArrayList<>(item.getOptions().size());
+            for (CartItemOption option : item.getOptions()) {
+                options.add(CartDocument.LineOption.builder()
+                        .groupId(option.getOptionGroupId())
+                        .groupName(option.getOptionGroupName())
+                        .optionId(option.getOptionId())
+                        .name(option.getOptionName())
+                        .price(option.getPrice() != null ? option.getPrice() : 0L)
+                        .build());
+            }
+            lines.add(CartDocument.Line.builder()
+                    .id(lineId(item))
+                    .menuItemId(item.getMenuItem().getId())
+                    .name(item.getMenuItem().getName())
+                    .imageUrl(item.getMenuItem().getImageUrl())
+                    .quantity(item.getQuantity() != null ? item.getQuantity() : 0)
+                    .itemPrice(item.getItemPrice() != null ? item.getItemPrice() : 0L)
+                    .totalPrice(item.getTotalPrice() != null ? item.getTotalPrice() : 0L)
+                    .available(!Boolean.FALSE.equals(item.getAvailable()))
+                    .options(options)
+                    .build());
+        }
+        return CartDocument.builder()
+                .cartId(documentId(cart))
+                .userId(cart.getUser().getId())
+                .restaurantId(cart.getRestaurant() != null ? cart.getRestaurant().getId() : null)
+                .menuVersion(cart.getMenuVersion())
+                .lines(lines)
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.response.KitchenOrderResponse;
+import com.fooddelivery.dto.response.KitchenSnapshotResponse;
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderItem;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Live feed for restaurant kitchen displays. A display joins the socket room
+ * kitchen_&lt;restaurantId&gt;, then loads {@link #snapshot} and applies the
+ * "kitchen_delta" events with a higher seq on top of it:
+ * <ul>
+ * <li>UPSERT carries the full order when it becomes open (placed or paid);</li>
+ * <li>STATUS carries only the new status of an order that is already open;</li>
+ * <li>REMOVE drops an order once it is picked up, cancelled or rejected.</li>
+ * </ul>
+ * Deltas are published by the outbox relay, so they follow commit order per order.
+ * The sequence is a per-restaurant Redis counter shared by all nodes. One Redis
+ * script numbers a delta and publishes it on kitchen-feed, so every node receives
+ * the deltas in seq order, whichever node relayed them, and forwards them to its own
+ * sockets. A gap in seq (a socket shed for falling behind, or a message lost while a
+ * node was disconnected) means the display must reload the snapshot. Applying a
+ * delta twice is harmless.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KitchenFeed {
+
+    // From the moment the kitchen sees an order until a rider takes it away
+    public static final Set<OrderStatus> OPEN = EnumSet.of(OrderStatus.PLACED, OrderStatus.ACCEPTED,
+            OrderStatus.COOKING, OrderStatus.READY_FOR_PICKUP, OrderStatus.SEARCHING_RIDER, OrderStatus.OFFER_SENT,
+            OrderStatus.ASSIGNED_TO_RIDER, OrderStatus.RIDER_ACCEPTED, OrderStatus.NO_RIDER_AVAILABLE);
+
+    private static final String CHANNEL = "kitchen-feed";
+    private static final String SEQ_PREFIX = "kitchen_seq:";
+    private static final String EVENT = "kitchen_delta";
+    private static final TypeReference<LinkedHashMap<String, Object>> DELTA = new TypeReference<>() {
+    };
+
+    private final OrderRepository orderRepository;
+    private final RedisService redisService;
+    private final SocketMessagingService socketMessagingService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+    }
+
+    public static String room(String restaurantId) {
+        return "kitchen_" + restaurantId;
+    }
+
+    /**
+     * Open orders, oldest first. The seq is read before the orders, so every change
+     * not reflected in them arrives later as a delta with a higher seq.
+     */
+    public KitchenSnapshotResponse snapshot(String restaurantId) {
+        long seq = redisService.getInt(SEQ_PREFIX + restaurantId);
+        List<KitchenOrderResponse> orders = new ArrayList<>();
+        for (Order order : orderRepository.findByRestaurantIdAndStatusInOrderByCreatedAtAsc(restaurantId, OPEN)) {
+            orders.add(toResponse(order));
+        }
+        return new KitchenSnapshotResponse(seq, orders);
+    }
+
+    /** Called by the relay for every recorded transition, creation included. */
+    public void publish(Order order, OrderStatus from, OrderStatus to) {
+        boolean wasOpen = from != null && OPEN.contains(from);
+        boolean isOpen = OPEN.contains(to);
+        if (!wasOpen && !isOpen) {
+            return; // Not yet paid, or long gone from the kitchen
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("orderId", order.getId());
+        delta.put("status", to.name());
+        if (!isOpen) {
+            delta.put("type", "REMOVE");
+        } else if (!wasOpen) {
+            Order withItems = orderRepository.findWithItemsById(order.getId()).orElse(null);
+            if (withItems == null) {
+                return;
+            }
+            delta.put("type", "UPSERT");
+            delta.put("order", toResponse(withItems));
+        } else {
+            delta.put("type", "STATUS");
+        }
+
+        String restaurantId = order.getRestaurant().getId();
+        try {
+            redisService.incrementAndPublish(SEQ_PREFIX + restaurantId, CHANNEL,
+                    restaurantId + "|" + objectMapper.writeValueAsString(delta));
+        } catch (Exception e) {
+            log.warn("KITCHEN_FEED: Could not publish delta for {}: {}", order.getId(), e.getMessage());
+            return;
+        }
+        meterRegistry.counter("kitchen.feed.deltas", "type", (String) delta.get("type")).increment();
+    }
+
+    // seq|restaurantId|delta JSON, from every node including this one
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3) {
+            return;
+        }
+        try {
+            Map<String, Object> delta = objectMapper.readValue(parts[2], DELTA);
+            delta.put("seq", Long.parseLong(parts[0]));
+            socketMessagingService.sendToRoom(room(parts[1]), EVENT, delta);
+        } catch (Exception e) {
+            log.warn("KITCHEN_FEED: Ignoring malformed delta: {}", e.getMessage());
+        }
+    }
+
+    private static KitchenOrderResponse toResponse(Order order) {
+        List<KitchenOrderResponse.Item> items = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            items.add(new KitchenOrderResponse.Item(item.getName(), item.getQuantity(), item.getOptionsJson()));
+        }
+        return KitchenOrderResponse.builder()
+                .orderId(order.getId())
+                .status(order.getStatus())
+                .customerName(order.getUser().getName())
+                .paymentMethod(order.getPaymentMethod())
+                .createdAt(order.getCreatedAt())
+                .items(items)
+                .build();
+    }
+}
@@ -0,0 +1,310 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderEvent;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * How busy each kitchen is, kept in memory from order transitions: orders placed
+ * but not yet accepted, orders accepted and not yet ready, and rolling prep-time
+ * percentiles (accepted to ready for pickup, over the last {@value #SAMPLES} orders).
+ *
+ * The outbox relay reports every transition; it is applied here and published on
+ * kitchen-load so every node keeps the same counts. Transitions carry the event id
+ * and only a newer event moves an order, so redelivery and reordering are
+ * harmless. Reads are plain atomic reads: checkout throttles on {@link #isSaturated},
+ * RestaurantDiscovery adds {@link #extraMinutes} to its ETAs and EtaPredictor
+ * reads the queue length.
+ *
+ * Orders are reconciled with the database at startup and every
+ * kitchen-load.reconcile-minutes, which also covers lost messages: open orders
+ * missing from memory are seeded, and tracked orders the database no longer has
+ * open are retired. An order stuck in a kitchen longer than
+ * kitchen-load.stale-minutes stops counting.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KitchenLoad {
+
+    private static final String CHANNEL = "kitchen-load";
+    private static final int SAMPLES = 64;
+    private static final int MIN_SAMPLES = 5;
+    // Dispatch statuses say nothing about the food, so the kitchen stage stays as it was
+    private static final Set<OrderStatus> SEEDED = EnumSet.of(OrderStatus.PLACED, OrderStatus.ACCEPTED,
+            OrderStatus.COOKING);
+
+    private enum Stage {
+        QUEUED, COOKING, DONE
+    }
+
+    // Per-order kitchen stage; DONE entries stay a while so late, older events are ignored
+    private record Track(String restaurantId, Stage stage, long eventId, long acceptedAtMillis, long touchedNanos) {
+    }
+
+    private static final class Load {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger cooking = new AtomicInteger();
+        private final AtomicLongArray prepMillis = new AtomicLongArray(SAMPLES);
+        private final AtomicInteger recorded = new AtomicInteger();
+        private volatile long p50Millis = -1;
+        private volatile long p90Millis = -1;
+
+        int open() {
+            return queued.get() + cooking.get();
+        }
+
+        AtomicInteger counter(Stage stage) {
+            return stage == Stage.QUEUED ? queued : stage == Stage.COOKING ? cooking : null;
+        }
+
+        // Racing writers may publish percentiles from slightly different windows; either is fine
+        void record(long millis) {
+            int n = recorded.getAndIncrement();
+            prepMillis.set(n % SAMPLES, millis);
+            int count = Math.min(n + 1, SAMPLES);
+            if (count < MIN_SAMPLES) {
+                return;
+            }
+            long[] window = new long[count];
+            for (int i = 0; i < count; i++) {
+                window[i] = prepMillis.get(i);
+            }
+            Arrays.sort(window);
+            p50Millis = window[count / 2];
+            p90Millis = window[Math.min(count - 1, count * 9 / 10)];
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kitchen-load.max-open-orders:20}")
+    private int maxOpenOrders;
+
+    @Value("${kitchen-load.parallel-orders:4}")
+    private int parallelOrders;
+
+    @Value("${kitchen-load.default-prep-minutes:15}")
+    private int defaultPrepMinutes;
+
+    @Value("${kitchen-load.reconcile-minutes:5}")
+    private long reconcileMinutes;
+
+    @Value("${kitchen-load.stale-minutes:180}")
+    private long staleMinutes;
+
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor();
+
+    private Counter throttled;
+
+    @PostConstruct
+    public void init() {
+        throttled = Counter.builder("kitchen.load.throttled")
+                .description("Checkouts refused because the kitchen was saturated")
+                .register(meterRegistry);
+        Gauge.builder("kitchen.load.open", loads, l -> l.values().stream().mapToInt(Load::open).sum())
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+        reconciler.scheduleWithFixedDelay(this::reconcile, 0, reconcileMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+
+    /** Whether the kitchen already holds kitchen-load.max-open-orders unfinished orders. */
+    public boolean isSaturated(String restaurantId) {
+        Load load = loads.get(restaurantId);
+        return load != null && load.open() >= maxOpenOrders;
+    }
+
+    /** Orders placed or cooking and not yet ready. */
+    public int openOrders(String restaurantId) {
+        Load load = loads.get(restaurantId);
+        return load != null ? load.open() : 0;
+    }
+
+    /** Throws if a new order should not be sent to this kitchen right now. */
+    public void checkCapacity(String restaurantId) {
+        if (isSaturated(restaurantId)) {
+            throttled.increment();
+            throw new RuntimeException("Restaurant is too busy right now, please try again in a few minutes");
+        }
+    }
+
+    /**
+     * Minutes a new order would wait on top of the default prep time: slower recent
+     * prep (median) plus the orders ahead of it beyond what the kitchen cooks at once.
+     */
+    public int extraMinutes(String restaurantId) {
+        Load load = loads.get(restaurantId);
+        if (load == null) {
+            return 0;
+        }
+        double prep = load.p50Millis > 0 ? load.p50Millis / 60_000.0 : defaultPrepMinutes;
+        int ahead = Math.max(0, load.open() - parallelOrders + 1);
+        return (int) Math.ceil(Math.max(0, prep - defaultPrepMinutes) + ahead * prep / parallelOrders);
+    }
+
+    /** Recent 90th-percentile prep time in minutes, or -1 before enough orders were ready. */
+    public int prepP90Minutes(String restaurantId) {
+        Load load = loads.get(restaurantId);
+        return load == null || load.p90Millis < 0 ? -1 : (int) Math.ceil(load.p90Millis / 60_000.0);
+    }
+
+    /** Called by the relay for every recorded transition, creation included. */
+    public void publish(Order order, OrderEvent event) {
+        String restaurantId = order.getRestaurant().getId();
+        long at = event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        apply(restaurantId, order.getId(), event.getId(), event.getToStatus(), at);
+        try {
+            redisService.publish(CHANNEL, String.join("|", restaurantId, order.getId(),
+                    String.valueOf(event.getId()), event.getToStatus().name(), String.valueOf(at)));
+        } catch (Exception e) {
+            log.warn("KITCHEN_LOAD: Could not publish transition of {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    // restaurantId|orderId|eventId|status|epochMillis; our own messages come back and are no-ops
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length != 5) {
+            return;
+        }
+        try {
+            apply(parts[0], parts[1], Long.parseLong(parts[2]), OrderStatus.valueOf(parts[3]),
+                    Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            log.warn("KITCHEN_LOAD: Ignoring malformed message {}", message);
+        }
+    }
+
+    private void apply(String restaurantId, String orderId, long eventId, OrderStatus to, long atMillis) {
+        Stage next = stageOf(to);
+        if (next == null) {
+            return;
+        }
+        tracks.compute(orderId, (id, prev) -> {
+            if (prev != null && prev.eventId() >= eventId) {
+                return prev;
+            }
+            Stage was = prev != null ? prev.stage() : null;
+            long acceptedAt = prev != null ? prev.acceptedAtMillis() : -1;
+            if (was != next) {
+                move(restaurantId, was, next);
+                if (next == Stage.COOKING) {
+                    acceptedAt = atMillis;
+                } else if (next == Stage.DONE && was == Stage.COOKING && acceptedAt > 0
+                        && (to == OrderStatus.READY_FOR_PICKUP || to == OrderStatus.PICKED_UP)) {
+                    load(restaurantId).record(Math.max(0, atMillis - acceptedAt));
+                }
+            }
+            return new Track(restaurantId, next, eventId, acceptedAt, System.nanoTime());
+        });
+    }
+
+    void reconcile() {
+        try {
+            long staleBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(staleMinutes);
+            long doneBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(Math.max(reconcileMinutes, 1) * 2);
+            long queriedAt = System.nanoTime();
+            Set<String> open = new HashSet<>();
+            int seeded = 0;
+            int retired = 0;
+            for (Object[] row : orderRepository.findKitchenLoadRows(SEEDED)) {
+                String orderId = (String) row[0];
+                open.add(orderId);
+                String restaurantId = (String) row[1];
+                Stage stage = stageOf((OrderStatus) row[2]);
+                // Event id 0 loses to every real transition; no accept time, so no prep sample
+                if (tracks.putIfAbsent(orderId, new Track(restaurantId, stage, 0, -1, System.nanoTime())) == null) {
+                    move(restaurantId, null, stage);
+                    seeded++;
+                }
+            }
+            for (Map.Entry<String, Track> entry : tracks.entrySet()) {
+                Track track = entry.getValue();
+                // Left the kitchen in a transition we never heard of; a track touched after the
+                // query may be an order placed since, so it waits for the next run
+                if (track.stage() != Stage.DONE && !open.contains(entry.getKey())
+                        && track.touchedNanos() - queriedAt < 0
+                        && tracks.replace(entry.getKey(), track, new Track(track.restaurantId(), Stage.DONE,
+                                track.eventId(), track.acceptedAtMillis(), System.nanoTime()))) {
+                    move(track.restaurantId(), track.stage(), Stage.DONE);
+                    retired++;
+                    continue;
+                }
+                boolean expired = track.stage() == Stage.DONE ? track.touchedNanos() - doneBefore < 0
+                        : track.touchedNanos() - staleBefore < 0;
+                if (expired && tracks.remove(entry.getKey(), track)) {
+                    move(track.restaurantId(), track.stage(), Stage.DONE);
+                }
+            }
+            if (seeded > 0 || retired > 0) {
+                log.info("KITCHEN_LOAD: Seeded {} orders missing from memory, retired {} no longer open",
+                        seeded, retired);
+            }
+        } catch (Exception e) {
+            log.error("KITCHEN_LOAD: Reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private void move(String restaurantId, Stage from, Stage to) {
+        Load load = load(restaurantId);
+        AtomicInteger out = from != null ? load.counter(from) : null;
+        AtomicInteger in = load.counter(to);
+        if (out != null) {
+            out.decrementAndGet();
+        }
+        if (in != null) {
+            in.incrementAndGet();
+        }
+    }
+
+    private Load load(String restaurantId) {
+        return loads.computeIfAbsent(restaurantId, id -> new Load());
+    }
+
+    private static Stage stageOf(OrderStatus status) {
+        return switch (status) {
+            case PLACED -> Stage.QUEUED;
+            case ACCEPTED, COOKING -> Stage.COOKING;
+            case READY_FOR_PICKUP, PICKED_UP, DELIVERED, CANCELLED, REJECTED -> Stage.DONE;
+            default -> null;
+        };
+    }
+}
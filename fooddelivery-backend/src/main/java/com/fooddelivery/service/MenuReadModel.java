@@ -0,0 +1,131 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.response.ApiResponse;
+import com.fooddelivery.dto.response.MenuItemResponse;
+import com.fooddelivery.entity.MenuItem;
+import com.fooddelivery.repository.MenuItemOptionRepository;
+import com.fooddelivery.repository.MenuItemRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The public menu of each restaurant as the exact response bytes, built with two
+ * set-based selects and one serialization, plus an ETag over the menu content.
+ * Reads are served from memory, and a client holding the current ETag gets a 304
+ * without the database or Jackson being involved.
+ *
+ * MenuService invalidates a restaurant on every menu write and the next read
+ * rebuilds it. Invalidation is local to this node; snapshots also expire after
+ * menu.read-model.max-age-seconds so other nodes converge.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuReadModel {
+
+    /** Serialized response and its ETag (quoted, ready for the header). */
+    public record Snapshot(byte[] body, String etag, long builtAtNanos) {
+
+        public boolean matches(String ifNoneMatch) {
+            return ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag));
+        }
+    }
+
+    private final MenuItemRepository menuItemRepository;
+    private final MenuItemOptionRepository menuItemOptionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${menu.read-model.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a rebuild that raced with one is not installed
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void initMetrics() {
+        hits = Counter.builder("menu.read-model").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("menu.read-model").tag("result", "miss").register(meterRegistry);
+    }
+
+    public Snapshot get(String restaurantId) {
+        Snapshot snapshot = snapshots.get(restaurantId);
+        if (snapshot != null
+                && System.nanoTime() - snapshot.builtAtNanos() < TimeUnit.SECONDS.toNanos(maxAgeSeconds)) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+
+        AtomicLong generation = generations.computeIfAbsent(restaurantId, id -> new AtomicLong());
+        long seen = generation.get();
+        Snapshot built = build(restaurantId);
+        snapshots.compute(restaurantId, (id, current) -> generation.get() == seen ? built : current);
+        return built;
+    }
+
+    /** Drops the snapshot now and again once the surrounding transaction commits. */
+    public void invalidate(String restaurantId) {
+        evict(restaurantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(restaurantId);
+                }
+            });
+        }
+    }
+
+    private void evict(String restaurantId) {
+        generations.computeIfAbsent(restaurantId, id -> new AtomicLong()).incrementAndGet();
+        snapshots.remove(restaurantId);
+    }
+
+    private Snapshot build(String restaurantId) {
+        List<MenuItemResponse> items = transactionTemplate.execute(status -> {
+            List<MenuItem> menu = menuItemRepository.findMenuByRestaurantId(restaurantId);
+            if (!menu.isEmpty()) {
+                menuItemOptionRepository.fetchGroupOptionsByRestaurantId(restaurantId);
+            }
+            List<MenuItemResponse> responses = new ArrayList<>(menu.size());
+            for (MenuItem item : menu) {
+                responses.add(MenuService.mapToResponse(item));
+            }
+            return responses;
+        });
+
+        try {
+            // The ETag covers the menu only, so rebuilding an unchanged menu keeps it
+            String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(items)) + "\"";
+            byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success("Menu Items fetched", items));
+            log.debug("MENU: Built read model for {} ({} items, {} bytes)", restaurantId, items.size(), body.length);
+            return new Snapshot(body, etag, System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize menu", e);
+        }
+    }
+}
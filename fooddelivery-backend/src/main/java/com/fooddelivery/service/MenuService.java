@@ -10,6 +10,7 @@ import com.fooddelivery.entity.*;
 import com.fooddelivery.repository.CategoryRepository;
 import com.fooddelivery.repository.MenuItemRepository;
 import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +27,9 @@ public class MenuService {
     private final MenuItemRepository menuItemRepository;
     private final RestaurantRepository restaurantRepository;
     private final CloudinaryService cloudinaryService;
+    private final PricedMenuCache pricedMenuCache;
+    private final MenuReadModel menuReadModel;
+    private final SearchIndex searchIndex;
 
     @Transactional
     public MenuItemResponse createMenuItem(String restaurantId, MenuItemRequest request, MultipartFile image) {
@@ -49,7 +53,7 @@ public class MenuService {
                 .category(category)
                 .name(request.getName())
                 .description(request.getDescription())
-                .basePrice(request.getBasePrice())
+                .basePrice(Money.ofRupees(request.getBasePrice()))
                 .foodType(request.getFoodType() != null ? FoodType.valueOf(request.getFoodType()) : null)
                 .isAvailable(request.isAvailable())
                 .imageUrl(imageUrl)
@@ -69,7 +73,7 @@ public class MenuService {
                     for (OptionRequest optReq : groupRequest.getOptions()) {
                         MenuItemOption option = MenuItemOption.builder()
                                 .label(optReq.getLabel())
-                                .extraPrice(optReq.getExtraPrice())
+                                .extraPrice(Money.ofRupees(optReq.getExtraPrice()))
                                 .optionGroup(group) // Link parent
                                 .build();
                         group.addOption(option);
@@ -80,16 +84,12 @@ public class MenuService {
         }
 
         MenuItem saved = menuItemRepository.save(menuItem);
+        pricedMenuCache.invalidate(restaurantId);
+        menuReadModel.invalidate(restaurantId);
+        searchIndex.refreshMenuItem(saved.getId());
         return mapToResponse(saved);
     }
 
-    public List<MenuItemResponse> getMenuItems(String restaurantId) {
-        List<MenuItem> items = menuItemRepository.findByRestaurantId(restaurantId);
-        return items.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
-
     @Transactional
     public MenuItemResponse updateMenuItem(String restaurantId, String itemId, MenuItemRequest request,
             MultipartFile image) {
@@ -102,7 +102,7 @@ public class MenuService {
 
         menuItem.setName(request.getName());
         menuItem.setDescription(request.getDescription());
-        menuItem.setBasePrice(request.getBasePrice());
+        menuItem.setBasePrice(Money.ofRupees(request.getBasePrice()));
         if (request.getFoodType() != null) {
             menuItem.setFoodType(FoodType.valueOf(request.getFoodType()));
         }
@@ -134,7 +134,7 @@ public class MenuService {
                     for (OptionRequest optReq : groupRequest.getOptions()) {
                         MenuItemOption option = MenuItemOption.builder()
                                 .label(optReq.getLabel())
-                                .extraPrice(optReq.getExtraPrice())
+                                .extraPrice(Money.ofRupees(optReq.getExtraPrice()))
                                 .optionGroup(group)
                                 .build();
                         group.addOption(option);
@@ -144,10 +144,14 @@ public class MenuService {
             }
         }
 
-        return mapToResponse(menuItemRepository.save(menuItem));
+        MenuItem saved = menuItemRepository.save(menuItem);
+        pricedMenuCache.invalidate(restaurantId);
+        menuReadModel.invalidate(restaurantId);
+        searchIndex.refreshMenuItem(saved.getId());
+        return mapToResponse(saved);
     }
 
-    private MenuItemResponse mapToResponse(MenuItem item) {
+    static MenuItemResponse mapToResponse(MenuItem item) {
         List<OptionGroupDto> groups = item.getOptionGroups().stream().map(g -> OptionGroupDto.builder()
                 .id(g.getId())
                 .name(g.getName())
@@ -156,7 +160,7 @@ public class MenuService {
                 .options(g.getOptions().stream().map(o -> OptionDto.builder()
                         .id(o.getId())
                         .label(o.getLabel())
-                        .extraPrice(o.getExtraPrice())
+                        .extraPrice(Money.toRupees(o.getExtraPrice()))
                         .build()).collect(Collectors.toList()))
                 .build()).collect(Collectors.toList());
 
@@ -164,7 +168,7 @@ public class MenuService {
                 .id(item.getId())
                 .name(item.getName())
                 .description(item.getDescription())
-                .basePrice(item.getBasePrice())
+                .basePrice(Money.toRupees(item.getBasePrice()))
                 .foodType(item.getFoodType() != null ? item.getFoodType().name() : null)
                 .available(item.isAvailable())
                 .imageUrl(item.getImageUrl())
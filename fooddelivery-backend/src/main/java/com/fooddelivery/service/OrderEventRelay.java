@@ -0,0 +1,265 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderEvent;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.RiderLedger;
+import com.fooddelivery.repository.OrderEventRepository;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.util.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the order_events outbox. Events are fetched in id order, grouped by
+ * order and each order's events are relayed sequentially under a Redis lock, so
+ * any number of nodes can run the relay while keeping per-order ordering.
+ *
+ * Each event is claimed (PENDING to IN_PROGRESS under the lock token) before any
+ * effect runs, so an event another relay already settled is never applied twice.
+ * Non-transactional effects (dispatch kickoff, rider unlock, socket pushes) run
+ * next; ledger postings and the PROCESSED mark commit together and only while
+ * the claim is still ours, so a retry never double-posts. Claims left behind by a
+ * node that died mid-event go back to PENDING once the lock they ran under lapsed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventRelay {
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderRepository orderRepository;
+    private final WalletService walletService;
+    private final DispatchService dispatchService;
+    private final PricingService pricingService;
+    private final SocketMessagingService socketMessagingService;
+    private final RedisService redisService;
+    private final RiderOrderIndex riderOrderIndex;
+    private final KitchenFeed kitchenFeed;
+    private final KitchenLoad kitchenLoad;
+    private final EtaPredictor etaPredictor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order-events.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order-events.relay.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${order-events.relay.workers:4}")
+    private int workerCount;
+
+    @Value("${order-events.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    // Must outlast the slowest event, a dispatchOrder included
+    @Value("${order-events.relay.lock-seconds:120}")
+    private long lockSeconds;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor();
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        workers = Executors.newFixedThreadPool(workerCount);
+        poller.scheduleWithFixedDelay(this::relayBatch, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::releaseExpiredClaims, lockSeconds, lockSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    void relayBatch() {
+        try {
+            List<OrderEvent> batch = orderEventRepository.findByStatusOrderByIdAsc(OrderEvent.Status.PENDING,
+                    PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<OrderEvent>> byOrder = batch.stream()
+                    .collect(Collectors.groupingBy(OrderEvent::getOrderId, LinkedHashMap::new, Collectors.toList()));
+
+            List<Future<?>> pending = new ArrayList<>(byOrder.size());
+            byOrder.forEach((orderId, events) -> pending.add(workers.submit(() -> relayOrder(orderId, events))));
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("OUTBOX: Relay batch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void releaseExpiredClaims() {
+        try {
+            Integer released = transactionTemplate.execute(status -> orderEventRepository.releaseClaimsBefore(
+                    LocalDateTime.now().minusSeconds(lockSeconds), OrderEvent.Status.IN_PROGRESS,
+                    OrderEvent.Status.PENDING));
+            if (released != null && released > 0) {
+                log.warn("OUTBOX: Released {} events claimed by a relay that did not finish", released);
+            }
+        } catch (Exception e) {
+            log.error("OUTBOX: Releasing expired claims failed: {}", e.getMessage());
+        }
+    }
+
+    private void relayOrder(String orderId, List<OrderEvent> events) {
+        String lockKey = "order_event_relay_" + orderId;
+        String token = UUID.randomUUID().toString();
+        if (!redisService.tryLock(lockKey, token, lockSeconds)) {
+            return; // Another node owns this order right now
+        }
+        try {
+            if (orderEventRepository.existsByOrderIdAndStatusAndIdLessThan(orderId, OrderEvent.Status.IN_PROGRESS,
+                    events.get(0).getId())) {
+                return; // An earlier event is still claimed; keep order until it settles or is released
+            }
+            for (OrderEvent event : events) {
+                if (!relay(event, token)) {
+                    break; // Keep later events for this order behind the failed one
+                }
+            }
+        } finally {
+            redisService.unlock(lockKey, token);
+        }
+    }
+
+    /** @return true if the event is settled (processed or dead-lettered). */
+    private boolean relay(OrderEvent event, String token) {
+        Integer claimed = transactionTemplate.execute(status -> orderEventRepository.claim(event.getId(), token,
+                LocalDateTime.now(), OrderEvent.Status.PENDING, OrderEvent.Status.IN_PROGRESS));
+        if (claimed == null || claimed == 0) {
+            // Settled since the batch was read, or still claimed by a relay whose lock lapsed
+            OrderEvent fresh = orderEventRepository.findById(event.getId()).orElse(null);
+            return fresh == null || fresh.getStatus() != OrderEvent.Status.IN_PROGRESS;
+        }
+        try {
+            Order order = orderRepository.findById(event.getOrderId()).orElse(null);
+            if (order == null) {
+                markFailed(event.getId(), token, "Order not found", true);
+                return true;
+            }
+
+            applyExternalEffects(event, order);
+
+            transactionTemplate.execute(status -> {
+                if (orderEventRepository.complete(event.getId(), token, LocalDateTime.now(),
+                        OrderEvent.Status.IN_PROGRESS, OrderEvent.Status.PROCESSED) == 1) {
+                    applyLedgerEffects(event, order);
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error("OUTBOX: Event {} for order {} failed: {}", event.getId(), event.getOrderId(), e.getMessage());
+            return markFailed(event.getId(), token, e.getMessage(), false);
+        }
+    }
+
+    private void applyExternalEffects(OrderEvent event, Order order) {
+        OrderStatus to = event.getToStatus();
+
+        if (to == OrderStatus.COOKING) {
+            dispatchService.dispatchOrder(order.getId());
+        }
+
+        if ((to == OrderStatus.DELIVERED || to == OrderStatus.CANCELLED) && order.getDeliveryPartner() != null) {
+            log.info("Unlocking Rider {} for Order {}", order.getDeliveryPartner().getId(), order.getId());
+            dispatchService.releaseRiderLock(order.getDeliveryPartner().getId());
+            riderOrderIndex.remove(order.getDeliveryPartner().getId(), order.getId());
+        }
+
+        kitchenFeed.publish(order, event.getFromStatus(), to);
+        kitchenLoad.publish(order, event);
+        etaPredictor.publish(order, event);
+
+        socketMessagingService.sendToRoom("user_" + order.getUser().getId(), "order_status", Map.of(
+                "orderId", order.getId(),
+                "status", to.name()));
+    }
+
+    private void applyLedgerEffects(OrderEvent event, Order order) {
+        if (event.getToStatus() != OrderStatus.DELIVERED) {
+            return;
+        }
+        if (order.getDeliveryPartner() == null) {
+            log.warn("Delivery Partner is NULL for delivered Order {}", order.getId());
+            return;
+        }
+        String riderId = order.getDeliveryPartner().getUserId();
+
+        // 1. Log Cash Collection (Debit)
+        if ("COD".equalsIgnoreCase(order.getPaymentMethod())) {
+            log.info("Adding COD Collection Entry to Ledger");
+            walletService.addEntry(
+                    riderId,
+                    -order.getTotalAmount(),
+                    RiderLedger.LedgerType.COLLECTION,
+                    order.getId(),
+                    "Cash Collected for Order #" + order.getId());
+        }
+
+        // 2. Log Earning (Credit), using the locked-in earning from assignment
+        long earning = Money.orZero(order.getRiderEarning());
+        if (earning == 0) {
+            // Fallback if missing (shouldn't happen for new orders)
+            earning = pricingService.calculatePayout(5.0, 30, 1.0);
+            log.warn("RiderEarning missing for order {}. Using fallback calculation: {}", order.getId(), earning);
+        }
+
+        log.info("Adding Earning Entry to Ledger: {}", earning);
+        walletService.addEntry(
+                riderId,
+                earning,
+                RiderLedger.LedgerType.EARNING,
+                order.getId(),
+                "Ride Earnings for Order #" + order.getId());
+    }
+
+    private boolean markFailed(Long eventId, String token, String error, boolean permanent) {
+        Boolean settled = transactionTemplate.execute(status -> {
+            OrderEvent fresh = orderEventRepository.findById(eventId).orElse(null);
+            if (fresh == null || fresh.getStatus() != OrderEvent.Status.IN_PROGRESS
+                    || !token.equals(fresh.getClaimedBy())) {
+                return fresh == null || fresh.getStatus() != OrderEvent.Status.IN_PROGRESS; // No longer ours
+            }
+            fresh.setClaimedBy(null);
+            fresh.setAttempts(fresh.getAttempts() + 1);
+            fresh.setLastError(error != null && error.length() > 255 ? error.substring(0, 255) : error);
+            boolean giveUp = permanent || fresh.getAttempts() >= maxAttempts;
+            if (giveUp) {
+                fresh.setStatus(OrderEvent.Status.FAILED);
+                log.error("OUTBOX: Event {} dead-lettered after {} attempts", eventId, fresh.getAttempts());
+            } else {
+                fresh.setStatus(OrderEvent.Status.PENDING);
+            }
+            orderEventRepository.save(fresh);
+            return giveUp;
+        });
+        return Boolean.TRUE.equals(settled);
+    }
+}
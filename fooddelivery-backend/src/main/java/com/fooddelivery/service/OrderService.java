@@ -1,23 +1,39 @@
 package com.fooddelivery.service;
 
-import com.fooddelivery.dto.request.AddToCartRequest;
-import com.fooddelivery.dto.request.CalculatePriceRequest;
+import com.fooddelivery.dto.CartDocument;
 import com.fooddelivery.dto.request.CreateOrderRequest;
-import com.fooddelivery.dto.request.CartOptionRequest;
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.dto.response.OrderSummaryResponse;
 import com.fooddelivery.dto.response.OrderTrackingResponse;
 import com.fooddelivery.dto.response.PricingResponse;
 import com.fooddelivery.entity.*;
 import com.fooddelivery.repository.AddressRepository;
 import com.fooddelivery.repository.OrderItemRepository;
 import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.repository.RestaurantRepository;
 import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.util.KeysetCursor;
+import com.fooddelivery.util.Money;
+import com.fooddelivery.util.QueryCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
@@ -33,55 +49,180 @@ public class OrderService {
     private final PricingService pricingService;
     private final ObjectMapper objectMapper;
     private final UserRepository userRepo;
-    private final DispatchService dispatchService;
+    private final RestaurantRepository restaurantRepository;
     private final PaymentService paymentService;
-    private final WalletService walletService;
+    private final OrderStateMachine orderStateMachine;
+    private final PricedMenuCache pricedMenuCache;
+    private final RestaurantSchedule restaurantSchedule;
+    private final KitchenLoad kitchenLoad;
+    private final PromotionEngine promotionEngine;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private Timer checkoutTimer;
+    private DistributionSummary checkoutQueries;
+
+    @PostConstruct
+    public void initMetrics() {
+        checkoutTimer = Timer.builder("orders.checkout")
+                .description("Order placement latency, up to commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        checkoutQueries = DistributionSummary.builder("orders.checkout.queries")
+                .description("SQL statements issued per order placement")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 
-    @Transactional
+    /**
+     * Places an order from the user's cart with a fixed number of statements
+     * regardless of cart size: the cart is one document from the CartStore,
+     * priced in memory against the cached menu snapshot, and the order lines go out
+     * as one JDBC batch.
+     *
+     * For online payment the gateway order is requested only after the order has
+     * committed, so no DB connection is held across the gateway round trip.
+     */
     public Order createOrder(String userId, CreateOrderRequest request) {
-        Cart cart = cartService.getCartEntity(userId);
-        if (cart.getItems().isEmpty()) {
+        long startNanos = System.nanoTime();
+        long startQueries = QueryCounter.current();
+        Order order;
+        try {
+            order = transactionTemplate.execute(status -> placeOrder(userId, request));
+        } finally {
+            checkoutTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            checkoutQueries.record(QueryCounter.current() - startQueries);
+        }
+
+        if ("ONLINE".equalsIgnoreCase(request.getPaymentMethod())) {
+            attachGatewayOrder(order);
+        }
+        return order;
+    }
+
+    /**
+     * Creates the gateway order for a committed online order and stores its id.
+     * On gateway failure the order stays without one and the payment reconciliation
+     * job retries later. A call that times out but succeeds afterwards still attaches
+     * its id, so the retry finds the order done rather than creating a second one.
+     */
+    public void attachGatewayOrder(Order order) {
+        attachGatewayOrderAsync(order).join();
+    }
+
+    /** Non-blocking form for batches; completes normally once the attempt is over either way. */
+    public CompletableFuture<Void> attachGatewayOrderAsync(Order order) {
+        return paymentService.createOrderAsync(order.getTotalAmount(), order.getId(),
+                lateId -> attachLateGatewayOrder(order.getId(), lateId))
+                .handle((rzpOrderId, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        log.warn("PAYMENT: Gateway order for {} not created yet: {}", order.getId(), cause.toString());
+                        return null;
+                    }
+                    try {
+                        if (orderRepository.attachRazorpayOrderId(order.getId(), rzpOrderId,
+                                LocalDateTime.now()) > 0) {
+                            order.setRazorpayOrderId(rzpOrderId);
+                        }
+                    } catch (Exception e) {
+                        log.error("PAYMENT: Could not attach gateway order {} to {}: {}", rzpOrderId, order.getId(),
+                                e.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private void attachLateGatewayOrder(String orderId, String rzpOrderId) {
+        try {
+            if (orderRepository.attachRazorpayOrderId(orderId, rzpOrderId, LocalDateTime.now()) > 0) {
+                log.info("PAYMENT: Attached late gateway order {} to {}", rzpOrderId, orderId);
+            } else {
+                log.warn("PAYMENT: Late gateway order {} for {} not attached, order already has one", rzpOrderId,
+                        orderId);
+            }
+        } catch (Exception e) {
+            log.error("PAYMENT: Could not attach late gateway order {} to {}: {}", rzpOrderId, orderId,
+                    e.getMessage());
+        }
+    }
+
+    private Order placeOrder(String userId, CreateOrderRequest request) {
+        CartDocument cart = cartService.getCartForCheckout(userId).orElse(null);
+        if (cart == null || cart.getLines().isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
+        if (!restaurantSchedule.isOpen(cart.getRestaurantId())) {
+            throw new RuntimeException("Restaurant is closed right now");
+        }
+        kitchenLoad.checkCapacity(cart.getRestaurantId());
+
+        // 1. Current prices from the restaurant's menu snapshot, no item or option lookups
+        PricedMenuCache.PricedMenu menu = pricedMenuCache.get(cart.getRestaurantId());
+
+        Address address = addressRepository.findByIdAndUserId(request.getDeliveryAddressId(), userId)
+                .orElseThrow(() -> new RuntimeException("Delivery Address not found"));
+
+        // 2. Price from the loaded graph (same rules as PricingService.calculatePrice)
+        List<OrderItem> orderItems = new ArrayList<>(cart.getLines().size());
+        long subtotal = 0;
+        for (CartDocument.Line cartItem : cart.getLines()) {
+            PricedMenuCache.PricedItem priced = menu.item(cartItem.getMenuItemId());
+            if (priced == null || !priced.available()) {
+                throw new RuntimeException("Item is currently unavailable: " + cartItem.getName());
+            }
+            long unitPrice = priced.basePrice();
+            List<Map<String, Object>> optionSnapshot = new ArrayList<>(cartItem.getOptions().size());
+            for (CartDocument.LineOption selected : cartItem.getOptions()) {
+                PricedMenuCache.PricedOption option = menu.option(selected.getOptionId());
+                if (option == null || !option.menuItemId().equals(priced.id())) {
+                    continue; // Option removed from the menu since it was added
+                }
+                unitPrice = Money.add(unitPrice, option.extraPrice());
+                Map<String, Object> snapshot = new LinkedHashMap<>();
+                snapshot.put("optionGroupId", option.groupId());
+                snapshot.put("optionGroupName", option.groupName());
+                snapshot.put("optionId", option.id());
+                snapshot.put("optionName", option.label());
+                snapshot.put("price", Money.toRupees(option.extraPrice()));
+                optionSnapshot.add(snapshot);
+            }
+            long lineTotal = Money.times(unitPrice, cartItem.getQuantity());
+            subtotal = Money.add(subtotal, lineTotal);
+
+            String optionsJson = "[]";
+            try {
+                optionsJson = objectMapper.writeValueAsString(optionSnapshot);
+            } catch (Exception e) {
+            }
+
+            orderItems.add(OrderItem.builder()
+                    .menuItemId(priced.id())
+                    .name(priced.name())
+                    .quantity(cartItem.getQuantity())
+                    .basePrice(priced.basePrice())
+                    .totalPrice(lineTotal)
+                    .optionsJson(optionsJson)
+                    .build());
+        }
+
+        User user = userRepo.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        PricingResponse pricing = pricingService.quote(menu, subtotal, user.isPremium(), address,
+                request.getOfferCode(), userId);
 
-        // 1. Calculate Price
-        List<AddToCartRequest> itemRequests = cart.getItems().stream().map(i -> {
-            AddToCartRequest req = new AddToCartRequest();
-            req.setItemId(i.getMenuItem().getId());
-            req.setQuantity(i.getQuantity());
-            // Map options
-            List<CartOptionRequest> opts = i.getOptions().stream().map(o -> {
-                CartOptionRequest optReq = new CartOptionRequest();
-                optReq.setGroupId(o.getOptionGroupId());
-                optReq.setOptionId(o.getOptionId());
-                return optReq;
-            }).collect(Collectors.toList());
-            req.setOptions(opts);
-            return req;
-        }).collect(Collectors.toList());
-
-        CalculatePriceRequest priceReq = new CalculatePriceRequest();
-        priceReq.setRestaurantId(cart.getRestaurant().getId());
-        priceReq.setItems(itemRequests);
-        priceReq.setDeliveryAddressId(request.getDeliveryAddressId());
-        priceReq.setOfferCode(request.getOfferCode());
-        priceReq.setUserId(userId);
-
-        PricingResponse pricing = pricingService.calculatePrice(priceReq);
-
-        // Fetch Address Snapshot
-        Address address = addressRepository.findById(request.getDeliveryAddressId())
-                .orElseThrow(() -> new RuntimeException("Address not found"));
+        // Address Snapshot
         String addressJson = request.getDeliveryAddressId(); // Fallback
         try {
             addressJson = objectMapper.writeValueAsString(address);
         } catch (Exception e) {
         }
 
-        // 2. Create Order
+        // 3. Create Order
         Order order = Order.builder()
-                .user(cart.getUser())
-                .restaurant(cart.getRestaurant())
+                .user(user)
+                .restaurant(restaurantRepository.findById(cart.getRestaurantId())
+                        .orElseThrow(() -> new RuntimeException("Restaurant not found")))
                 .status("COD".equalsIgnoreCase(request.getPaymentMethod()) ? OrderStatus.PLACED
                         : OrderStatus.PENDING_PAYMENT)
                 .paymentStatus(PaymentStatus.PENDING)
@@ -97,48 +238,34 @@ public class OrderService {
                 .deliveryAddressJson(addressJson) // Storing full snapshot
                 .build();
 
-        // RAZORPAY INTEGRATION
-        if ("ONLINE".equalsIgnoreCase(request.getPaymentMethod())) {
-            String rzpOrderId = paymentService.createOrder(order.getTotalAmount(),
-                    "order_" + System.currentTimeMillis());
-            order.setRazorpayOrderId(rzpOrderId);
-        }
-
+        // UUID ids are assigned in memory, so the order and its lines are batched at flush
         Order savedOrder = orderRepository.save(order);
+        orderItems.forEach(item -> item.setOrder(savedOrder));
+        savedOrder.setItems(orderItems);
 
-        // 3. Save Items
-        List<OrderItem> orderItems = cart.getItems().stream().map(cartItem -> {
-            String optionsJson = "[]";
-            try {
-                optionsJson = objectMapper.writeValueAsString(cartItem.getOptions());
-            } catch (Exception e) {
-            }
-
-            return OrderItem.builder()
-                    .order(savedOrder)
-                    .menuItemId(cartItem.getMenuItem().getId())
-                    .name(cartItem.getMenuItem().getName())
-                    .quantity(cartItem.getQuantity())
-                    .basePrice(cartItem.getItemPrice())
-                    .totalPrice(cartItem.getTotalPrice()) // Note: Pricing service might have different total logic if
-                                                          // options changed price, but Cart should be sync. Use cart
-                                                          // snapshot.
-                    .optionsJson(optionsJson)
-                    .build();
-        }).collect(Collectors.toList());
+        orderStateMachine.record(savedOrder.getId(), null, savedOrder.getStatus());
 
-        orderItemRepository.saveAll(orderItems);
+        // Claims the usage counters; released again if this transaction rolls back
+        if (pricing.getOfferApplied() != null) {
+            promotionEngine.redeem(pricing.getOfferApplied(), userId, savedOrder.getId());
+        }
 
         // 4. Clear Cart
         cartService.clearCart(userId);
 
+        orderItemRepository.saveAllAndFlush(orderItems);
         return savedOrder;
     }
 
     @Transactional
     public Order confirmPayment(String orderId, String paymentId, String signature) {
-        Order order = getOrder(orderId);
+        Order order = orderRepository.findByIdReadOnly(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
         if (order.getStatus() != OrderStatus.PENDING_PAYMENT) {
+            if (order.getPaymentStatus() == PaymentStatus.PAID && paymentId != null
+                    && paymentId.equals(order.getPaymentId())) {
+                return order; // Already confirmed by the gateway webhook
+            }
             throw new RuntimeException("Order not in pending payment state");
         }
 
@@ -148,121 +275,64 @@ public class OrderService {
             throw new RuntimeException("Payment Verification Failed");
         }
 
+        return markPaid(order, paymentId);
+    }
+
+    /** Moves a PENDING_PAYMENT order loaded read-only to PLACED with its payment recorded. */
+    @Transactional
+    public Order markPaid(Order order, String paymentId) {
         order.setPaymentStatus(PaymentStatus.PAID);
-        order.setStatus(OrderStatus.PLACED);
         order.setPaymentId(paymentId);
 
-        return orderRepository.save(order);
+        return orderStateMachine.transition(order, OrderStatus.PLACED);
     }
 
     // Status Updates
     @Transactional
     public Order updateStatus(String orderId, OrderStatus status) {
-        Order order = getOrder(orderId);
-        // Validations can go here (state machine)
+        Order order = orderRepository.findByIdReadOnly(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
 
         if (order.getStatus().equals(status)) {
             throw new RuntimeException("Order status is already " + status);
         }
 
-        if (status == OrderStatus.READY_FOR_PICKUP && (order.getStatus().equals(OrderStatus.PICKED_UP)
-                || order.getStatus().equals(OrderStatus.DELIVERED))) {
-            throw new RuntimeException("Order status is not valid for " + status);
-        }
-
-        // Handle COD Payment on Delivery
-        if (status == OrderStatus.DELIVERED) {
-            log.info("Processing DELIVERED status for Order: {}", orderId);
-            log.info("Payment Method: '{}'", order.getPaymentMethod());
-            log.info("Delivery Partner: {}",
-                    order.getDeliveryPartner() != null ? order.getDeliveryPartner().getId() : "NULL");
-
-            if ("COD".equalsIgnoreCase(order.getPaymentMethod())) {
-                order.setPaymentStatus(PaymentStatus.PAID);
-                // 1. Log Cash Collection (Debit)
-                if (order.getDeliveryPartner() != null) {
-                    log.info("Adding COD Collection Entry to Ledger");
-                    walletService.addEntry(
-                            order.getDeliveryPartner().getUserId(),
-                            -order.getTotalAmount(),
-                            RiderLedger.LedgerType.COLLECTION,
-                            order.getId(),
-                            "Cash Collected for Order #" + order.getId());
-                } else {
-                    log.warn("Delivery Partner is NULL for COD Order {}", orderId);
-                }
-            }
-        }
-
-        order.setStatus(status);
-        if (status == OrderStatus.DELIVERED) {
-            order.setDeliveredAt(LocalDateTime.now());
-
-            // 2. Log Earning (Credit)
-            if (order.getDeliveryPartner() != null) {
-                // Use the locked-in earning from assignment
-                double earning = order.getRiderEarning() != null ? order.getRiderEarning() : 0.0;
-
-                if (earning == 0.0) {
-                    // Fallback if missing (shouldn't happen for new orders)
-                    double dist = 5.0;
-                    earning = pricingService.calculatePayout(dist, 30, 1.0);
-                    log.warn("RiderEarning missing for order {}. Using fallback calculation: {}", orderId, earning);
-                }
-
-                log.info("Adding Earning Entry to Ledger: {}", earning);
-
-                walletService.addEntry(
-                        order.getDeliveryPartner().getUserId(),
-                        earning,
-                        RiderLedger.LedgerType.EARNING,
-                        order.getId(),
-                        "Ride Earnings for Order #" + order.getId());
-            } else {
-                log.warn("Delivery Partner is NULL for Earnings Order {}", orderId);
-            }
-
-            // Unlock Rider
-            if (order.getDeliveryPartner() != null) {
-                log.info("Unlocking Rider {} for Order {}", order.getDeliveryPartner().getId(), orderId);
-                log.info("Delivery Partner User ID : {}", order.getDeliveryPartner().getUserId());
-                dispatchService.releaseRiderLock(order.getDeliveryPartner().getId());
-            }
-        }
-
-        // Trigger Dispatch if Cooking
-        if (status == OrderStatus.COOKING) {
-            dispatchService.dispatchOrder(orderId);
-        }
-
-        return orderRepository.save(order);
+        // Validation, COD settlement fields and the outbox event are handled by the state machine.
+        // Ledger postings, rider unlock and dispatch kickoff run from the outbox relay.
+        return orderStateMachine.transition(order, status);
     }
 
     @Transactional
     public Order cancelOrder(String orderId, String userId) {
-        Order order = getOrder(orderId);
+        Order order = orderRepository.findByIdReadOnly(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
         if (!order.getUser().getId().equals(userId)) { // Admin might bypass
             throw new RuntimeException("Unauthorized");
         }
-        if (order.getStatus() == OrderStatus.PENDING_PAYMENT || order.getStatus() == OrderStatus.PLACED) {
-            order.setStatus(OrderStatus.CANCELLED);
-
-            // Unlock Rider if assigned (Rare for Placed/Pending, but good safety)
-            if (order.getDeliveryPartner() != null) {
-                dispatchService.releaseRiderLock(order.getDeliveryPartner().getUserId());
-            }
-
-            // Initiate refund if PAID
-            return orderRepository.save(order);
-        } else {
+        if (!orderStateMachine.canTransition(order.getStatus(), OrderStatus.CANCELLED)) {
             throw new RuntimeException("Cannot cancel order in current status");
         }
+
+        // Rider unlock (if assigned) happens in the outbox relay
+        // Initiate refund if PAID
+        return orderStateMachine.transition(order, OrderStatus.CANCELLED);
     }
 
     public List<Order> getMyOrders(String userId) {
         return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    /** One page of the customer's order history, newest first; cost does not grow with history depth. */
+    public CursorPage<OrderSummaryResponse> getMyOrderHistory(String userId, String cursor, int limit) {
+        int size = CursorPage.clampLimit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        PageRequest fetch = PageRequest.of(0, size + 1);
+        List<OrderSummaryResponse> rows = after == null
+                ? orderRepository.findUserOrderPage(userId, fetch)
+                : orderRepository.findUserOrderPageAfter(userId, after.createdAt(), after.id(), fetch);
+        return CursorPage.of(rows, size, row -> new KeysetCursor(row.getCreatedAt(), row.getOrderId()));
+    }
+
     public Order getOrder(String orderId) {
         return orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException("Order not found"));
     }
@@ -273,16 +343,33 @@ public class OrderService {
                 OrderStatus.CANCELLED,
                 OrderStatus.REJECTED));
 
+        Map<String, User> riders = loadRiders(orders);
         return orders.stream()
-                .map(this::buildTrackingResponse)
+                .map(order -> buildTrackingResponse(order, riders))
                 .collect(Collectors.toList());
     }
 
     public OrderTrackingResponse getTrackingDetails(String orderId) {
-        return buildTrackingResponse(getOrder(orderId));
+        Order order = getOrder(orderId);
+        return buildTrackingResponse(order, loadRiders(List.of(order)));
+    }
+
+    // Rider accounts for all orders in one select instead of one per order
+    private Map<String, User> loadRiders(List<Order> orders) {
+        List<String> riderUserIds = orders.stream()
+                .map(Order::getDeliveryPartner)
+                .filter(java.util.Objects::nonNull)
+                .map(DeliveryPartner::getUserId)
+                .distinct()
+                .toList();
+        if (riderUserIds.isEmpty()) {
+            return Map.of();
+        }
+        return userRepo.findAllById(riderUserIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
     }
 
-    private OrderTrackingResponse buildTrackingResponse(Order order) {
+    private OrderTrackingResponse buildTrackingResponse(Order order, Map<String, User> riders) {
         // 1. User Location
         OrderTrackingResponse.Location userLoc = null;
         String addressRef = order.getDeliveryAddressJson();
@@ -344,10 +431,10 @@ public class OrderService {
         if (order.getDeliveryPartner() != null) {
             DeliveryPartner dp = order.getDeliveryPartner();
 
-            Optional<User> user = userRepo.findById(dp.getUserId());
-            if (user.isPresent()) {
-                riderName = user.get().getName();
-                riderPhone = user.get().getPhone();
+            User rider = riders.get(dp.getUserId());
+            if (rider != null) {
+                riderName = rider.getName();
+                riderPhone = rider.getPhone();
                 riderVehicle = "N/A";
                 riderVehicleType = dp.getVehicleType();
             }
@@ -373,7 +460,7 @@ public class OrderService {
                 .riderPhone(riderPhone)
                 .riderVehicleNumber(riderVehicle)
                 .riderVehicleType(riderVehicleType)
-                .totalAmount(order.getTotalAmount())
+                .totalAmount(Money.toRupees(order.getTotalAmount()))
                 .paymentMethod(order.getPaymentMethod())
                 .paymentStatus(order.getPaymentStatus() != null ? order.getPaymentStatus().toString() : "PENDING")
                 .build();
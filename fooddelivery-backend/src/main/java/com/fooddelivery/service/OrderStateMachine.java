@@ -0,0 +1,162 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderEvent;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.PaymentStatus;
+import com.fooddelivery.repository.OrderEventRepository;
+import com.fooddelivery.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.fooddelivery.entity.OrderStatus.*;
+
+/**
+ * Order lifecycle engine. Legal transitions are compiled once into EnumSet
+ * (bitset) tables, in both directions, and every transition is persisted as a
+ * compare-and-set on the status column so concurrent restaurant, rider and
+ * dispatch threads cannot overwrite each other without pessimistic locks.
+ *
+ * RIDER_ACCEPTED is a legacy alias of ASSIGNED_TO_RIDER: nothing moves into it,
+ * but existing rows in that state can still move on.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStateMachine {
+
+    @FunctionalInterface
+    public interface Guard {
+        /** Throws if the order may not enter the target status. */
+        void check(Order order);
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        /** Mutates lifecycle fields that are persisted together with the status. */
+        void apply(Order order);
+    }
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TARGETS = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, Set<OrderStatus>> SOURCES = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, List<Guard>> GUARDS = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, List<Action>> ACTIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        allow(PENDING_PAYMENT, PLACED, CANCELLED);
+        allow(PLACED, ACCEPTED, REJECTED, CANCELLED);
+        allow(ACCEPTED, COOKING);
+        allow(COOKING, READY_FOR_PICKUP, OFFER_SENT, ASSIGNED_TO_RIDER, NO_RIDER_AVAILABLE);
+        allow(SEARCHING_RIDER, READY_FOR_PICKUP, OFFER_SENT, ASSIGNED_TO_RIDER, NO_RIDER_AVAILABLE);
+        allow(OFFER_SENT, READY_FOR_PICKUP, SEARCHING_RIDER, ASSIGNED_TO_RIDER, NO_RIDER_AVAILABLE);
+        allow(NO_RIDER_AVAILABLE, READY_FOR_PICKUP, OFFER_SENT, ASSIGNED_TO_RIDER);
+        allow(READY_FOR_PICKUP, ASSIGNED_TO_RIDER, NO_RIDER_AVAILABLE, PICKED_UP);
+        allow(ASSIGNED_TO_RIDER, READY_FOR_PICKUP, PICKED_UP);
+        allow(RIDER_ACCEPTED, READY_FOR_PICKUP, PICKED_UP);
+        allow(PICKED_UP, DELIVERED);
+        // DELIVERED, CANCELLED and REJECTED are terminal
+
+        Guard riderAssigned = order -> {
+            if (order.getDeliveryPartner() == null) {
+                throw new RuntimeException("Order has no delivery partner assigned");
+            }
+        };
+        guard(PICKED_UP, riderAssigned);
+        guard(DELIVERED, riderAssigned);
+
+        action(DELIVERED, order -> {
+            order.setDeliveredAt(LocalDateTime.now());
+            // Handle COD Payment on Delivery
+            if ("COD".equalsIgnoreCase(order.getPaymentMethod())) {
+                order.setPaymentStatus(PaymentStatus.PAID);
+            }
+        });
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderEventRepository orderEventRepository;
+
+    private static void allow(OrderStatus from, OrderStatus... to) {
+        Set<OrderStatus> targets = TARGETS.computeIfAbsent(from, s -> EnumSet.noneOf(OrderStatus.class));
+        for (OrderStatus t : to) {
+            targets.add(t);
+            SOURCES.computeIfAbsent(t, s -> EnumSet.noneOf(OrderStatus.class)).add(from);
+        }
+    }
+
+    private static void guard(OrderStatus to, Guard guard) {
+        GUARDS.computeIfAbsent(to, s -> new ArrayList<>()).add(guard);
+    }
+
+    private static void action(OrderStatus to, Action action) {
+        ACTIONS.computeIfAbsent(to, s -> new ArrayList<>()).add(action);
+    }
+
+    public boolean canTransition(OrderStatus from, OrderStatus to) {
+        Set<OrderStatus> targets = TARGETS.get(from);
+        return targets != null && targets.contains(to);
+    }
+
+    public Set<OrderStatus> sourcesOf(OrderStatus to) {
+        return Collections.unmodifiableSet(SOURCES.getOrDefault(to, EnumSet.noneOf(OrderStatus.class)));
+    }
+
+    /**
+     * Full transition for an order loaded with {@link OrderRepository#findByIdReadOnly}:
+     * checks the table and guards, runs actions, then persists with a
+     * compare-and-set on the loaded status. Must run inside a transaction.
+     */
+    public Order transition(Order order, OrderStatus to) {
+        OrderStatus from = order.getStatus();
+        if (!canTransition(from, to)) {
+            throw new RuntimeException("Order status is not valid for " + to);
+        }
+        GUARDS.getOrDefault(to, List.of()).forEach(g -> g.check(order));
+
+        order.setStatus(to);
+        ACTIONS.getOrDefault(to, List.of()).forEach(a -> a.apply(order));
+
+        int updated = orderRepository.compareAndSetStatus(order.getId(), from, to, order.getPaymentStatus(),
+                order.getPaymentId(), order.getDeliveredAt(), LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("Order was updated concurrently, please retry");
+        }
+        record(order.getId(), from, to);
+        return order;
+    }
+
+    /**
+     * Status-only transition without loading the order, for callers that already
+     * know the expected current status (dispatch flows).
+     *
+     * @return false if the transition is not allowed or the status moved on.
+     */
+    public boolean tryTransition(String orderId, OrderStatus from, OrderStatus to) {
+        if (!canTransition(from, to) || GUARDS.containsKey(to) || ACTIONS.containsKey(to)) {
+            return false;
+        }
+        int updated = orderRepository.updateStatusIfIn(orderId, EnumSet.of(from), to, LocalDateTime.now());
+        if (updated == 0) {
+            return false;
+        }
+        record(orderId, from, to);
+        return true;
+    }
+
+    /** Appends the outbox event for a transition that was persisted elsewhere. */
+    public void record(String orderId, OrderStatus from, OrderStatus to) {
+        orderEventRepository.save(OrderEvent.builder()
+                .orderId(orderId)
+                .fromStatus(from)
+                .toStatus(to)
+                .build());
+    }
+}
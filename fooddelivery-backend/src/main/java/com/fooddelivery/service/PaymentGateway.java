@@ -0,0 +1,15 @@
+package com.fooddelivery.service;
+
+/**
+ * Blocking client for the payment gateway. PaymentService runs it on its own
+ * pool with a timeout, so callers never hold a DB transaction across it.
+ */
+public interface PaymentGateway {
+
+    /** @return the gateway order id */
+    String createOrder(long amountPaise, String receipt);
+
+    boolean verifyPayment(String gatewayOrderId, String paymentId, String signature);
+
+    boolean verifyWebhook(String payload, String signature);
+}
@@ -0,0 +1,168 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.PaymentEvent;
+import com.fooddelivery.entity.PaymentStatus;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.repository.PaymentEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically matches stored gateway webhook events to orders by
+ * razorpayOrderId (one IN query per batch) and places paid orders that the
+ * client never confirmed. Also retries gateway order creation for online
+ * orders whose checkout call timed out. Runs on one node at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationJob {
+
+    private static final Set<String> PAID_EVENTS = Set.of("payment.captured", "order.paid");
+    private static final long LOCK_SECONDS = 60;
+
+    private final PaymentEventRepository paymentEventRepository;
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final RedisService redisService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${payment.reconciliation.interval-ms:5000}")
+    private long intervalMs;
+
+    @Value("${payment.reconciliation.batch-size:200}")
+    private int batchSize;
+
+    @Value("${payment.reconciliation.unmatched-after-minutes:60}")
+    private long unmatchedAfterMinutes;
+
+    @Value("${payment.reconciliation.gateway-retry-after-seconds:120}")
+    private long gatewayRetryAfterSeconds;
+
+    // One wave of the gateway pool (payment.gateway.threads), so a run's calls all start before they time out
+    @Value("${payment.reconciliation.gateway-batch-size:16}")
+    private int gatewayBatchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void run() {
+        String token = UUID.randomUUID().toString();
+        if (!redisService.tryLock("payment_reconciliation", token, LOCK_SECONDS)) {
+            return;
+        }
+        try {
+            reconcileEvents();
+            retryGatewayOrders();
+        } catch (Exception e) {
+            log.error("PAYMENT: Reconciliation run failed: {}", e.getMessage(), e);
+        } finally {
+            redisService.unlock("payment_reconciliation", token);
+        }
+    }
+
+    private void reconcileEvents() {
+        List<PaymentEvent> events = paymentEventRepository.findByStatusOrderByIdAsc(PaymentEvent.Status.PENDING,
+                PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Set<String> gatewayOrderIds = events.stream()
+                .map(PaymentEvent::getGatewayOrderId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Order> orders = gatewayOrderIds.isEmpty() ? Map.of()
+                : orderRepository.findByRazorpayOrderIdIn(gatewayOrderIds).stream()
+                        .collect(Collectors.toMap(Order::getRazorpayOrderId, Function.identity()));
+
+        LocalDateTime unmatchedBefore = LocalDateTime.now().minusMinutes(unmatchedAfterMinutes);
+        for (PaymentEvent event : events) {
+            try {
+                Order order = event.getGatewayOrderId() != null ? orders.get(event.getGatewayOrderId()) : null;
+                if (order == null) {
+                    // The order may still be attaching its gateway id; give up only after a while
+                    if (event.getCreatedAt().isBefore(unmatchedBefore)) {
+                        log.warn("PAYMENT: No order for gateway order {}", event.getGatewayOrderId());
+                        settle(event, PaymentEvent.Status.UNMATCHED);
+                    }
+                    continue;
+                }
+                transactionTemplate.executeWithoutResult(status -> apply(event, order));
+            } catch (Exception e) {
+                // Left pending, retried on the next run
+                log.error("PAYMENT: Event {} failed: {}", event.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void apply(PaymentEvent event, Order order) {
+        if (PAID_EVENTS.contains(event.getEventType()) && order.getStatus() == OrderStatus.PENDING_PAYMENT) {
+            log.info("PAYMENT: Placing order {} from webhook {}", order.getId(), event.getEventType());
+            orderService.markPaid(order, event.getGatewayPaymentId());
+        } else if (PAID_EVENTS.contains(event.getEventType()) && order.getPaymentStatus() != PaymentStatus.PAID) {
+            log.warn("PAYMENT: Captured payment for order {} in status {}", order.getId(), order.getStatus());
+        }
+        settle(event, PaymentEvent.Status.PROCESSED);
+    }
+
+    private void settle(PaymentEvent event, PaymentEvent.Status status) {
+        event.setStatus(status);
+        event.setProcessedAt(LocalDateTime.now());
+        paymentEventRepository.save(event);
+    }
+
+    // Calls run concurrently under one deadline well inside the lock, so no other node starts the same batch
+    private void retryGatewayOrders() {
+        List<Order> orders = orderRepository.findAwaitingGatewayOrder(OrderStatus.PENDING_PAYMENT,
+                LocalDateTime.now().minusSeconds(gatewayRetryAfterSeconds), PageRequest.of(0, gatewayBatchSize));
+        if (orders.isEmpty()) {
+            return;
+        }
+        CompletableFuture<?>[] attempts = orders.stream()
+                .map(orderService::attachGatewayOrderAsync)
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(attempts).get(LOCK_SECONDS / 2, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Stragglers still attach their id when they finish
+            log.warn("PAYMENT: Gateway order retries still running after {}s", LOCK_SECONDS / 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("PAYMENT: Gateway order retry failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,52 +1,104 @@
 package com.fooddelivery.service;
 
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
-import com.razorpay.Utils;
-import org.json.JSONObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
+/**
+ * Front for the configured {@link PaymentGateway}. Gateway round trips run on a
+ * dedicated pool with a hard timeout, so a slow gateway ties up neither
+ * request threads indefinitely nor DB connections.
+ */
 @Service
+@RequiredArgsConstructor
 public class PaymentService {
 
-    @Value("${razorpay.key.id}")
-    private String keyId;
+    private final PaymentGateway gateway;
+
+    @Value("${payment.gateway.timeout-ms:5000}")
+    private long timeoutMs;
 
-    @Value("${razorpay.key.secret}")
-    private String keySecret;
+    @Value("${payment.gateway.threads:16}")
+    private int threads;
 
-    private RazorpayClient client;
+    private ExecutorService executor;
+
+    // Gateway calls still running by receipt, so a retry joins one instead of creating a second order
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
 
     @PostConstruct
-    public void init() throws RazorpayException {
-        // Initialize Razorpay Client
-        this.client = new RazorpayClient(keyId, keySecret);
+    public void init() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
     /**
-     * Create a Razorpay Order
-     * 
-     * @param amount  Amount in double (will be converted to paisa)
-     * @param receipt Receipt ID (e.g., internal Order ID)
-     * @return Razorpay Order ID
+     * Create a gateway order without blocking the caller.
+     *
+     * @param amountPaise Amount in paise
+     * @param receipt     Receipt ID (e.g., internal Order ID), max 40 chars
+     * @return future of the gateway order ID, failing with a TimeoutException after payment.gateway.timeout-ms
      */
-    public String createOrder(double amount, String receipt) {
-        try {
-            JSONObject options = new JSONObject();
-            // Amount in paisa (e.g. 500.00 -> 50000)
-            options.put("amount", (int) (amount * 100));
-            options.put("currency", "INR");
-            options.put("receipt", receipt);
-            options.put("payment_capture", 1); // Auto capture
+    public CompletableFuture<String> createOrderAsync(long amountPaise, String receipt) {
+        return createOrderAsync(amountPaise, receipt, null);
+    }
 
-            com.razorpay.Order order = client.orders.create(options);
-            return order.get("id");
+    /**
+     * Same, but the gateway call is not abandoned at the timeout: if it still
+     * succeeds, the late gateway order ID is passed to lateResult so the caller can
+     * store it instead of creating a second gateway order for the same receipt.
+     */
+    public CompletableFuture<String> createOrderAsync(long amountPaise, String receipt, Consumer<String> lateResult) {
+        CompletableFuture<String> call = inFlight.computeIfAbsent(receipt,
+                r -> CompletableFuture.supplyAsync(() -> gateway.createOrder(amountPaise, r), executor));
+        call.whenComplete((id, error) -> inFlight.remove(receipt, call));
+        // orTimeout completes the future it is called on, so time out a copy and keep the call itself
+        CompletableFuture<String> timed = call.copy().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        if (lateResult != null) {
+            timed.whenComplete((id, error) -> {
+                if (error instanceof TimeoutException) {
+                    call.thenAccept(lateResult);
+                }
+            });
+        }
+        return timed;
+    }
 
-        } catch (RazorpayException e) {
-            throw new RuntimeException("Razorpay Order Creation Failed: " + e.getMessage(), e);
+    /**
+     * Create a Razorpay Order, waiting for the result.
+     *
+     * @param amountPaise Amount in paise
+     * @param receipt     Receipt ID (e.g., internal Order ID)
+     * @return Razorpay Order ID
+     */
+    public String createOrder(long amountPaise, String receipt) {
+        try {
+            return createOrderAsync(amountPaise, receipt).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Payment gateway timed out");
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("Payment gateway error: " + cause.getMessage(), cause);
         }
     }
 
@@ -58,15 +110,10 @@ public class PaymentService {
      * @param signature         The signature returned by Razorpay
      */
     public boolean verifyPayment(String razorpayOrderId, String razorpayPaymentId, String signature) {
-        try {
-            JSONObject options = new JSONObject();
-            options.put("razorpay_order_id", razorpayOrderId);
-            options.put("razorpay_payment_id", razorpayPaymentId);
-            options.put("razorpay_signature", signature);
+        return gateway.verifyPayment(razorpayOrderId, razorpayPaymentId, signature);
+    }
 
-            return Utils.verifyPaymentSignature(options, keySecret);
-        } catch (RazorpayException e) {
-            return false;
-        }
+    public boolean verifyWebhook(String payload, String signature) {
+        return gateway.verifyWebhook(payload, signature);
     }
 }
@@ -0,0 +1,224 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Restaurant;
+import com.fooddelivery.repository.MenuItemOptionRepository;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.util.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-restaurant immutable price list (item base prices, option extra prices in paise,
+ * availability, option group rules and the restaurant location) so the cart,
+ * quotes and checkout price and validate lines without item or option lookups. A snapshot is rebuilt with three projection
+ * queries on the first read after MenuService changes the menu.
+ *
+ * Invalidation is local to this node; snapshots also expire after
+ * pricing.menu-cache.max-age-seconds so other nodes converge.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricedMenuCache {
+
+    public record PricedItem(String id, String name, long basePrice, boolean available, String imageUrl) {
+    }
+
+    public record PricedOption(String id, String label, long extraPrice, String groupId, String groupName,
+            String menuItemId) {
+    }
+
+    public record OptionGroupRule(String id, String name, String menuItemId, boolean required, boolean multiSelect) {
+    }
+
+    public static final class PricedMenu {
+        private final String restaurantId;
+        private final Double latitude;
+        private final Double longitude;
+        private final Map<String, PricedItem> items;
+        private final Map<String, PricedOption> options;
+        private final Map<String, List<OptionGroupRule>> groupsByItem;
+        private final long version;
+        private final long builtAtNanos;
+
+        private PricedMenu(String restaurantId, Double latitude, Double longitude, Map<String, PricedItem> items,
+                Map<String, PricedOption> options, Map<String, List<OptionGroupRule>> groupsByItem) {
+            this.restaurantId = restaurantId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.items = Map.copyOf(items);
+            this.options = Map.copyOf(options);
+            this.groupsByItem = Map.copyOf(groupsByItem);
+            this.version = contentVersion(items, options);
+            this.builtAtNanos = System.nanoTime();
+        }
+
+        public String getRestaurantId() {
+            return restaurantId;
+        }
+
+        /**
+         * Hash of every price and availability flag in the snapshot. Identical menus
+         * get the same version on every node, so a cart priced against one version
+         * only needs repricing once it changes.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public Double getLatitude() {
+            return latitude;
+        }
+
+        public Double getLongitude() {
+            return longitude;
+        }
+
+        /** @return null if the item is not on this restaurant's menu */
+        public PricedItem item(String itemId) {
+            return items.get(itemId);
+        }
+
+        /** @return null if the option is not on this restaurant's menu */
+        public PricedOption option(String optionId) {
+            return options.get(optionId);
+        }
+
+        // Order-independent: entries are hashed separately and summed
+        private static long contentVersion(Map<String, PricedItem> items, Map<String, PricedOption> options) {
+            long version = 0;
+            for (PricedItem item : items.values()) {
+                version += mix(item.id().hashCode(), item.basePrice(), item.available() ? 1 : 0);
+            }
+            for (PricedOption option : options.values()) {
+                version += mix(option.id().hashCode(), option.extraPrice(), option.menuItemId().hashCode());
+            }
+            return version;
+        }
+
+        private static long mix(long a, long b, long c) {
+            long h = a * 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 31)) + b * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 29)) + c * 0x94D049BB133111EBL;
+            return h ^ (h >>> 32);
+        }
+
+        /** Option groups of an item with their selection rules; empty if it has none. */
+        public List<OptionGroupRule> groups(String itemId) {
+            return groupsByItem.getOrDefault(itemId, List.of());
+        }
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final MenuItemOptionRepository menuItemOptionRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${pricing.menu-cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    private final Map<String, PricedMenu> menus = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a rebuild that raced with one is not installed
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        hits = Counter.builder("pricing.menu.cache").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("pricing.menu.cache").tag("result", "miss").register(meterRegistry);
+        rebuildTimer = Timer.builder("pricing.menu.rebuild")
+                .description("Time to load and build a priced-menu snapshot")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("pricing.menu.cache.size", menus, Map::size).register(meterRegistry);
+    }
+
+    public PricedMenu get(String restaurantId) {
+        PricedMenu menu = menus.get(restaurantId);
+        if (menu != null && System.nanoTime() - menu.builtAtNanos < TimeUnit.SECONDS.toNanos(maxAgeSeconds)) {
+            hits.increment();
+            return menu;
+        }
+        misses.increment();
+
+        AtomicLong generation = generations.computeIfAbsent(restaurantId, id -> new AtomicLong());
+        long seen = generation.get();
+        PricedMenu built = rebuildTimer.record(() -> build(restaurantId));
+        menus.compute(restaurantId, (id, current) -> generation.get() == seen ? built : current);
+        return built;
+    }
+
+    /**
+     * Drops the snapshot now and again once the surrounding transaction commits,
+     * so a concurrent rebuild cannot cache the pre-commit menu.
+     */
+    public void invalidate(String restaurantId) {
+        evict(restaurantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(restaurantId);
+                }
+            });
+        }
+    }
+
+    private void evict(String restaurantId) {
+        generations.computeIfAbsent(restaurantId, id -> new AtomicLong()).incrementAndGet();
+        menus.remove(restaurantId);
+    }
+
+    private PricedMenu build(String restaurantId) {
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found"));
+
+        Map<String, PricedItem> items = new HashMap<>();
+        for (Object[] row : menuItemRepository.findPriceRowsByRestaurantId(restaurantId)) {
+            String id = (String) row[0];
+            items.put(id, new PricedItem(id, (String) row[1], Money.orZero((Long) row[2]), Boolean.TRUE.equals(row[3]),
+                    (String) row[4]));
+        }
+
+        Map<String, PricedOption> options = new HashMap<>();
+        for (Object[] row : menuItemOptionRepository.findPriceRowsByRestaurantId(restaurantId)) {
+            String id = (String) row[0];
+            options.put(id, new PricedOption(id, (String) row[1], Money.orZero((Long) row[2]), (String) row[3],
+                    (String) row[4], (String) row[5]));
+        }
+
+        Map<String, List<OptionGroupRule>> groupsByItem = new HashMap<>();
+        for (Object[] row : menuItemOptionRepository.findGroupRowsByRestaurantId(restaurantId)) {
+            OptionGroupRule group = new OptionGroupRule((String) row[0], (String) row[1], (String) row[2],
+                    Boolean.TRUE.equals(row[3]), Boolean.TRUE.equals(row[4]));
+            groupsByItem.computeIfAbsent(group.menuItemId(), id -> new ArrayList<>()).add(group);
+        }
+
+        Double latitude = restaurant.getAddress() != null ? restaurant.getAddress().getLatitude() : null;
+        Double longitude = restaurant.getAddress() != null ? restaurant.getAddress().getLongitude() : null;
+        log.debug("PRICING: Built menu snapshot for {} ({} items, {} options)", restaurantId, items.size(),
+                options.size());
+        return new PricedMenu(restaurantId, latitude, longitude, items, options, groupsByItem);
+    }
+}
@@ -1,15 +1,15 @@
 package com.fooddelivery.service;
 
+import com.fooddelivery.dto.CartDocument;
 import com.fooddelivery.dto.request.AddToCartRequest;
 import com.fooddelivery.dto.request.CalculatePriceRequest;
 import com.fooddelivery.dto.request.CartOptionRequest;
+import com.fooddelivery.dto.response.OfferQuoteResponse;
 import com.fooddelivery.dto.response.PricingResponse;
 import com.fooddelivery.entity.*;
 import com.fooddelivery.repository.AddressRepository;
-import com.fooddelivery.repository.MenuItemOptionRepository;
-import com.fooddelivery.repository.MenuItemRepository;
-import com.fooddelivery.repository.OfferRepository;
-import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.util.Geo;
+import com.fooddelivery.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -19,62 +19,43 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PricingService {
 
-    private final MenuItemRepository menuItemRepository;
-    private final MenuItemOptionRepository menuItemOptionRepository;
-    private final RestaurantRepository restaurantRepository;
+    private final PricedMenuCache pricedMenuCache;
     private final AddressRepository addressRepository;
-    private final OfferRepository offerRepository;
+    private final PromotionEngine promotionEngine;
+    private final EtaPredictor etaPredictor;
     private final com.fooddelivery.repository.UserRepository userRepository;
 
+    private static final long TAX_BASIS_POINTS = 500; // 5%
+    private static final long DELIVERY_BASE_FEE = Money.ofRupees(30);
+    private static final long DELIVERY_PER_KM = Money.ofRupees(10);
+    private static final long PREMIUM_FREE_DELIVERY_ABOVE = Money.ofRupees(199);
+
     public PricingResponse calculatePrice(CalculatePriceRequest request) {
-        Restaurant restaurant = restaurantRepository.findById(request.getRestaurantId())
-                .orElseThrow(() -> new RuntimeException("Restaurant not found"));
+        PricedMenuCache.PricedMenu menu = pricedMenuCache.get(request.getRestaurantId());
 
-        double subtotal = 0;
+        long subtotal = 0;
 
         for (AddToCartRequest itemReq : request.getItems()) {
-            MenuItem item = menuItemRepository.findById(itemReq.getItemId())
-                    .orElseThrow(() -> new RuntimeException("Item not found: " + itemReq.getItemId()));
+            PricedMenuCache.PricedItem item = menu.item(itemReq.getItemId());
+            if (item == null) {
+                throw new RuntimeException("Item not found: " + itemReq.getItemId());
+            }
+            if (!item.available()) {
+                throw new RuntimeException("Item is currently unavailable: " + item.name());
+            }
 
-            double itemPrice = item.getBasePrice();
+            long itemPrice = item.basePrice();
             if (itemReq.getOptions() != null) {
                 for (CartOptionRequest opt : itemReq.getOptions()) {
-                    MenuItemOption option = menuItemOptionRepository.findById(opt.getOptionId()).orElse(null);
-                    if (option != null) {
-                        itemPrice += option.getExtraPrice();
+                    PricedMenuCache.PricedOption option = menu.option(opt.getOptionId());
+                    if (option != null && option.menuItemId().equals(item.id())) {
+                        itemPrice = Money.add(itemPrice, option.extraPrice());
                     }
                 }
             }
-            subtotal += itemPrice * itemReq.getQuantity();
-        }
-
-        // Discount
-        double discount = 0;
-        String offerAppliedCode = null;
-        if (request.getOfferCode() != null && !request.getOfferCode().isEmpty()) {
-            Offer offer = offerRepository.findByCodeAndActiveTrue(request.getOfferCode())
-                    .orElseThrow(() -> new RuntimeException("Invalid offer code"));
-
-            // Validate usage limits, min order amount etc. here if needed
-            // For now assume valid if active
-
-            if ("PERCENTAGE".equalsIgnoreCase(offer.getDiscountType())) { // Assuming DiscountType is string or enum
-                discount = (subtotal * offer.getDiscountValue()) / 100;
-                if (offer.getMaxDiscountAmount() != null && discount > offer.getMaxDiscountAmount()) {
-                    discount = offer.getMaxDiscountAmount();
-                }
-            } else {
-                discount = offer.getDiscountValue();
-            }
-            offerAppliedCode = offer.getCode();
+            subtotal = Money.add(subtotal, Money.times(itemPrice, itemReq.getQuantity()));
         }
 
-        // Tax
-        double tax = (subtotal - discount) * 0.05; // 5% after discount? Usually on subtotal.
-        // Spec says: GST = subtotal * restaurant.taxRate.
-        // Let's assume on subtotal.
-        tax = subtotal * 0.05;
-
         // Fetch User to check Premium
         boolean isPremium = false;
         if (request.getUserId() != null) {
@@ -84,29 +65,31 @@ public class PricingService {
             }
         }
 
-        // Delivery Fee
-        double deliveryFee = 40.0;
         Address address = addressRepository.findById(request.getDeliveryAddressId())
                 .orElseThrow(() -> new RuntimeException("Delivery Address not found"));
 
-        // Calculate distance
-        double distance = calculateDistance(
-                restaurant.getAddress().getLatitude(), restaurant.getAddress().getLongitude(),
-                address.getLatitude(), address.getLongitude());
+        return quote(menu, subtotal, isPremium, address, request.getOfferCode(), request.getUserId());
+    }
 
-        if (distance <= 3) {
-            deliveryFee = 30; // Base
-        } else {
-            deliveryFee = 30 + (distance - 3) * 10;
-        }
+    /**
+     * Prices an already-computed subtotal against entities the caller has loaded.
+     * Only the offer usage counters are consulted, so checkout can price from the
+     * graph it fetched in bulk. Without a code the best auto-apply offer is used.
+     */
+    public PricingResponse quote(PricedMenuCache.PricedMenu menu, long subtotal, boolean isPremium,
+            Address address, String offerCode, String userId) {
+        long tax = tax(subtotal);
 
-        // Premium Benefit: Free Delivery if Distance <= 7km AND Order > 199
-        if (isPremium && distance <= 7.0 && subtotal > 199.0) {
-            deliveryFee = 0.0;
-        }
+        double distance = distanceKm(menu, address);
+        long deliveryFee = deliveryFee(distance, subtotal, isPremium);
 
-        // Ensure non-negative
-        double total = subtotal - discount + tax + deliveryFee;
+        // Discount, evaluated after the fee so delivery offers see the final fee
+        PromotionEngine.Applied offer = offerCode != null && !offerCode.isBlank()
+                ? promotionEngine.applyCode(offerCode, userId, menu.getRestaurantId(), subtotal, deliveryFee)
+                : promotionEngine.bestAutoOffer(userId, menu.getRestaurantId(), subtotal, deliveryFee);
+        long discount = offer != null ? offer.discount() : 0;
+
+        long total = Money.add(Money.subtract(subtotal, discount), Money.add(tax, deliveryFee));
 
         return PricingResponse.builder()
                 .subtotal(subtotal)
@@ -114,38 +97,106 @@ public class PricingService {
                 .tax(tax)
                 .deliveryFee(deliveryFee)
                 .total(total)
-                .offerApplied(offerAppliedCode)
-                .etaMinutes(35 + (int) (distance * 5)) // Rough ETA
+                .offerApplied(offer != null ? offer.offer().code() : null)
+                .etaMinutes(etaPredictor.quoteMinutes(menu.getRestaurantId(), distance))
                 .build();
     }
 
-    // Haversine
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+    /**
+     * Every offer that applies to the user's cart, best saving first. The cart,
+     * tax and delivery fee are priced once; each candidate only adds its discount.
+     */
+    public List<OfferQuoteResponse> rankOffers(CartDocument cart, String userId, String deliveryAddressId) {
+        if (cart.getLines().isEmpty()) {
+            return List.of();
+        }
+        PricedMenuCache.PricedMenu menu = pricedMenuCache.get(cart.getRestaurantId());
+
+        long subtotal = 0;
+        for (CartDocument.Line line : cart.getLines()) {
+            PricedMenuCache.PricedItem item = menu.item(line.getMenuItemId());
+            if (item == null || !item.available()) {
+                continue; // Checkout rejects the cart anyway, rank on what can be ordered
+            }
+            long unitPrice = item.basePrice();
+            for (CartDocument.LineOption selected : line.getOptions()) {
+                PricedMenuCache.PricedOption option = menu.option(selected.getOptionId());
+                if (option != null && option.menuItemId().equals(item.id())) {
+                    unitPrice = Money.add(unitPrice, option.extraPrice());
+                }
+            }
+            subtotal = Money.add(subtotal, Money.times(unitPrice, line.getQuantity()));
+        }
+
+        Address address = addressRepository.findByIdAndUserId(deliveryAddressId, userId)
+                .orElseThrow(() -> new RuntimeException("Delivery Address not found"));
+        long tax = tax(subtotal);
+        boolean isPremium = userRepository.findById(userId).map(User::isPremium).orElse(false);
+        long deliveryFee = deliveryFee(distanceKm(menu, address), subtotal, isPremium);
+        long totalBeforeDiscount = Money.add(subtotal, Money.add(tax, deliveryFee));
+
+        return promotionEngine.rank(userId, menu.getRestaurantId(), subtotal, deliveryFee, false).stream()
+                .map(applied -> OfferQuoteResponse.builder()
+                        .code(applied.offer().code())
+                        .title(applied.offer().title())
+                        .discountType(applied.offer().kind().name())
+                        .autoApply(applied.offer().autoApply())
+                        .discount(applied.discount())
+                        .total(Money.subtract(totalBeforeDiscount, applied.discount()))
+                        .build())
+                .toList();
+    }
+
+    /** GST on the subtotal. Spec says subtotal * restaurant.taxRate; 5% for now. */
+    public long tax(long subtotal) {
+        return Money.percent(subtotal, TAX_BASIS_POINTS, Money.Rounding.HALF_UP);
+    }
+
+    /** Fee before distance and premium adjustments, shown on the cart until an address is chosen. */
+    public long baseDeliveryFee() {
+        return DELIVERY_BASE_FEE;
+    }
+
+    private long deliveryFee(double distance, long subtotal, boolean isPremium) {
+        // Delivery Fee: 30 base up to 3 km, then 10 per km
+        long deliveryFee = DELIVERY_BASE_FEE;
+        if (distance > 3) {
+            deliveryFee = Money.add(deliveryFee, Money.scale(DELIVERY_PER_KM, distance - 3, Money.Rounding.HALF_UP));
+        }
+
+        // Premium Benefit: Free Delivery if Distance <= 7km AND Order > 199
+        if (isPremium && distance <= 7.0 && subtotal > PREMIUM_FREE_DELIVERY_ABOVE) {
+            deliveryFee = 0;
+        }
+        return deliveryFee;
+    }
+
+    private double distanceKm(PricedMenuCache.PricedMenu menu, Address address) {
+        if (menu.getLatitude() == null || menu.getLongitude() == null) {
+            throw new RuntimeException("Restaurant location not available");
+        }
+        return Geo.distanceKm(
+                menu.getLatitude(), menu.getLongitude(),
+                address.getLatitude(), address.getLongitude());
     }
 
-    // Rider Payout Logic
-    private final double BASE_PAY = 20.0;
-    private final double PER_KM = 6.0;
-    private final double PER_MIN = 0.5;
+    // Rider Payout Logic (paise)
+    private static final long BASE_PAY = Money.ofRupees(20);
+    private static final long PER_KM = Money.ofRupees(6);
+    private static final long PER_MIN = 50;
 
-    public double calculatePayout(double distanceKm, double durationMin, double surgeMultiplier) {
-        double payout = BASE_PAY
-                + (distanceKm * PER_KM)
-                + (durationMin * PER_MIN);
+    public long calculatePayout(double distanceKm, double durationMin, double surgeMultiplier) {
+        long payout = BASE_PAY
+                + Money.scale(PER_KM, distanceKm, Money.Rounding.HALF_UP)
+                + Money.scale(PER_MIN, durationMin, Money.Rounding.HALF_UP);
 
-        double total = payout * surgeMultiplier;
-        return Math.round(total * 100.0) / 100.0;
+        return Money.scale(payout, surgeMultiplier, Money.Rounding.HALF_UP);
     }
 
-    public double calculateCustomerFee(double distanceKm, double durationMin, double surgeMultiplier) {
-        return (distanceKm * 10 + durationMin * 1.5 + 20) * surgeMultiplier;
+    public long calculateCustomerFee(double distanceKm, double durationMin, double surgeMultiplier) {
+        long fee = Money.ofRupees(20)
+                + Money.scale(Money.ofRupees(10), distanceKm, Money.Rounding.HALF_UP)
+                + Money.scale(150, durationMin, Money.Rounding.HALF_UP);
+        return Money.scale(fee, surgeMultiplier, Money.Rounding.HALF_UP);
     }
 }
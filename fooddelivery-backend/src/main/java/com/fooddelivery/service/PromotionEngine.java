@@ -0,0 +1,409 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Offer;
+import com.fooddelivery.entity.OfferUsage;
+import com.fooddelivery.repository.OfferRepository;
+import com.fooddelivery.repository.OfferUsageRepository;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.util.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offer evaluation against an in-memory index compiled from the active offers
+ * (by code, by restaurant, platform-wide). Offers are reduced to primitives at
+ * compile time so evaluating a cart is arithmetic only; usage limits are checked
+ * against Redis counters with one MGET and enforced with INCR at checkout.
+ * OfferUsage rows are written asynchronously after the order commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionEngine {
+
+    public enum DiscountKind {
+        FLAT, PERCENTAGE, DELIVERY_DISCOUNT
+    }
+
+    public record CompiledOffer(String id, String code, String title, DiscountKind kind, long flatPaise,
+            long basisPoints, long maxDiscount, long minOrder, int perUserLimit, int totalLimit, long startsAtMillis,
+            long endsAtMillis, String restaurantId, boolean autoApply) {
+
+        public long discountFor(long subtotal, long deliveryFee) {
+            return switch (kind) {
+                case FLAT -> Money.min(flatPaise, subtotal);
+                case PERCENTAGE -> Money.min(Money.percent(subtotal, basisPoints, Money.Rounding.HALF_UP), maxDiscount);
+                case DELIVERY_DISCOUNT -> flatPaise > 0 ? Money.min(flatPaise, deliveryFee) : deliveryFee;
+            };
+        }
+
+        boolean liveAt(long nowMillis) {
+            return nowMillis >= startsAtMillis && nowMillis <= endsAtMillis;
+        }
+
+        boolean hasUsageLimit() {
+            return perUserLimit > 0 || totalLimit > 0;
+        }
+    }
+
+    public record Applied(CompiledOffer offer, long discount) {
+    }
+
+    private record Index(Map<String, CompiledOffer> byCode, Map<String, CompiledOffer[]> byRestaurant,
+            CompiledOffer[] platform) {
+        static final Index EMPTY = new Index(Map.of(), Map.of(), new CompiledOffer[0]);
+    }
+
+    private record PendingUsage(String offerId, String userId, String orderId, int attempts) {
+
+        PendingUsage retried() {
+            return new PendingUsage(offerId, userId, orderId, attempts + 1);
+        }
+    }
+
+    private static final CompiledOffer[] NONE = new CompiledOffer[0];
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private final OfferRepository offerRepository;
+    private final OfferUsageRepository offerUsageRepository;
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final RedisService redisService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${offers.index.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    @Value("${offers.usage.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${offers.usage.max-attempts:5}")
+    private int maxFlushAttempts;
+
+    private volatile Index index = Index.EMPTY;
+    private final ConcurrentLinkedQueue<PendingUsage> pendingUsages = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::flushUsages, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        flushUsages();
+    }
+
+    /** Recompiles the index from active offers. Cheap enough to run on a timer. */
+    public void refresh() {
+        try {
+            Map<String, CompiledOffer> byCode = new HashMap<>();
+            Map<String, List<CompiledOffer>> byRestaurant = new HashMap<>();
+            List<CompiledOffer> platform = new ArrayList<>();
+
+            for (Offer offer : offerRepository.findByActiveTrue()) {
+                CompiledOffer compiled = compile(offer);
+                byCode.put(normalize(compiled.code()), compiled);
+                if (compiled.restaurantId() == null) {
+                    platform.add(compiled);
+                } else {
+                    byRestaurant.computeIfAbsent(compiled.restaurantId(), id -> new ArrayList<>()).add(compiled);
+                }
+            }
+
+            Map<String, CompiledOffer[]> restaurantArrays = new HashMap<>();
+            byRestaurant.forEach((id, offers) -> restaurantArrays.put(id, offers.toArray(NONE)));
+            index = new Index(Map.copyOf(byCode), Map.copyOf(restaurantArrays), platform.toArray(NONE));
+        } catch (Exception e) {
+            log.error("OFFERS: Index refresh failed, keeping previous index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Validates a code the user typed.
+     *
+     * @throws RuntimeException with the reason the offer does not apply
+     */
+    public Applied applyCode(String code, String userId, String restaurantId, long subtotal, long deliveryFee) {
+        CompiledOffer offer = index.byCode().get(normalize(code));
+        if (offer == null) {
+            throw new RuntimeException("Invalid offer code");
+        }
+        if (offer.restaurantId() != null && !offer.restaurantId().equals(restaurantId)) {
+            throw new RuntimeException("Offer is not valid for this restaurant");
+        }
+        if (!offer.liveAt(System.currentTimeMillis())) {
+            throw new RuntimeException("Offer is not valid at this time");
+        }
+        if (subtotal < offer.minOrder()) {
+            throw new RuntimeException("Minimum order amount for this offer is " + Money.toRupees(offer.minOrder()));
+        }
+        if (offer.hasUsageLimit() && !usageAllowed(List.of(offer), userId)[0]) {
+            throw new RuntimeException("Offer usage limit reached");
+        }
+        return new Applied(offer, offer.discountFor(subtotal, deliveryFee));
+    }
+
+    /** The auto-applicable offer with the largest discount for this cart, or null. */
+    public Applied bestAutoOffer(String userId, String restaurantId, long subtotal, long deliveryFee) {
+        List<Applied> ranked = rank(userId, restaurantId, subtotal, deliveryFee, true);
+        return ranked.isEmpty() ? null : ranked.get(0);
+    }
+
+    /**
+     * Every offer that applies to the cart, best saving first. Limits are checked
+     * in one Redis round trip for all limited candidates.
+     */
+    public List<Applied> rank(String userId, String restaurantId, long subtotal, long deliveryFee,
+            boolean autoApplyOnly) {
+        Index current = index;
+        long now = System.currentTimeMillis();
+
+        List<Applied> candidates = new ArrayList<>();
+        collect(current.byRestaurant().getOrDefault(restaurantId, NONE), now, subtotal, deliveryFee, autoApplyOnly,
+                candidates);
+        collect(current.platform(), now, subtotal, deliveryFee, autoApplyOnly, candidates);
+        candidates.sort((a, b) -> Long.compare(b.discount(), a.discount()));
+
+        List<CompiledOffer> limited = new ArrayList<>();
+        for (Applied applied : candidates) {
+            if (applied.offer().hasUsageLimit()) {
+                limited.add(applied.offer());
+            }
+        }
+        if (limited.isEmpty()) {
+            return candidates;
+        }
+
+        boolean[] allowed = usageAllowed(limited, userId);
+        List<Applied> eligible = new ArrayList<>(candidates.size());
+        int l = 0;
+        for (Applied applied : candidates) {
+            if (!applied.offer().hasUsageLimit() || allowed[l++]) {
+                eligible.add(applied);
+            }
+        }
+        return eligible;
+    }
+
+    /**
+     * Claims one use of the offer for a new order. Counters are rolled back if the
+     * surrounding transaction rolls back; the OfferUsage row is queued once it
+     * commits.
+     *
+     * @throws RuntimeException if a usage limit was reached in the meantime
+     */
+    public void redeem(String code, String userId, String orderId) {
+        CompiledOffer offer = index.byCode().get(normalize(code));
+        if (offer == null) {
+            throw new RuntimeException("Invalid offer code");
+        }
+
+        List<String> claimed = new ArrayList<>(2);
+        if (offer.totalLimit() > 0) {
+            claim(offer, totalKey(offer), offer.totalLimit(), () -> offerUsageRepository.countByOfferId(offer.id()),
+                    claimed);
+        }
+        if (offer.perUserLimit() > 0) {
+            claim(offer, userKey(offer, userId), offer.perUserLimit(),
+                    () -> offerUsageRepository.countByOfferIdAndUserId(offer.id(), userId), claimed);
+        }
+
+        PendingUsage usage = new PendingUsage(offer.id(), userId, orderId, 0);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingUsages.add(usage);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pendingUsages.add(usage);
+                } else {
+                    claimed.forEach(redisService::decrement);
+                }
+            }
+        });
+    }
+
+    private void claim(CompiledOffer offer, String key, int limit, java.util.function.LongSupplier dbCount,
+            List<String> claimed) {
+        if (!redisService.exists(key)) {
+            // Seed from the table after a Redis restart; counters outlive the offer by a month
+            redisService.setIfAbsent(key, String.valueOf(dbCount.getAsLong()), counterTtl(offer));
+        }
+        Long used = redisService.increment(key);
+        claimed.add(key);
+        if (used != null && used > limit) {
+            claimed.forEach(redisService::decrement);
+            throw new RuntimeException("Offer usage limit reached");
+        }
+    }
+
+    private boolean[] usageAllowed(List<CompiledOffer> offers, String userId) {
+        List<String> keys = new ArrayList<>(offers.size() * 2);
+        for (CompiledOffer offer : offers) {
+            keys.add(totalKey(offer));
+            keys.add(userId != null ? userKey(offer, userId) : totalKey(offer));
+        }
+        List<String> values = redisService.multiGet(keys);
+
+        boolean[] allowed = new boolean[offers.size()];
+        for (int i = 0; i < offers.size(); i++) {
+            CompiledOffer offer = offers.get(i);
+            long total = offer.totalLimit() > 0
+                    ? countOrSeed(offer, keys.get(2 * i), values.get(2 * i),
+                            () -> offerUsageRepository.countByOfferId(offer.id()))
+                    : 0;
+            long perUser = userId != null && offer.perUserLimit() > 0
+                    ? countOrSeed(offer, keys.get(2 * i + 1), values.get(2 * i + 1),
+                            () -> offerUsageRepository.countByOfferIdAndUserId(offer.id(), userId))
+                    : 0;
+            allowed[i] = (offer.totalLimit() <= 0 || total < offer.totalLimit())
+                    && (offer.perUserLimit() <= 0 || perUser < offer.perUserLimit());
+        }
+        return allowed;
+    }
+
+    // A missing counter (new offer, evicted or restarted Redis) is not zero uses; seed it like claim() does
+    private long countOrSeed(CompiledOffer offer, String key, String value, java.util.function.LongSupplier dbCount) {
+        if (value != null) {
+            return Long.parseLong(value);
+        }
+        long used = dbCount.getAsLong();
+        redisService.setIfAbsent(key, String.valueOf(used), counterTtl(offer));
+        return used;
+    }
+
+    private void collect(CompiledOffer[] offers, long now, long subtotal, long deliveryFee, boolean autoApplyOnly,
+            List<Applied> out) {
+        if (offers.length >= PARALLEL_THRESHOLD) {
+            // Large restaurant or platform sets: evaluation is pure arithmetic, split across cores
+            Arrays.stream(offers).parallel()
+                    .map(offer -> evaluate(offer, now, subtotal, deliveryFee, autoApplyOnly))
+                    .filter(Objects::nonNull)
+                    .forEachOrdered(out::add);
+            return;
+        }
+        for (CompiledOffer offer : offers) {
+            Applied applied = evaluate(offer, now, subtotal, deliveryFee, autoApplyOnly);
+            if (applied != null) {
+                out.add(applied);
+            }
+        }
+    }
+
+    private static Applied evaluate(CompiledOffer offer, long now, long subtotal, long deliveryFee,
+            boolean autoApplyOnly) {
+        if ((autoApplyOnly && !offer.autoApply()) || !offer.liveAt(now) || subtotal < offer.minOrder()) {
+            return null;
+        }
+        long discount = offer.discountFor(subtotal, deliveryFee);
+        return discount > 0 ? new Applied(offer, discount) : null;
+    }
+
+    private void flushUsages() {
+        if (pendingUsages.isEmpty()) {
+            return;
+        }
+        List<PendingUsage> batch = new ArrayList<>();
+        PendingUsage next;
+        while (batch.size() < 500 && (next = pendingUsages.poll()) != null) {
+            batch.add(next);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> offerUsageRepository.saveAll(batch.stream()
+                    .map(u -> OfferUsage.builder()
+                            .offer(offerRepository.getReferenceById(u.offerId()))
+                            .user(userRepository.getReferenceById(u.userId()))
+                            .order(orderRepository.getReferenceById(u.orderId()))
+                            .build())
+                    .toList()));
+        } catch (Exception e) {
+            log.error("OFFERS: Failed to write {} offer usages: {}", batch.size(), e.getMessage());
+            for (PendingUsage usage : batch) {
+                if (usage.attempts() + 1 < maxFlushAttempts) {
+                    pendingUsages.add(usage.retried());
+                } else {
+                    // Dropped rather than blocking the queue; the Redis counter still holds the use
+                    log.error("OFFERS: Giving up on usage of offer {} by user {} for order {} after {} attempts",
+                            usage.offerId(), usage.userId(), usage.orderId(), maxFlushAttempts);
+                }
+            }
+        }
+    }
+
+    private static CompiledOffer compile(Offer offer) {
+        DiscountKind kind;
+        try {
+            kind = DiscountKind.valueOf(String.valueOf(offer.getDiscountType()).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            kind = DiscountKind.FLAT;
+        }
+        double value = offer.getDiscountValue() != null ? offer.getDiscountValue() : 0.0;
+
+        return new CompiledOffer(
+                offer.getId(),
+                offer.getCode(),
+                offer.getTitle(),
+                kind,
+                kind == DiscountKind.PERCENTAGE ? 0 : Money.ofRupees(value),
+                kind == DiscountKind.PERCENTAGE ? Math.round(value * 100.0) : 0,
+                offer.getMaxDiscountAmount() != null ? offer.getMaxDiscountAmount() : Long.MAX_VALUE,
+                Money.orZero(offer.getMinOrderAmount()),
+                offer.getUsageLimitPerUser() != null ? offer.getUsageLimitPerUser() : 0,
+                offer.getTotalUsageLimit() != null ? offer.getTotalUsageLimit() : 0,
+                toMillis(offer.getStartDate(), Long.MIN_VALUE),
+                toMillis(offer.getEndDate(), Long.MAX_VALUE),
+                offer.getApplicableRestaurantId(),
+                offer.isAutoApply());
+    }
+
+    private static long toMillis(LocalDateTime time, long fallback) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : fallback;
+    }
+
+    private static Duration counterTtl(CompiledOffer offer) {
+        long remaining = offer.endsAtMillis() == Long.MAX_VALUE ? Duration.ofDays(365).toMillis()
+                : Math.max(0, offer.endsAtMillis() - System.currentTimeMillis());
+        return Duration.ofMillis(remaining).plusDays(30);
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String totalKey(CompiledOffer offer) {
+        return "offer_usage:" + offer.id();
+    }
+
+    private static String userKey(CompiledOffer offer, String userId) {
+        return "offer_usage:" + offer.id() + ":" + userId;
+    }
+}
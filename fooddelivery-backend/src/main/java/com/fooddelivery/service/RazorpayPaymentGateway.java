@@ -0,0 +1,75 @@
+package com.fooddelivery.service;
+
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import jakarta.annotation.PostConstruct;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    @Value("${razorpay.key.id}")
+    private String keyId;
+
+    @Value("${razorpay.key.secret}")
+    private String keySecret;
+
+    @Value("${razorpay.webhook.secret:}")
+    private String webhookSecret;
+
+    private RazorpayClient client;
+
+    @PostConstruct
+    public void init() throws RazorpayException {
+        // Initialize Razorpay Client
+        this.client = new RazorpayClient(keyId, keySecret);
+    }
+
+    @Override
+    public String createOrder(long amountPaise, String receipt) {
+        try {
+            JSONObject options = new JSONObject();
+            options.put("amount", amountPaise);
+            options.put("currency", "INR");
+            options.put("receipt", receipt);
+            options.put("payment_capture", 1); // Auto capture
+
+            com.razorpay.Order order = client.orders.create(options);
+            return order.get("id");
+
+        } catch (RazorpayException e) {
+            throw new RuntimeException("Razorpay Order Creation Failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean verifyPayment(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        try {
+            JSONObject options = new JSONObject();
+            options.put("razorpay_order_id", razorpayOrderId);
+            options.put("razorpay_payment_id", razorpayPaymentId);
+            options.put("razorpay_signature", signature);
+
+            return Utils.verifyPaymentSignature(options, keySecret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean verifyWebhook(String payload, String signature) {
+        if (webhookSecret == null || webhookSecret.isEmpty() || signature == null) {
+            return false;
+        }
+        try {
+            return Utils.verifyWebhookSignature(payload, signature, webhookSecret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.CartDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carts as one JSON document per user in Redis, so a cart operation is a single
+ * key read and write with no SQL. With cart.write-behind.enabled, carts changed
+ * since the last run are snapshotted to the cart tables in the background, and a
+ * cart missing from Redis (expired or evicted) is read back from that snapshot.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "cart.store", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart:";
+
+    private final RedisService redisService;
+    private final JpaCartStore jpaCartStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cart.redis.ttl-days:7}")
+    private long ttlDays;
+
+    @Value("${cart.write-behind.enabled:true}")
+    private boolean writeBehind;
+
+    @Value("${cart.write-behind.interval-ms:5000}")
+    private long writeBehindIntervalMs;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void start() {
+        if (writeBehind) {
+            scheduler.scheduleWithFixedDelay(this::flush, writeBehindIntervalMs, writeBehindIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        if (writeBehind) {
+            flush();
+        }
+    }
+
+    @Override
+    public CartDocument load(String userId) {
+        String json = redisService.get(KEY_PREFIX + userId);
+        if (json != null) {
+            return read(json);
+        }
+        if (!writeBehind) {
+            return null;
+        }
+        CartDocument snapshot = jpaCartStore.load(userId);
+        if (snapshot != null && !snapshot.getLines().isEmpty()) {
+            redisService.set(KEY_PREFIX + userId, write(snapshot), Duration.ofDays(ttlDays));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void save(CartDocument cart) {
+        if (cart.getCartId() == null) {
+            cart.setCartId(UUID.randomUUID().toString());
+        }
+        for (CartDocument.Line line : cart.getLines()) {
+            if (line.getId() == null) {
+                line.setId(UUID.randomUUID().toString());
+            }
+        }
+        redisService.set(KEY_PREFIX + cart.getUserId(), write(cart), Duration.ofDays(ttlDays));
+        if (writeBehind) {
+            dirty.add(cart.getUserId());
+        }
+    }
+
+    @Override
+    public void delete(String userId) {
+        Runnable delete = () -> {
+            redisService.delete(KEY_PREFIX + userId);
+            if (writeBehind) {
+                dirty.add(userId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete.run();
+            return;
+        }
+        // Checkout clears the cart; keep it if the order does not commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete.run();
+            }
+        });
+    }
+
+    /** Writes every cart changed since the last run to the cart tables. */
+    private void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> userIds = new ArrayList<>(dirty);
+        dirty.removeAll(userIds);
+        for (String userId : userIds) {
+            try {
+                String json = redisService.get(KEY_PREFIX + userId);
+                CartDocument cart = json != null ? read(json) : null;
+                if (cart == null || cart.getLines().isEmpty()) {
+                    jpaCartStore.delete(userId);
+                } else {
+                    jpaCartStore.save(cart);
+                }
+            } catch (Exception e) {
+                log.error("CART: Write-behind failed for user {}, retrying: {}", userId, e.getMessage());
+                dirty.add(userId);
+            }
+        }
+    }
+
+    private CartDocument read(String json) {
+        try {
+            return objectMapper.readValue(json, CartDocument.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read cart", e);
+        }
+    }
+
+    private String write(CartDocument cart) {
+        try {
+            return objectMapper.writeValueAsString(cart);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to write cart", e);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.geo.Point;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.redis.connection.RedisGeoCommands;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,6 +20,10 @@ public class RedisService {
 
     private final StringRedisTemplate redisTemplate;
     private static final String RIDER_GEO_KEY = "riders:geo";
+    // One script, so subscribers receive the messages in counter order whichever node sent them
+    private static final DefaultRedisScript<Long> INCREMENT_AND_PUBLISH = new DefaultRedisScript<>(
+            "local n = redis.call('INCR', KEYS[1]) redis.call('PUBLISH', ARGV[1], n .. '|' .. ARGV[2]) return n",
+            Long.class);
 
     public void updateRiderLocation(String riderId, double lat, double lng) {
         redisTemplate.opsForGeo().add(RIDER_GEO_KEY, new Point(lng, lat), riderId);
@@ -88,7 +93,57 @@ public class RedisService {
         return val != null ? Integer.parseInt(val) : 0;
     }
 
+    public String get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    public void set(String key, String value, java.time.Duration ttl) {
+        redisTemplate.opsForValue().set(key, value, ttl);
+    }
+
+    public boolean setIfAbsent(String key, String value, java.time.Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, ttl));
+    }
+
+    public Long decrement(String key) {
+        return redisTemplate.opsForValue().decrement(key);
+    }
+
+    /** One round trip for many keys; missing keys come back as null. */
+    public List<String> multiGet(List<String> keys) {
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : java.util.Collections.nCopies(keys.size(), null);
+    }
+
     public boolean exists(String key) {
         return Boolean.TRUE.equals(redisTemplate.hasKey(key));
     }
+
+    public void delete(String key) {
+        redisTemplate.delete(key);
+    }
+
+    public void addToSet(String key, java.time.Duration ttl, String... members) {
+        redisTemplate.opsForSet().add(key, members);
+        redisTemplate.expire(key, ttl);
+    }
+
+    public void removeFromSet(String key, Object... members) {
+        redisTemplate.opsForSet().remove(key, members);
+    }
+
+    /** @return the members, empty if the key does not exist */
+    public java.util.Set<String> members(String key) {
+        java.util.Set<String> members = redisTemplate.opsForSet().members(key);
+        return members != null ? members : java.util.Set.of();
+    }
+
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /** Increments the counter and publishes "&lt;new value&gt;|message" atomically. */
+    public Long incrementAndPublish(String counterKey, String channel, String message) {
+        return redisTemplate.execute(INCREMENT_AND_PUBLISH, List.of(counterKey), channel, message);
+    }
 }
@@ -0,0 +1,214 @@
+package com.fooddelivery.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.response.RestaurantResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache of mapped restaurants and city search pages: a bounded in-process
+ * near cache in front of Redis JSON, so a repeat read skips the restaurant, owner and
+ * cuisine selects and the mapping.
+ *
+ * RestaurantService evicts a restaurant on every write to it, immediately and again
+ * after commit. Redis entries are keyed by a generation: an eviction bumps the
+ * restaurant's own generation and the search-page one (so all pages go at once),
+ * which also strands whatever a load that raced with the write stores afterwards.
+ * Evictions are published on restaurant-cache-evict so every node drops its near
+ * copies. Near entries also
+ * expire after restaurant-cache.near.max-age-seconds in case a message is lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantCache {
+
+    private static final String CHANNEL = "restaurant-cache-evict";
+    private static final String KEY_PREFIX = "restaurant:";
+    private static final String GENERATION_PREFIX = "restaurant:gen:";
+    private static final String SEARCH_PREFIX = "restaurant_search:";
+    private static final String SEARCH_GENERATION_KEY = "restaurant_search:gen";
+    private static final TypeReference<List<RestaurantResponse>> PAGE = new TypeReference<>() {
+    };
+
+    private record Near<T>(T value, long cachedAtMillis, long loadedAtNanos) {
+    }
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${restaurant-cache.near.max-age-seconds:60}")
+    private long nearMaxAgeSeconds;
+
+    @Value("${restaurant-cache.near.max-entries:10000}")
+    private int nearMaxEntries;
+
+    @Value("${restaurant-cache.redis.ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    @Value("${restaurant-cache.search.ttl-minutes:5}")
+    private long searchTtlMinutes;
+
+    private final Map<String, Near<RestaurantResponse>> restaurants = new ConcurrentHashMap<>();
+    private final Map<String, Near<List<RestaurantResponse>>> searchPages = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a load that raced with one is not cached locally
+    private final AtomicLong generation = new AtomicLong();
+
+    private Counter nearHits;
+    private Counter redisHits;
+    private Counter misses;
+    private Timer servedAge;
+    private Timer invalidationLag;
+
+    @PostConstruct
+    public void init() {
+        nearHits = Counter.builder("restaurant.cache").tag("tier", "near").register(meterRegistry);
+        redisHits = Counter.builder("restaurant.cache").tag("tier", "redis").register(meterRegistry);
+        misses = Counter.builder("restaurant.cache").tag("tier", "miss").register(meterRegistry);
+        servedAge = Timer.builder("restaurant.cache.served-age")
+                .description("Age of cached restaurant data when served")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        invalidationLag = Timer.builder("restaurant.cache.invalidation.lag")
+                .description("Publish-to-receive delay of cross-node evictions")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.cache.near.size", restaurants, Map::size).register(meterRegistry);
+
+        listenerContainer.addMessageListener((message, pattern) -> onEvict(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(CHANNEL));
+    }
+
+    public RestaurantResponse get(String restaurantId, Supplier<RestaurantResponse> loader) {
+        String redisKey = KEY_PREFIX + restaurantId + ":" + redisService.getInt(GENERATION_PREFIX + restaurantId);
+        return lookup(restaurants, redisKey, restaurantId, RestaurantResponse.class, null,
+                Duration.ofMinutes(redisTtlMinutes), loader);
+    }
+
+    public List<RestaurantResponse> search(String city, Supplier<List<RestaurantResponse>> loader) {
+        String normalized = city.trim().toLowerCase(Locale.ROOT);
+        String redisKey = SEARCH_PREFIX + redisService.getInt(SEARCH_GENERATION_KEY) + ":" + normalized;
+        return lookup(searchPages, redisKey, normalized, null, PAGE, Duration.ofMinutes(searchTtlMinutes), loader);
+    }
+
+    /** Evicts the restaurant and all search pages now and again once the surrounding transaction commits. */
+    public void evict(String restaurantId) {
+        evictEverywhere(restaurantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(restaurantId);
+                }
+            });
+        }
+    }
+
+    private void evictEverywhere(String restaurantId) {
+        evictNear(restaurantId);
+        try {
+            redisService.increment(GENERATION_PREFIX + restaurantId);
+            redisService.increment(SEARCH_GENERATION_KEY);
+            redisService.publish(CHANNEL, restaurantId + "|" + System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("RESTAURANT_CACHE: Could not evict {} in Redis: {}", restaurantId, e.getMessage());
+        }
+    }
+
+    private void onEvict(String message) {
+        int separator = message.indexOf('|');
+        if (separator < 0) {
+            return;
+        }
+        evictNear(message.substring(0, separator));
+        try {
+            long lag = System.currentTimeMillis() - Long.parseLong(message.substring(separator + 1));
+            invalidationLag.record(Math.max(0, lag), TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private void evictNear(String restaurantId) {
+        generation.incrementAndGet();
+        restaurants.remove(restaurantId);
+        searchPages.clear();
+    }
+
+    private <T> T lookup(Map<String, Near<T>> near, String redisKey, String nearKey, Class<T> type,
+            TypeReference<T> typeRef, Duration ttl, Supplier<T> loader) {
+        Near<T> local = near.get(nearKey);
+        if (local != null
+                && System.nanoTime() - local.loadedAtNanos() < TimeUnit.SECONDS.toNanos(nearMaxAgeSeconds)) {
+            nearHits.increment();
+            servedAge.record(Math.max(0, System.currentTimeMillis() - local.cachedAtMillis()), TimeUnit.MILLISECONDS);
+            return local.value();
+        }
+
+        long seen = generation.get();
+        try {
+            String cached = redisService.get(redisKey);
+            if (cached != null) {
+                int separator = cached.indexOf('|');
+                long cachedAt = Long.parseLong(cached.substring(0, separator));
+                String json = cached.substring(separator + 1);
+                T value = type != null ? objectMapper.readValue(json, type) : objectMapper.readValue(json, typeRef);
+                redisHits.increment();
+                servedAge.record(Math.max(0, System.currentTimeMillis() - cachedAt), TimeUnit.MILLISECONDS);
+                putNear(near, nearKey, new Near<>(value, cachedAt, System.nanoTime()), seen);
+                return value;
+            }
+        } catch (Exception e) {
+            log.warn("RESTAURANT_CACHE: Redis read of {} failed: {}", redisKey, e.getMessage());
+        }
+
+        misses.increment();
+        T value = loader.get();
+        long now = System.currentTimeMillis();
+        try {
+            redisService.set(redisKey, now + "|" + objectMapper.writeValueAsString(value), ttl);
+        } catch (Exception e) {
+            log.warn("RESTAURANT_CACHE: Redis write of {} failed: {}", redisKey, e.getMessage());
+        }
+        putNear(near, nearKey, new Near<>(value, now, System.nanoTime()), seen);
+        return value;
+    }
+
+    private <T> void putNear(Map<String, Near<T>> near, String key, Near<T> entry, long seenGeneration) {
+        if (generation.get() != seenGeneration) {
+            return;
+        }
+        if (near.size() >= nearMaxEntries) {
+            // Approximate bound: drop an arbitrary tenth rather than track recency
+            Iterator<String> it = near.keySet().iterator();
+            for (int i = 0; i < nearMaxEntries / 10 + 1 && it.hasNext(); i++) {
+                it.next();
+                it.remove();
+            }
+        }
+        near.put(key, entry);
+    }
+}
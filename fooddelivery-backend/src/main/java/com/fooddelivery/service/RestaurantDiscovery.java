@@ -0,0 +1,243 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.response.NearbyRestaurantResponse;
+import com.fooddelivery.dto.response.RestaurantResponse;
+import com.fooddelivery.entity.Restaurant;
+import com.fooddelivery.entity.RestaurantStatus;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.util.Geo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory spatial index of discoverable (approved or active) restaurants for
+ * location-based discovery. Restaurants are bucketed into a fixed lat/lng grid, so a
+ * radius query only visits the few cells that overlap the circle and never touches
+ * the database; responses are mapped once when a restaurant is indexed. Open/closed
+ * comes from RestaurantSchedule; ETAs include the wait KitchenLoad expects, and
+ * saturated kitchens are listed after the ones that can take an order.
+ *
+ * The grid is rebuilt at startup and every discovery.index.rebuild-minutes;
+ * RestaurantService refreshes single restaurants after status and profile edits commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantDiscovery {
+
+    public static final Set<RestaurantStatus> DISCOVERABLE = EnumSet.of(RestaurantStatus.APPROVED,
+            RestaurantStatus.ACTIVE);
+
+    // About 5.5 km of latitude: a 10 km radius spans at most 5 x 5 cells
+    private static final double CELL_DEGREES = 0.05;
+
+    private record Entry(String id, double latitude, double longitude, long cell, RestaurantResponse response) {
+    }
+
+    private static final class Grid {
+        private final Map<Long, Map<String, Entry>> cells = new ConcurrentHashMap<>();
+        private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+
+        void put(Entry entry) {
+            Entry previous = byId.put(entry.id(), entry);
+            if (previous != null && previous.cell() != entry.cell()) {
+                removeFromCell(previous);
+            }
+            cells.computeIfAbsent(entry.cell(), c -> new ConcurrentHashMap<>()).put(entry.id(), entry);
+        }
+
+        void remove(String id) {
+            Entry previous = byId.remove(id);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+        }
+
+        private void removeFromCell(Entry entry) {
+            Map<String, Entry> cell = cells.get(entry.cell());
+            if (cell != null) {
+                cell.remove(entry.id());
+            }
+        }
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantSchedule restaurantSchedule;
+    private final KitchenLoad kitchenLoad;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${discovery.max-radius-km:15}")
+    private double maxRadiusKm;
+
+    @Value("${discovery.index.rebuild-minutes:10}")
+    private long rebuildMinutes;
+
+    @Value("${discovery.eta.prep-minutes:15}")
+    private int prepMinutes;
+
+    @Value("${discovery.eta.rider-speed-kmph:20}")
+    private double riderSpeedKmph;
+
+    private volatile Grid grid = new Grid();
+    private volatile boolean rebuilding;
+    // Refreshes that raced with a rebuild, re-applied to the new grid
+    private final Set<String> refreshedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor();
+
+    private Timer queryTimer;
+
+    @PostConstruct
+    public void init() {
+        queryTimer = Timer.builder("discovery.nearby")
+                .description("Radius queries against the restaurant grid")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("discovery.index.size", this, d -> d.grid.byId.size()).register(meterRegistry);
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Discoverable restaurants within the radius, soonest first; busy kitchens go last.
+     * The radius is capped at discovery.max-radius-km.
+     */
+    public List<NearbyRestaurantResponse> nearby(double latitude, double longitude, Double radiusKm,
+            boolean openNowOnly, int limit) {
+        return queryTimer.record(() -> {
+            double radius = radiusKm != null && radiusKm > 0 ? Math.min(radiusKm, maxRadiusKm) : maxRadiusKm;
+            double latSpan = radius / Geo.KM_PER_DEGREE_LAT;
+            double lngSpan = radius / (Geo.KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+            Grid current = grid;
+            List<NearbyRestaurantResponse> hits = new ArrayList<>();
+            for (int row = index(latitude - latSpan); row <= index(latitude + latSpan); row++) {
+                for (int col = index(longitude - lngSpan); col <= index(longitude + lngSpan); col++) {
+                    Map<String, Entry> cell = current.cells.get(cellKey(row, col));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Entry entry : cell.values()) {
+                        double distance = Geo.distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+                        if (distance > radius) {
+                            continue;
+                        }
+                        boolean open = restaurantSchedule.isOpen(entry.id());
+                        if (openNowOnly && !open) {
+                            continue;
+                        }
+                        hits.add(new NearbyRestaurantResponse(entry.response(), Math.round(distance * 100) / 100.0,
+                                etaMinutes(distance) + kitchenLoad.extraMinutes(entry.id()), open,
+                                kitchenLoad.isSaturated(entry.id())));
+                    }
+                }
+            }
+            hits.sort(Comparator.comparing(NearbyRestaurantResponse::isBusy)
+                    .thenComparingInt(NearbyRestaurantResponse::getEtaMinutes)
+                    .thenComparingDouble(NearbyRestaurantResponse::getDistanceKm));
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        });
+    }
+
+    /** Re-indexes one restaurant once the surrounding transaction commits. */
+    public void refresh(String restaurantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshNow(restaurantId);
+                }
+            });
+        } else {
+            refreshNow(restaurantId);
+        }
+    }
+
+    private void refreshNow(String restaurantId) {
+        try {
+            if (rebuilding) {
+                refreshedDuringRebuild.add(restaurantId);
+            }
+            Entry entry = restaurantRepository.findWithOwnerById(restaurantId).map(this::toEntry).orElse(null);
+            if (entry != null) {
+                grid.put(entry);
+            } else {
+                grid.remove(restaurantId);
+            }
+        } catch (Exception e) {
+            log.error("DISCOVERY: Could not refresh restaurant {}: {}", restaurantId, e.getMessage());
+        }
+    }
+
+    void rebuild() {
+        rebuilding = true;
+        try {
+            long start = System.nanoTime();
+            Grid fresh = new Grid();
+            for (Restaurant restaurant : restaurantRepository.findByStatusIn(DISCOVERABLE)) {
+                Entry entry = toEntry(restaurant);
+                if (entry != null) {
+                    fresh.put(entry);
+                }
+            }
+            grid = fresh;
+            log.info("DISCOVERY: Indexed {} restaurants in {} ms", fresh.byId.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("DISCOVERY: Rebuild failed, keeping the previous index: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+        for (String id : List.copyOf(refreshedDuringRebuild)) {
+            refreshedDuringRebuild.remove(id);
+            refreshNow(id);
+        }
+    }
+
+    // null if the restaurant is not discoverable or has no location
+    private Entry toEntry(Restaurant restaurant) {
+        if (!DISCOVERABLE.contains(restaurant.getStatus()) || restaurant.getAddress() == null
+                || restaurant.getAddress().getLatitude() == null || restaurant.getAddress().getLongitude() == null) {
+            return null;
+        }
+        double latitude = restaurant.getAddress().getLatitude();
+        double longitude = restaurant.getAddress().getLongitude();
+        return new Entry(restaurant.getId(), latitude, longitude, cellKey(index(latitude), index(longitude)),
+                RestaurantService.mapToResponse(restaurant));
+    }
+
+    private int etaMinutes(double distanceKm) {
+        return prepMinutes + (int) Math.ceil(distanceKm / riderSpeedKmph * 60);
+    }
+
+    private static int index(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,288 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.RestaurantStatus;
+import com.fooddelivery.repository.RestaurantRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open/closed state of every restaurant that can take orders, kept in memory and
+ * flipped on schedule instead of being worked out per request.
+ *
+ * Opening hours are parsed once into a minute-of-week bitset; restaurants with the
+ * same hours share one. Each restaurant sits in the slot of a one-minute timer wheel
+ * (one slot per minute of the week) for its next transition, and a ticker flips
+ * only the restaurants in the slots it passes, then files them under their
+ * following transition. {@link #isOpen} is a map lookup, so discovery and carts can
+ * check it on every request.
+ *
+ * A restaurant is open when it is APPROVED or ACTIVE and inside its hours; an owner
+ * setting CLOSED closes it at once. RestaurantService refreshes a restaurant after
+ * status or hours edits commit; the whole schedule is reloaded every
+ * schedule.reload-minutes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantSchedule {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    /** Hours over one week, Monday 00:00 = minute 0. */
+    static final class WeekSchedule {
+        private final BitSet minutes;
+        private final boolean alwaysOpen;
+
+        private WeekSchedule(BitSet minutes) {
+            this.minutes = minutes;
+            this.alwaysOpen = minutes.cardinality() == MINUTES_PER_WEEK;
+        }
+
+        boolean openAt(int minuteOfWeek) {
+            return minutes.get(minuteOfWeek);
+        }
+
+        /** @return the next minute at which the state changes, or -1 if it never does */
+        int nextTransition(int minuteOfWeek) {
+            if (alwaysOpen || minutes.isEmpty()) {
+                return -1;
+            }
+            boolean open = minutes.get(minuteOfWeek);
+            int next = open ? minutes.nextClearBit(minuteOfWeek + 1) : minutes.nextSetBit(minuteOfWeek + 1);
+            if (next < 0 || next >= MINUTES_PER_WEEK) {
+                next = open ? minutes.nextClearBit(0) : minutes.nextSetBit(0); // Wraps past Sunday midnight
+            }
+            return next;
+        }
+    }
+
+    private static final class Slot {
+        private final WeekSchedule schedule;
+        private final boolean orderable;
+        private volatile boolean open;
+        private volatile int nextTransition = -1;
+
+        private Slot(WeekSchedule schedule, boolean orderable) {
+            this.schedule = schedule;
+            this.orderable = orderable;
+        }
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${schedule.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Value("${schedule.reload-minutes:60}")
+    private long reloadMinutes;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    // Identical hours share one bitset
+    private final Map<String, WeekSchedule> interned = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<String>[] wheel = new Set[MINUTES_PER_WEEK];
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+    private ZoneId zoneId;
+    private int lastTick = -1;
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+        for (int i = 0; i < MINUTES_PER_WEEK; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        Gauge.builder("restaurants.open", openCount, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("restaurants.scheduled", slots, Map::size).register(meterRegistry);
+
+        reload();
+        long untilNextMinute = 60_000 - System.currentTimeMillis() % 60_000;
+        ticker.scheduleAtFixedRate(this::tick, untilNextMinute, 60_000, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::reload, reloadMinutes, reloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /** Whether the restaurant takes orders right now. Unknown restaurants are closed. */
+    public boolean isOpen(String restaurantId) {
+        Slot slot = slots.get(restaurantId);
+        return slot != null && slot.open;
+    }
+
+    /** Re-reads one restaurant's status and hours once the surrounding transaction commits. */
+    public void refresh(String restaurantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ticker.execute(() -> refreshNow(restaurantId));
+                }
+            });
+        } else {
+            ticker.execute(() -> refreshNow(restaurantId));
+        }
+    }
+
+    // All state changes below run on the ticker thread (and once in init)
+
+    private void refreshNow(String restaurantId) {
+        try {
+            Object[] row = restaurantRepository.findScheduleRowById(restaurantId).stream().findFirst().orElse(null);
+            if (row == null) {
+                place(restaurantId, null, minuteOfWeek());
+            } else {
+                place(restaurantId, slotFor(row), minuteOfWeek());
+            }
+        } catch (Exception e) {
+            log.error("SCHEDULE: Could not refresh restaurant {}: {}", restaurantId, e.getMessage());
+        }
+    }
+
+    void reload() {
+        try {
+            int now = minuteOfWeek();
+            Set<String> seen = new HashSet<>();
+            for (Object[] row : restaurantRepository.findScheduleRows(RestaurantDiscovery.DISCOVERABLE)) {
+                String id = (String) row[0];
+                seen.add(id);
+                place(id, slotFor(row), now);
+            }
+            for (String id : slots.keySet()) {
+                if (!seen.contains(id)) {
+                    place(id, null, now);
+                }
+            }
+            lastTick = now;
+            log.info("SCHEDULE: Loaded {} restaurants, {} open, {} distinct schedules", slots.size(),
+                    openCount.get(), interned.size());
+        } catch (Exception e) {
+            log.error("SCHEDULE: Reload failed, keeping the current schedule: {}", e.getMessage());
+        }
+    }
+
+    void tick() {
+        try {
+            int now = minuteOfWeek();
+            if (lastTick < 0) {
+                lastTick = now;
+                return;
+            }
+            // Catch up on every slot since the last tick, in case one ran late
+            int minute = lastTick;
+            while (minute != now) {
+                minute = (minute + 1) % MINUTES_PER_WEEK;
+                Set<String> due = wheel[minute];
+                for (String id : due.toArray(String[]::new)) {
+                    due.remove(id);
+                    Slot slot = slots.get(id);
+                    if (slot != null) {
+                        apply(id, slot, minute);
+                    }
+                }
+            }
+            lastTick = now;
+        } catch (Exception e) {
+            log.error("SCHEDULE: Tick failed: {}", e.getMessage());
+        }
+    }
+
+    // Installs (or with null removes) a restaurant's slot and files its next transition
+    private void place(String restaurantId, Slot slot, int now) {
+        Slot previous = slot != null ? slots.put(restaurantId, slot) : slots.remove(restaurantId);
+        if (previous != null) {
+            if (previous.nextTransition >= 0) {
+                wheel[previous.nextTransition].remove(restaurantId);
+            }
+            if (previous.open) {
+                openCount.decrementAndGet();
+            }
+        }
+        if (slot != null) {
+            slot.open = false;
+            apply(restaurantId, slot, now);
+        }
+    }
+
+    private void apply(String restaurantId, Slot slot, int minute) {
+        boolean open = slot.orderable && slot.schedule.openAt(minute);
+        if (open != slot.open) {
+            slot.open = open;
+            openCount.addAndGet(open ? 1 : -1);
+        }
+        slot.nextTransition = slot.orderable ? slot.schedule.nextTransition(minute) : -1;
+        if (slot.nextTransition >= 0) {
+            wheel[slot.nextTransition].add(restaurantId);
+        }
+    }
+
+    // Row from RestaurantRepository.findScheduleRow*: id, status, openingTime, closingTime
+    private Slot slotFor(Object[] row) {
+        RestaurantStatus status = (RestaurantStatus) row[1];
+        String opening = (String) row[2];
+        String closing = (String) row[3];
+        WeekSchedule schedule = interned.computeIfAbsent(opening + "-" + closing, k -> parse(opening, closing));
+        return new Slot(schedule, RestaurantDiscovery.DISCOVERABLE.contains(status));
+    }
+
+    // Same "HH:mm" hours every day; closing before opening runs past midnight. Unparseable hours are always open.
+    private static WeekSchedule parse(String opening, String closing) {
+        int opensAt = minuteOfDay(opening);
+        int closesAt = minuteOfDay(closing);
+        BitSet minutes = new BitSet(MINUTES_PER_WEEK);
+        if (opensAt < 0 || closesAt < 0 || opensAt == closesAt) {
+            minutes.set(0, MINUTES_PER_WEEK);
+            return new WeekSchedule(minutes);
+        }
+        for (int day = 0; day < 7; day++) {
+            int start = day * MINUTES_PER_DAY + opensAt;
+            int end = day * MINUTES_PER_DAY + closesAt + (closesAt < opensAt ? MINUTES_PER_DAY : 0);
+            if (end <= MINUTES_PER_WEEK) {
+                minutes.set(start, end);
+            } else {
+                minutes.set(start, MINUTES_PER_WEEK);
+                minutes.set(0, end - MINUTES_PER_WEEK);
+            }
+        }
+        return new WeekSchedule(minutes);
+    }
+
+    private static int minuteOfDay(String time) {
+        try {
+            return time != null ? LocalTime.parse(time.trim()).toSecondOfDay() / 60 : -1;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private int minuteOfWeek() {
+        ZonedDateTime now = ZonedDateTime.now(zoneId);
+        return (now.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + now.getHour() * 60 + now.getMinute();
+    }
+}
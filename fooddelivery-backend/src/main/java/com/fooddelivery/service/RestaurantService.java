@@ -3,12 +3,17 @@ package com.fooddelivery.service;
 import com.fooddelivery.dto.request.DocumentUploadRequest;
 import com.fooddelivery.dto.request.RestaurantRequest;
 import com.fooddelivery.dto.request.RestaurantStatusUpdateRequest;
+import com.fooddelivery.dto.response.CursorPage;
+import com.fooddelivery.dto.response.OrderSummaryResponse;
 import com.fooddelivery.dto.response.RestaurantResponse;
 import com.fooddelivery.entity.*;
 import com.fooddelivery.repository.RestaurantDocumentRepository;
 import com.fooddelivery.repository.RestaurantRepository;
 import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.TokenRevocations;
+import com.fooddelivery.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,11 +28,27 @@ public class RestaurantService {
     private final RestaurantDocumentRepository documentRepository;
     private final UserRepository userRepository;
     private final com.fooddelivery.repository.OrderRepository orderRepository;
+    private final RestaurantDiscovery restaurantDiscovery;
+    private final SearchIndex searchIndex;
+    private final RestaurantCache restaurantCache;
+    private final RestaurantSchedule restaurantSchedule;
+    private final TokenRevocations tokenRevocations;
 
     public List<Order> getOrders(String restaurantId) {
         return orderRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurantId);
     }
 
+    /** One page of the restaurant's order history, newest first; cost does not grow with history depth. */
+    public CursorPage<OrderSummaryResponse> getOrderHistory(String restaurantId, String cursor, int limit) {
+        int size = CursorPage.clampLimit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        PageRequest fetch = PageRequest.of(0, size + 1);
+        List<OrderSummaryResponse> rows = after == null
+                ? orderRepository.findRestaurantOrderPage(restaurantId, fetch)
+                : orderRepository.findRestaurantOrderPageAfter(restaurantId, after.createdAt(), after.id(), fetch);
+        return CursorPage.of(rows, size, row -> new KeysetCursor(row.getCreatedAt(), row.getOrderId()));
+    }
+
     @Transactional
     public RestaurantResponse createRestaurant(RestaurantRequest request, String ownerEmail) {
         User owner = userRepository.findByEmail(ownerEmail)
@@ -95,6 +116,7 @@ public class RestaurantService {
             if (restaurant.getStatus() == RestaurantStatus.DRAFT) {
                 restaurant.setStatus(RestaurantStatus.PENDING_REVIEW);
                 restaurantRepository.save(restaurant);
+                restaurantCache.evict(restaurant.getId());
             }
         }
     }
@@ -106,6 +128,7 @@ public class RestaurantService {
         // Validation: Check if docs exist? (Optional for now)
 
         restaurant.setStatus(RestaurantStatus.PENDING_REVIEW);
+        restaurantCache.evict(restaurant.getId());
         return mapToResponse(restaurantRepository.save(restaurant));
     }
 
@@ -121,8 +144,10 @@ public class RestaurantService {
         if (owner.getRole() == Role.ROLE_CUSTOMER) {
             owner.setRole(Role.ROLE_RESTAURANT_OWNER);
             userRepository.save(owner);
+            tokenRevocations.rolesChanged(owner.getId());
         }
 
+        changed(restaurant.getId());
         return mapToResponse(restaurantRepository.save(restaurant));
     }
 
@@ -134,26 +159,27 @@ public class RestaurantService {
         restaurant.setStatus(RestaurantStatus.REJECTED);
         // Log reason if we had a history table
 
+        changed(restaurant.getId());
         return mapToResponse(restaurantRepository.save(restaurant));
     }
 
     public List<RestaurantResponse> getPendingRestaurants() {
         return restaurantRepository.findByStatus(RestaurantStatus.PENDING_REVIEW).stream()
-                .map(this::mapToResponse)
+                .map(RestaurantService::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     public RestaurantResponse getRestaurant(String id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found"));
-        return mapToResponse(restaurant);
+        return restaurantCache.get(id, () -> mapToResponse(restaurantRepository.findWithOwnerById(id)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found"))));
     }
 
     public List<RestaurantResponse> searchRestaurants(String city) {
-        return restaurantRepository.findByAddressCityAndStatus(city, RestaurantStatus.APPROVED)
+        return restaurantCache.search(city, () -> restaurantRepository
+                .findByAddressCityAndStatus(city, RestaurantStatus.APPROVED)
                 .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+                .map(RestaurantService::mapToResponse)
+                .collect(Collectors.toList()));
     }
 
     @Transactional
@@ -181,6 +207,7 @@ public class RestaurantService {
         }
 
         restaurant.setStatus(newStatus);
+        changed(restaurant.getId());
         return mapToResponse(restaurantRepository.save(restaurant));
     }
 
@@ -188,12 +215,12 @@ public class RestaurantService {
         User owner = userRepository.findByEmail(ownerEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Restaurant> restaurants = restaurantRepository.findByOwnerId(owner.getId());
-        if (restaurants.isEmpty()) {
+        List<String> restaurantIds = restaurantRepository.findIdsByOwnerId(owner.getId());
+        if (restaurantIds.isEmpty()) {
             return null; // Or throw custom exception
         }
         // Assuming single restaurant for now, or fetch latest
-        return mapToResponse(restaurants.get(0));
+        return getRestaurant(restaurantIds.get(0));
     }
 
     private Restaurant getRestaurantIfOwner(String restaurantId, String ownerEmail) {
@@ -224,10 +251,11 @@ public class RestaurantService {
             restaurant.setImageUrl(request.getImageUrl());
         }
 
+        changed(restaurant.getId());
         return mapToResponse(restaurantRepository.save(restaurant));
     }
 
-    private RestaurantResponse mapToResponse(Restaurant restaurant) {
+    static RestaurantResponse mapToResponse(Restaurant restaurant) {
         return RestaurantResponse.builder()
                 .id(restaurant.getId())
                 .name(restaurant.getName())
@@ -253,4 +281,12 @@ public class RestaurantService {
                 .createdAt(restaurant.getCreatedAt() != null ? restaurant.getCreatedAt().toString() : null)
                 .build();
     }
+
+    // Keeps the schedule, discovery grid, search index and restaurant cache in step with a write
+    private void changed(String restaurantId) {
+        restaurantSchedule.refresh(restaurantId);
+        restaurantDiscovery.refresh(restaurantId);
+        searchIndex.refreshRestaurant(restaurantId);
+        restaurantCache.evict(restaurantId);
+    }
 }
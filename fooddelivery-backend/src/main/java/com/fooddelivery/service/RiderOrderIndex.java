@@ -0,0 +1,139 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Each rider's in-flight order ids as a Redis set (rider_active_orders:&lt;partnerId&gt;), so
+ * the rider app's active-orders refresh is a set read plus a primary-key fetch.
+ *
+ * Orders are added when the rider accepts and removed when they are delivered or
+ * cancelled. A missing set is seeded from the (delivery_partner_id, status) index, and
+ * members that are finished or no longer belong to the rider are pruned on read. An
+ * order that leaves ACTIVE for a while (assigned early, then marked ready by the
+ * restaurant) stays a member and is listed again once it is picked up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RiderOrderIndex {
+
+    public static final Set<OrderStatus> ACTIVE = EnumSet.of(OrderStatus.ASSIGNED_TO_RIDER,
+            OrderStatus.RIDER_ACCEPTED, OrderStatus.PICKED_UP);
+
+    private static final Set<OrderStatus> FINISHED = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED,
+            OrderStatus.REJECTED);
+
+    private static final String KEY_PREFIX = "rider_active_orders:";
+    // Marks a set as complete; without it the members are only what was added since it expired
+    private static final String SEEDED = "-";
+    private static final Duration TTL = Duration.ofHours(12);
+
+    private final RedisService redisService;
+    private final OrderRepository orderRepository;
+
+    /** Adds the order once the surrounding transaction commits. */
+    public void add(String partnerId, String orderId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(partnerId, orderId);
+                }
+            });
+        } else {
+            addNow(partnerId, orderId);
+        }
+    }
+
+    public void remove(String partnerId, String orderId) {
+        try {
+            redisService.removeFromSet(key(partnerId), orderId);
+        } catch (Exception e) {
+            log.warn("RIDER_INDEX: Could not remove order {} for rider {}: {}", orderId, partnerId, e.getMessage());
+        }
+    }
+
+    public List<Order> activeOrders(String partnerId) {
+        Set<String> ids;
+        try {
+            ids = new HashSet<>(redisService.members(key(partnerId)));
+        } catch (Exception e) {
+            log.warn("RIDER_INDEX: Redis unavailable, reading active orders of {} from the database", partnerId);
+            return orderRepository.findByDeliveryPartnerIdAndStatusIn(partnerId, ACTIVE);
+        }
+
+        if (!ids.remove(SEEDED)) {
+            List<Order> orders = orderRepository.findByDeliveryPartnerIdAndStatusIn(partnerId, ACTIVE);
+            seed(partnerId, orders);
+            return orders;
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Order> active = new ArrayList<>(ids.size());
+        for (Order order : orderRepository.findByIdIn(ids)) {
+            if (FINISHED.contains(order.getStatus()) || order.getDeliveryPartner() == null
+                    || !partnerId.equals(order.getDeliveryPartner().getId())) {
+                continue; // Left in ids and pruned
+            }
+            ids.remove(order.getId());
+            if (ACTIVE.contains(order.getStatus())) {
+                active.add(order);
+            }
+        }
+        if (!ids.isEmpty()) {
+            prune(partnerId, ids.toArray(String[]::new));
+        }
+        return active;
+    }
+
+    // Added seeded or not: a seed that read the database before this accept committed
+    // only SADDs its snapshot, so the order survives and the sentinel alone marks completeness
+    private void addNow(String partnerId, String orderId) {
+        try {
+            redisService.addToSet(key(partnerId), TTL, orderId);
+        } catch (Exception e) {
+            log.warn("RIDER_INDEX: Could not add order {} for rider {}: {}", orderId, partnerId, e.getMessage());
+        }
+    }
+
+    private void seed(String partnerId, List<Order> orders) {
+        String[] members = new String[orders.size() + 1];
+        members[0] = SEEDED;
+        for (int i = 0; i < orders.size(); i++) {
+            members[i + 1] = orders.get(i).getId();
+        }
+        try {
+            redisService.addToSet(key(partnerId), TTL, members);
+        } catch (Exception e) {
+            log.warn("RIDER_INDEX: Could not seed active orders of {}: {}", partnerId, e.getMessage());
+        }
+    }
+
+    private void prune(String partnerId, String[] orderIds) {
+        try {
+            redisService.removeFromSet(key(partnerId), (Object[]) orderIds);
+        } catch (Exception e) {
+            log.warn("RIDER_INDEX: Could not prune orders of {}: {}", partnerId, e.getMessage());
+        }
+    }
+
+    private static String key(String partnerId) {
+        return KEY_PREFIX + partnerId;
+    }
+}
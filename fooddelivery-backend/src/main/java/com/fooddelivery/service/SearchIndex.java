@@ -0,0 +1,541 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.response.SearchResultResponse;
+import com.fooddelivery.entity.FoodType;
+import com.fooddelivery.entity.Restaurant;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.util.Geo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process full-text search over discoverable restaurants (name, cuisine types)
+ * and their available dishes (name, description, food type).
+ *
+ * Terms map to posting lists of int doc ids with a per-posting field weight, kept
+ * in a sorted dictionary so the last query token also matches as a prefix
+ * (autocomplete). Tokens of four or more characters also match dictionary terms one
+ * edit away, found through a deletion neighbourhood instead of a dictionary scan.
+ * Every token has to match; hits are ranked by summed weight and, when the query
+ * has a location, damped by distance and filtered by radius.
+ *
+ * Updates are incremental: a changed document is tombstoned and re-added under a
+ * new id, and MenuService / RestaurantService refresh entries after their writes
+ * commit. The index is rebuilt from MySQL at startup and every
+ * search.index.rebuild-minutes, which also drops the tombstones.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+
+    private static final float PREFIX_MATCH = 0.8f;
+    private static final float TYPO_MATCH = 0.6f;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MIN_TYPO_LENGTH = 4;
+
+    private record Place(String name, String imageUrl, Double latitude, Double longitude) {
+    }
+
+    private record Doc(SearchResultResponse.Type type, String id, String restaurantId, String name,
+            String imageUrl, Long price, FoodType foodType) {
+    }
+
+    private record Field(String text, int weight) {
+    }
+
+    private record Hit(int doc, float score, Double distanceKm) {
+    }
+
+    // Doc ids in insertion order, each with the weight of the best field the term occurred in
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private byte[] weights = new byte[4];
+        private int size;
+
+        void add(int doc, int weight) {
+            if (size > 0 && docs[size - 1] == doc) {
+                weights[size - 1] = (byte) Math.max(weights[size - 1], weight);
+                return;
+            }
+            if (size == docs.length) {
+                docs = java.util.Arrays.copyOf(docs, size * 2);
+                weights = java.util.Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = (byte) weight;
+            size++;
+        }
+    }
+
+    private static final class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        // Every term with one character deleted, pointing back at the term
+        private final Map<String, Set<String>> deletions = new HashMap<>();
+        private final List<Doc> docs = new ArrayList<>();
+        private final BitSet dead = new BitSet();
+        private final Map<String, Integer> liveDocs = new HashMap<>();
+        private final Map<String, Place> places = new HashMap<>();
+
+        void putPlace(String restaurantId, Place place) {
+            lock.writeLock().lock();
+            try {
+                places.put(restaurantId, place);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Dishes of a restaurant that left discovery are hidden until the next rebuild drops them
+        void removePlace(String restaurantId) {
+            lock.writeLock().lock();
+            try {
+                places.remove(restaurantId);
+                removeDoc(key(SearchResultResponse.Type.RESTAURANT, restaurantId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(Doc doc, List<Field> fields) {
+            lock.writeLock().lock();
+            try {
+                removeDoc(key(doc.type(), doc.id()));
+                int id = docs.size();
+                docs.add(doc);
+                liveDocs.put(key(doc.type(), doc.id()), id);
+                for (Field field : fields) {
+                    for (String token : tokenize(field.text())) {
+                        postings(token).add(id, field.weight());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(SearchResultResponse.Type type, String id) {
+            lock.writeLock().lock();
+            try {
+                removeDoc(key(type, id));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            return liveDocs.size();
+        }
+
+        private void removeDoc(String key) {
+            Integer previous = liveDocs.remove(key);
+            if (previous != null) {
+                dead.set(previous);
+            }
+        }
+
+        private Postings postings(String term) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                if (term.length() >= MIN_TYPO_LENGTH) {
+                    for (String variant : deletionsOf(term)) {
+                        deletions.computeIfAbsent(variant, v -> new HashSet<>(2)).add(term);
+                    }
+                }
+            }
+            return postings;
+        }
+
+        List<SearchResultResponse> search(List<String> tokens, Double latitude, Double longitude, Double radiusKm,
+                int limit) {
+            lock.readLock().lock();
+            try {
+                Map<Integer, Float> scores = null;
+                for (int i = 0; i < tokens.size() && (scores == null || !scores.isEmpty()); i++) {
+                    Map<Integer, Float> matches = match(tokens.get(i), i == tokens.size() - 1);
+                    if (scores == null) {
+                        scores = matches;
+                    } else {
+                        Map<Integer, Float> both = new HashMap<>();
+                        for (Map.Entry<Integer, Float> e : scores.entrySet()) {
+                            Float other = matches.get(e.getKey());
+                            if (other != null) {
+                                both.put(e.getKey(), e.getValue() + other);
+                            }
+                        }
+                        scores = both;
+                    }
+                }
+                if (scores == null || scores.isEmpty()) {
+                    return List.of();
+                }
+
+                boolean located = latitude != null && longitude != null;
+                PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+                for (Map.Entry<Integer, Float> e : scores.entrySet()) {
+                    Doc doc = docs.get(e.getKey());
+                    Place place = places.get(doc.restaurantId());
+                    if (place == null) {
+                        continue;
+                    }
+                    float score = e.getValue();
+                    Double distance = null;
+                    if (located && place.latitude() != null && place.longitude() != null) {
+                        distance = Geo.distanceKm(latitude, longitude, place.latitude(), place.longitude());
+                        if (radiusKm != null && distance > radiusKm) {
+                            continue;
+                        }
+                        score /= (float) (1 + distance / 10);
+                    } else if (located && radiusKm != null) {
+                        continue;
+                    }
+                    top.add(new Hit(e.getKey(), score, distance));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+
+                List<SearchResultResponse> results = new ArrayList<>(top.size());
+                while (!top.isEmpty()) {
+                    results.add(toResponse(top.poll()));
+                }
+                java.util.Collections.reverse(results);
+                return results;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Best weighted match per live doc for one query token
+        private Map<Integer, Float> match(String token, boolean prefix) {
+            Map<Integer, Float> best = new HashMap<>();
+            Postings exact = terms.get(token);
+            if (exact != null) {
+                collect(exact, 1f, best);
+            }
+            if (prefix) {
+                NavigableMap<String, Postings> expansions = terms.subMap(token, false, token + Character.MAX_VALUE,
+                        false);
+                int expanded = 0;
+                for (Postings postings : expansions.values()) {
+                    if (++expanded > MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                    collect(postings, PREFIX_MATCH, best);
+                }
+            }
+            if (token.length() >= MIN_TYPO_LENGTH) {
+                for (String term : typoCandidates(token)) {
+                    collect(terms.get(term), TYPO_MATCH, best);
+                }
+            }
+            return best;
+        }
+
+        private void collect(Postings postings, float factor, Map<Integer, Float> best) {
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (!dead.get(doc)) {
+                    best.merge(doc, postings.weights[i] * factor, Math::max);
+                }
+            }
+        }
+
+        // Terms within one insertion, deletion, substitution or transposition
+        private Set<String> typoCandidates(String token) {
+            Set<String> candidates = new HashSet<>();
+            Set<String> direct = deletions.get(token);
+            if (direct != null) {
+                candidates.addAll(direct); // token plus one character
+            }
+            for (String variant : deletionsOf(token)) {
+                if (terms.containsKey(variant)) {
+                    candidates.add(variant); // token minus one character
+                }
+                Set<String> shared = deletions.get(variant);
+                if (shared != null) {
+                    for (String term : shared) {
+                        if (withinOneEdit(token, term)) {
+                            candidates.add(term);
+                        }
+                    }
+                }
+            }
+            candidates.remove(token);
+            return candidates;
+        }
+
+        private SearchResultResponse toResponse(Hit hit) {
+            Doc doc = docs.get(hit.doc());
+            Place place = places.get(doc.restaurantId());
+            return SearchResultResponse.builder()
+                    .type(doc.type())
+                    .id(doc.id())
+                    .name(doc.name())
+                    .restaurantId(doc.restaurantId())
+                    .restaurantName(place.name())
+                    .imageUrl(doc.imageUrl())
+                    .price(doc.price())
+                    .foodType(doc.foodType())
+                    .distanceKm(hit.distanceKm() != null ? Math.round(hit.distanceKm() * 100) / 100.0 : null)
+                    .build();
+        }
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.index.rebuild-minutes:30}")
+    private long rebuildMinutes;
+
+    private volatile Index index = new Index();
+    private volatile boolean rebuilding;
+    // Refreshes that raced with a rebuild, re-applied to the new index
+    private final Set<String> restaurantsRefreshedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final Set<String> itemsRefreshedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor();
+
+    private Timer queryTimer;
+
+    @PostConstruct
+    public void init() {
+        queryTimer = Timer.builder("search.query")
+                .description("Full-text and autocomplete queries against the in-process index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("search.index.docs", this, s -> s.index.size()).register(meterRegistry);
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Restaurants and dishes matching every token of the query, best first. The last
+     * token matches as a prefix, so this also serves autocomplete. With a location,
+     * nearer restaurants rank higher and radiusKm (if given) filters.
+     */
+    public List<SearchResultResponse> search(String query, Double latitude, Double longitude, Double radiusKm,
+            int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        return queryTimer.record(() -> index.search(tokens, latitude, longitude, radiusKm, limit));
+    }
+
+    /** Re-indexes a restaurant and its dishes once the surrounding transaction commits. */
+    public void refreshRestaurant(String restaurantId) {
+        afterCommit(() -> refreshRestaurantNow(restaurantId));
+    }
+
+    /** Re-indexes one dish once the surrounding transaction commits. */
+    public void refreshMenuItem(String menuItemId) {
+        afterCommit(() -> refreshMenuItemNow(menuItemId));
+    }
+
+    private void refreshRestaurantNow(String restaurantId) {
+        try {
+            if (rebuilding) {
+                restaurantsRefreshedDuringRebuild.add(restaurantId);
+            }
+            Index current = index;
+            Restaurant restaurant = restaurantRepository.findWithOwnerById(restaurantId).orElse(null);
+            if (restaurant == null || !RestaurantDiscovery.DISCOVERABLE.contains(restaurant.getStatus())) {
+                current.removePlace(restaurantId);
+                return;
+            }
+            indexRestaurant(current, restaurant);
+            for (Object[] row : menuItemRepository.findSearchRowsByRestaurantId(restaurantId)) {
+                indexMenuItem(current, row);
+            }
+        } catch (Exception e) {
+            log.error("SEARCH: Could not refresh restaurant {}: {}", restaurantId, e.getMessage());
+        }
+    }
+
+    private void refreshMenuItemNow(String menuItemId) {
+        try {
+            if (rebuilding) {
+                itemsRefreshedDuringRebuild.add(menuItemId);
+            }
+            Index current = index;
+            List<Object[]> rows = menuItemRepository.findSearchRowsById(menuItemId);
+            if (rows.isEmpty()) {
+                current.remove(SearchResultResponse.Type.DISH, menuItemId);
+            } else {
+                indexMenuItem(current, rows.get(0));
+            }
+        } catch (Exception e) {
+            log.error("SEARCH: Could not refresh menu item {}: {}", menuItemId, e.getMessage());
+        }
+    }
+
+    void rebuild() {
+        rebuilding = true;
+        try {
+            long start = System.nanoTime();
+            Index fresh = new Index();
+            for (Restaurant restaurant : restaurantRepository.findByStatusIn(RestaurantDiscovery.DISCOVERABLE)) {
+                indexRestaurant(fresh, restaurant);
+            }
+            for (Object[] row : menuItemRepository.findSearchRows(RestaurantDiscovery.DISCOVERABLE)) {
+                indexMenuItem(fresh, row);
+            }
+            index = fresh;
+            log.info("SEARCH: Indexed {} documents ({} terms) in {} ms", fresh.size(), fresh.terms.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("SEARCH: Rebuild failed, keeping the previous index: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+        for (String id : List.copyOf(restaurantsRefreshedDuringRebuild)) {
+            restaurantsRefreshedDuringRebuild.remove(id);
+            refreshRestaurantNow(id);
+        }
+        for (String id : List.copyOf(itemsRefreshedDuringRebuild)) {
+            itemsRefreshedDuringRebuild.remove(id);
+            refreshMenuItemNow(id);
+        }
+    }
+
+    private static void indexRestaurant(Index target, Restaurant restaurant) {
+        Double latitude = restaurant.getAddress() != null ? restaurant.getAddress().getLatitude() : null;
+        Double longitude = restaurant.getAddress() != null ? restaurant.getAddress().getLongitude() : null;
+        target.putPlace(restaurant.getId(),
+                new Place(restaurant.getName(), restaurant.getImageUrl(), latitude, longitude));
+
+        List<Field> fields = new ArrayList<>();
+        fields.add(new Field(restaurant.getName(), NAME_WEIGHT));
+        if (restaurant.getCuisineTypes() != null) {
+            for (String cuisine : restaurant.getCuisineTypes()) {
+                fields.add(new Field(cuisine, TAG_WEIGHT));
+            }
+        }
+        target.put(new Doc(SearchResultResponse.Type.RESTAURANT, restaurant.getId(), restaurant.getId(),
+                restaurant.getName(), restaurant.getImageUrl(), null, null), fields);
+    }
+
+    // Row from MenuItemRepository.findSearchRows*: unavailable dishes are removed
+    private static void indexMenuItem(Index target, Object[] row) {
+        String id = (String) row[0];
+        if (!Boolean.TRUE.equals(row[5])) {
+            target.remove(SearchResultResponse.Type.DISH, id);
+            return;
+        }
+        FoodType foodType = (FoodType) row[3];
+        List<Field> fields = new ArrayList<>(3);
+        fields.add(new Field((String) row[1], NAME_WEIGHT));
+        if (row[2] != null) {
+            fields.add(new Field((String) row[2], TEXT_WEIGHT));
+        }
+        if (foodType != null) {
+            // NON_VEG matches "non veg" and "nonveg"
+            fields.add(new Field(foodType.name().replace('_', ' ') + " " + foodType.name().replace("_", ""),
+                    TEXT_WEIGHT));
+        }
+        target.put(new Doc(SearchResultResponse.Type.DISH, id, (String) row[7], (String) row[1], (String) row[6],
+                (Long) row[4], foodType), fields);
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String key(SearchResultResponse.Type type, String id) {
+        return type.name() + ":" + id;
+    }
+
+    private static List<String> deletionsOf(String term) {
+        List<String> variants = new ArrayList<>(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // Same length, differing by one substitution or one adjacent transposition
+    private static boolean withinOneEdit(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        int first = -1;
+        int diffs = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                if (++diffs > 2) {
+                    return false;
+                }
+                if (first < 0) {
+                    first = i;
+                }
+            }
+        }
+        if (diffs <= 1) {
+            return true;
+        }
+        return first + 1 < a.length() && a.charAt(first) == b.charAt(first + 1)
+                && a.charAt(first + 1) == b.charAt(first);
+    }
+}
@@ -2,6 +2,7 @@ package com.fooddelivery.service;
 
 import com.fooddelivery.entity.RiderLedger;
 import com.fooddelivery.repository.RiderLedgerRepository;
+import com.fooddelivery.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -41,20 +42,22 @@ public class SettlementService {
         if (entries.isEmpty())
             return;
 
-        double totalCredit = 0; // Earnings
-        double totalDebit = 0; // Collections
+        // Paise, summed as primitive longs
+        long totalCredit = 0; // Earnings
+        long totalDebit = 0; // Collections
 
         for (RiderLedger entry : entries) {
-            if (entry.getAmount() > 0) {
-                totalCredit += entry.getAmount();
+            long amount = entry.getAmount();
+            if (amount > 0) {
+                totalCredit = Money.add(totalCredit, amount);
             } else {
-                totalDebit += Math.abs(entry.getAmount());
+                totalDebit = Money.subtract(totalDebit, amount);
             }
         }
 
-        double netPayable = totalCredit - totalDebit;
+        long netPayable = totalCredit - totalDebit;
 
-        log.info("Rider {}: Earnings={}, Collections={}, Net={}", riderId, totalCredit, totalDebit, netPayable);
+        log.info("Rider {}: Earnings={}, Collections={}, Net={} (paise)", riderId, totalCredit, totalDebit, netPayable);
 
         String ref = "SETTLEMENT-" + System.currentTimeMillis();
 
@@ -94,8 +97,8 @@ public class SettlementService {
         ledgerRepo.save(payoutEntry);
     }
 
-    private void performPayout(String riderId, double amount, String ref) {
+    private void performPayout(String riderId, long amountPaise, String ref) {
         // Integrate with Bank API / Razorpay Route
-        log.info("INITIATING BANK TRANSFER: Rider={}, Amount={}, Ref={}", riderId, amount, ref);
+        log.info("INITIATING BANK TRANSFER: Rider={}, Amount={} paise, Ref={}", riderId, amountPaise, ref);
     }
 }
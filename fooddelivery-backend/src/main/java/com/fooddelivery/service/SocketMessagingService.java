@@ -0,0 +1,246 @@
+package com.fooddelivery.service;
+
+import com.corundumstudio.socketio.BroadcastOperations;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIOServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound Socket.IO gateway. Every server push goes through a bounded
+ * per-client queue that is drained at a fixed pace, so a slow mobile client can
+ * never make Netty buffer events without limit.
+ *
+ * Replaceable events (the rider's order_update snapshots, the customer's
+ * order_eta) are coalesced by key: a newer value overwrites the pending one and, when the queue is full, the oldest
+ * replaceable event is dropped first. If a client still cannot keep up with
+ * non-replaceable events it is disconnected and must resync on reconnect.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SocketMessagingService {
+
+    private final SocketIOServer socketIOServer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${socketio.outbound.max-queue-depth:64}")
+    private int maxQueueDepth;
+
+    @Value("${socketio.outbound.drain-batch:16}")
+    private int drainBatch;
+
+    @Value("${socketio.outbound.drain-interval-ms:25}")
+    private long drainIntervalMs;
+
+    private final Map<UUID, ClientOutbox> outboxes = new ConcurrentHashMap<>();
+    private final AtomicLong queuedEvents = new AtomicLong();
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor();
+
+    private Counter droppedEvents;
+    private Counter shedClients;
+    private Timer drainLag;
+    private long nextTickNanos;
+
+    @PostConstruct
+    public void init() {
+        droppedEvents = Counter.builder("socketio.outbound.dropped")
+                .description("Replaceable events dropped because a client queue was full")
+                .register(meterRegistry);
+        shedClients = Counter.builder("socketio.outbound.shed")
+                .description("Clients disconnected for not keeping up with outbound events")
+                .register(meterRegistry);
+        drainLag = Timer.builder("socketio.outbound.drain.lag")
+                .description("Delay between the scheduled and actual start of a drain tick")
+                .register(meterRegistry);
+        Gauge.builder("socketio.outbound.queue.depth", queuedEvents, AtomicLong::get)
+                .description("Events waiting in client queues")
+                .register(meterRegistry);
+        Gauge.builder("socketio.outbound.clients", outboxes, Map::size)
+                .register(meterRegistry);
+
+        nextTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainIntervalMs);
+        drainer.scheduleAtFixedRate(this::drainAll, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    /** Queue an event for every client in the room. */
+    public void sendToRoom(String room, String event, Object payload) {
+        enqueue(room, event, null, payload);
+    }
+
+    /**
+     * Queue an event that supersedes earlier events with the same key (e.g. the
+     * latest rider location for an order). Older pending values are discarded.
+     */
+    public void sendLatestToRoom(String room, String event, String key, Object payload) {
+        enqueue(room, event, event + ":" + key, payload);
+    }
+
+    public void removeClient(UUID sessionId) {
+        ClientOutbox outbox = outboxes.remove(sessionId);
+        if (outbox != null) {
+            queuedEvents.addAndGet(-outbox.clear());
+        }
+    }
+
+    private void enqueue(String room, String event, String coalesceKey, Object payload) {
+        BroadcastOperations operations = socketIOServer.getRoomOperations(room);
+        if (operations == null) {
+            return;
+        }
+        for (SocketIOClient client : operations.getClients()) {
+            ClientOutbox outbox = outboxes.computeIfAbsent(client.getSessionId(), id -> new ClientOutbox(client));
+            switch (outbox.offer(event, coalesceKey, payload, maxQueueDepth)) {
+                case QUEUED -> queuedEvents.incrementAndGet();
+                case DROPPED_OLDEST, DROPPED_NEW -> droppedEvents.increment();
+                case REPLACED -> {
+                }
+                case OVERFLOW -> shed(client);
+            }
+        }
+    }
+
+    private void shed(SocketIOClient client) {
+        log.warn("SOCKET: Client {} cannot keep up with outbound events. Disconnecting.", client.getSessionId());
+        shedClients.increment();
+        removeClient(client.getSessionId());
+        client.disconnect();
+    }
+
+    private void drainAll() {
+        long now = System.nanoTime();
+        drainLag.record(Math.max(0, now - nextTickNanos), TimeUnit.NANOSECONDS);
+        nextTickNanos = now + TimeUnit.MILLISECONDS.toNanos(drainIntervalMs);
+
+        Iterator<Map.Entry<UUID, ClientOutbox>> it = outboxes.entrySet().iterator();
+        while (it.hasNext()) {
+            ClientOutbox outbox = it.next().getValue();
+            try {
+                if (!outbox.client.isChannelOpen()) {
+                    it.remove();
+                    queuedEvents.addAndGet(-outbox.clear());
+                    continue;
+                }
+                queuedEvents.addAndGet(-outbox.drain(drainBatch));
+            } catch (Exception e) {
+                log.error("SOCKET: Error draining outbox for {}: {}", outbox.client.getSessionId(), e.getMessage());
+            }
+        }
+    }
+
+    enum OfferResult {
+        QUEUED, REPLACED, DROPPED_OLDEST, DROPPED_NEW, OVERFLOW
+    }
+
+    private static final class OutboundEvent {
+        private final String name;
+        private final String coalesceKey;
+        private Object payload;
+
+        private OutboundEvent(String name, String coalesceKey, Object payload) {
+            this.name = name;
+            this.coalesceKey = coalesceKey;
+            this.payload = payload;
+        }
+    }
+
+    private static final class ClientOutbox {
+        private final SocketIOClient client;
+        private final ArrayDeque<OutboundEvent> queue = new ArrayDeque<>();
+        private final Map<String, OutboundEvent> pendingByKey = new HashMap<>();
+
+        private ClientOutbox(SocketIOClient client) {
+            this.client = client;
+        }
+
+        synchronized OfferResult offer(String name, String coalesceKey, Object payload, int maxDepth) {
+            if (coalesceKey != null) {
+                OutboundEvent pending = pendingByKey.get(coalesceKey);
+                if (pending != null) {
+                    pending.payload = payload;
+                    return OfferResult.REPLACED;
+                }
+            }
+
+            OfferResult result = OfferResult.QUEUED;
+            if (queue.size() >= maxDepth) {
+                if (!dropOldestReplaceable()) {
+                    // Nothing left to shed: either drop the newcomer or give up on the client
+                    return coalesceKey != null ? OfferResult.DROPPED_NEW : OfferResult.OVERFLOW;
+                }
+                result = OfferResult.DROPPED_OLDEST;
+            }
+
+            OutboundEvent event = new OutboundEvent(name, coalesceKey, payload);
+            queue.addLast(event);
+            if (coalesceKey != null) {
+                pendingByKey.put(coalesceKey, event);
+            }
+            return result;
+        }
+
+        private boolean dropOldestReplaceable() {
+            Iterator<OutboundEvent> it = queue.iterator();
+            while (it.hasNext()) {
+                OutboundEvent event = it.next();
+                if (event.coalesceKey != null) {
+                    it.remove();
+                    pendingByKey.remove(event.coalesceKey);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Sends up to {@code max} events and returns how many left the queue. */
+        int drain(int max) {
+            int sent = 0;
+            while (sent < max) {
+                OutboundEvent event;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        break;
+                    }
+                    if (event.coalesceKey != null) {
+                        pendingByKey.remove(event.coalesceKey);
+                    }
+                }
+                client.sendEvent(event.name, event.payload);
+                sent++;
+            }
+            return sent;
+        }
+
+        synchronized int clear() {
+            int size = queue.size();
+            queue.clear();
+            pendingByKey.clear();
+            return size;
+        }
+    }
+}
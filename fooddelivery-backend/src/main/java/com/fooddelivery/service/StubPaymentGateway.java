@@ -0,0 +1,66 @@
+package com.fooddelivery.service;
+
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Offline gateway for load and latency testing (payment.gateway=stub). Orders
+ * are created after a configurable delay, and signatures use the same HMAC
+ * scheme as Razorpay with payment.stub.secret, so test clients can sign
+ * payments and webhooks themselves.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub")
+@Slf4j
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${payment.stub.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${payment.stub.secret:stub_secret}")
+    private String secret;
+
+    @Override
+    public String createOrder(long amountPaise, String receipt) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Stub gateway interrupted");
+            }
+        }
+        String id = "order_stub_" + UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+        log.debug("STUB GATEWAY: Created {} for {} paise, receipt {}", id, amountPaise, receipt);
+        return id;
+    }
+
+    @Override
+    public boolean verifyPayment(String gatewayOrderId, String paymentId, String signature) {
+        try {
+            JSONObject options = new JSONObject();
+            options.put("razorpay_order_id", gatewayOrderId);
+            options.put("razorpay_payment_id", paymentId);
+            options.put("razorpay_signature", signature);
+            return Utils.verifyPaymentSignature(options, secret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean verifyWebhook(String payload, String signature) {
+        try {
+            return signature != null && Utils.verifyWebhookSignature(payload, signature, secret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+}
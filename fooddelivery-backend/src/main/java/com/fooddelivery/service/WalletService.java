@@ -2,6 +2,7 @@ package com.fooddelivery.service;
 
 import com.fooddelivery.entity.RiderLedger;
 import com.fooddelivery.repository.RiderLedgerRepository;
+import com.fooddelivery.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -15,10 +16,10 @@ import java.util.Map;
 public class WalletService {
     private final RiderLedgerRepository legoRepo;
 
-    public void addEntry(String riderId, Double amount, RiderLedger.LedgerType type, String orderId, String desc) {
+    public void addEntry(String riderId, long amountPaise, RiderLedger.LedgerType type, String orderId, String desc) {
         RiderLedger entry = RiderLedger.builder()
                 .riderId(riderId)
-                .amount(amount)
+                .amount(amountPaise)
                 .type(type)
                 .orderId(orderId)
                 .description(desc)
@@ -32,9 +33,10 @@ public class WalletService {
         List<RiderLedger> history = legoRepo.findByRiderIdOrderByCreatedAtDesc(riderId);
         
         // Calculate stats
-        double totalEarnings = 0;
-        double cashCollected = 0;
-        double netPayable = 0;
+        // Summed in paise
+        long totalEarnings = 0;
+        long cashCollected = 0;
+        long netPayable = 0;
 
         for (RiderLedger l : history) {
              // Total Earnings (Lifetime or Unsettled? User prompt implies Lifetime/Total in UI, but usually you show Current Balance)
@@ -53,9 +55,9 @@ public class WalletService {
         }
 
         Map<String, Object> response = new HashMap<>();
-        response.put("netPayable", netPayable);
-        response.put("totalEarnings", totalEarnings);
-        response.put("cashCollected", cashCollected);
+        response.put("netPayable", Money.toRupees(netPayable));
+        response.put("totalEarnings", Money.toRupees(totalEarnings));
+        response.put("cashCollected", Money.toRupees(cashCollected));
         response.put("transactions", history.stream().limit(20).toList()); // Recent 20
 
         return response;
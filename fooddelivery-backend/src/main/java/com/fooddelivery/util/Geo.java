@@ -0,0 +1,20 @@
+package com.fooddelivery.util;
+
+public final class Geo {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+    public static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private Geo() {
+    }
+
+    // Haversine
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
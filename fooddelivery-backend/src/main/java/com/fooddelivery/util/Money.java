@@ -0,0 +1,159 @@
+package com.fooddelivery.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is a primitive long count of paise everywhere inside the backend.
+ * These helpers are static and allocation free; rupee doubles only appear at
+ * the edges (request DTOs, JSON, the existing DOUBLE columns via
+ * {@link PaiseConverter}).
+ */
+public final class Money {
+
+    public enum Rounding {
+        HALF_UP, // Away from zero on .5, customer-facing amounts
+        HALF_EVEN, // Banker's rounding, for aggregates of many roundings
+        DOWN, // Toward zero, never over-pays
+        UP // Away from zero, never under-collects
+    }
+
+    public static final long ZERO = 0L;
+    private static final long BASIS_POINTS = 10_000L;
+
+    private Money() {
+    }
+
+    public static long ofRupees(long rupees) {
+        return Math.multiplyExact(rupees, 100L);
+    }
+
+    /** Converts an external rupee amount, rounding to the nearest paisa (half away from zero). */
+    public static long ofRupees(double rupees) {
+        return rupees >= 0 ? Math.round(rupees * 100.0) : -Math.round(-rupees * 100.0);
+    }
+
+    /** Nullable variant for optional DTO fields. */
+    public static Long ofRupees(Double rupees) {
+        return rupees != null ? ofRupees(rupees.doubleValue()) : null;
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    public static Double toRupees(Long paise) {
+        return paise != null ? toRupees(paise.longValue()) : null;
+    }
+
+    public static long orZero(Long paise) {
+        return paise != null ? paise : 0L;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long times(long paise, long quantity) {
+        return Math.multiplyExact(paise, quantity);
+    }
+
+    /** {@code paise * basisPoints / 10000}, e.g. 500 bps = 5%. */
+    public static long percent(long paise, long basisPoints, Rounding rounding) {
+        return divide(Math.multiplyExact(paise, basisPoints), BASIS_POINTS, rounding);
+    }
+
+    /** Percentage given as a decimal such as 12.5 (%), converted to basis points first. */
+    public static long percent(long paise, double percent, Rounding rounding) {
+        return percent(paise, Math.round(percent * 100.0), rounding);
+    }
+
+    /** Scales by a non-monetary factor (surge multiplier, distance) and rounds to whole paise. */
+    public static long scale(long paise, double factor, Rounding rounding) {
+        double exact = paise * factor;
+        return switch (rounding) {
+            case HALF_UP -> exact >= 0 ? Math.round(exact) : -Math.round(-exact);
+            case HALF_EVEN -> (long) Math.rint(exact);
+            case DOWN -> (long) exact;
+            case UP -> exact >= 0 ? (long) Math.ceil(exact) : (long) Math.floor(exact);
+        };
+    }
+
+    /** Integer division with an explicit rounding policy. */
+    public static long divide(long numerator, long denominator, Rounding rounding) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (numerator < 0) == (denominator < 0) ? 1 : -1;
+        long twiceRemainder = Math.abs(remainder) * 2;
+        long absDenominator = Math.abs(denominator);
+        boolean awayFromZero = switch (rounding) {
+            case DOWN -> false;
+            case UP -> true;
+            case HALF_UP -> twiceRemainder >= absDenominator;
+            case HALF_EVEN -> twiceRemainder > absDenominator
+                    || (twiceRemainder == absDenominator && (quotient & 1) != 0);
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    public static long min(long a, long b) {
+        return Math.min(a, b);
+    }
+
+    /** Writes paise as a rupee decimal ("123.45") so the JSON API stays in rupees. */
+    public static class RupeesSerializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long paise, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(BigDecimal.valueOf(paise, 2));
+        }
+    }
+
+    public static class RupeesDeserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return ofRupees(p.getDecimalValue());
+        }
+    }
+
+    // Spring MVC serializes with Jackson 3, which ignores the Jackson 2 pair above;
+    // the internal Jackson 2 ObjectMapper (caches, the menu read model) still uses it
+
+    public static class RupeesValueSerializer extends ValueSerializer<Long> {
+        @Override
+        public void serialize(Long paise, tools.jackson.core.JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeNumber(BigDecimal.valueOf(paise, 2));
+        }
+    }
+
+    public static class RupeesValueDeserializer extends ValueDeserializer<Long> {
+        @Override
+        public Long deserialize(tools.jackson.core.JsonParser p, tools.jackson.databind.DeserializationContext ctxt) {
+            return ofRupees(p.getDecimalValue());
+        }
+    }
+
+    private static long ofRupees(BigDecimal rupees) {
+        return rupees.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,24 @@
+package com.fooddelivery.util;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a paise {@code Long} field that is exposed as rupees in JSON, through
+ * both Jackson 3 (Spring MVC) and Jackson 2 (the internal ObjectMapper).
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = Money.RupeesSerializer.class)
+@JsonDeserialize(using = Money.RupeesDeserializer.class)
+@tools.jackson.databind.annotation.JsonSerialize(using = Money.RupeesValueSerializer.class)
+@tools.jackson.databind.annotation.JsonDeserialize(using = Money.RupeesValueDeserializer.class)
+public @interface Paise {
+}
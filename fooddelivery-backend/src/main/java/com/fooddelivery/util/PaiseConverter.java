@@ -0,0 +1,23 @@
+package com.fooddelivery.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps a paise {@code Long} attribute onto the existing rupee DOUBLE columns,
+ * so no data migration is needed. Two-decimal rupee values round-trip exactly
+ * through the rounding on read.
+ */
+@Converter
+public class PaiseConverter implements AttributeConverter<Long, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(Long paise) {
+        return Money.toRupees(paise);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(Double rupees) {
+        return Money.ofRupees(rupees);
+    }
+}
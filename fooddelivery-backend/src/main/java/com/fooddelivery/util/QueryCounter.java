@@ -0,0 +1,24 @@
+package com.fooddelivery.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts SQL statements prepared by Hibernate on the current thread. Registered
+ * through hibernate.session_factory.statement_inspector; a JDBC batch counts
+ * once since the statement is prepared once.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /** Statements prepared on this thread since it started. Take a delta around the code of interest. */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,275 @@
+package com.fooddelivery.controller;
+
+import com.fooddelivery.dto.CartDocument;
+import com.fooddelivery.dto.request.CreateOrderRequest;
+import com.fooddelivery.entity.Address;
+import com.fooddelivery.entity.MenuItem;
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderItem;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.OrderType;
+import com.fooddelivery.entity.PaymentStatus;
+import com.fooddelivery.entity.Restaurant;
+import com.fooddelivery.entity.RestaurantAddress;
+import com.fooddelivery.entity.RestaurantStatus;
+import com.fooddelivery.entity.Role;
+import com.fooddelivery.entity.User;
+import com.fooddelivery.entity.UserStatus;
+import com.fooddelivery.repository.AddressRepository;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.OrderItemRepository;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.security.UserPrincipal;
+import com.fooddelivery.service.CartStore;
+import com.fooddelivery.service.OrderService;
+import com.fooddelivery.util.QueryBudget;
+import com.fooddelivery.util.QueryCounter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for the list endpoints and checkout. Fixtures are large enough that a
+ * per-row query would blow the budget (orders with lines, several menu items, a
+ * cart with options); the persistence context is cleared before each request so
+ * nothing is served from it. Each test rolls back.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class QueryBudgetTest {
+
+	private static final int ORDERS = 10;
+	private static final int MENU_ITEMS = 8;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private MenuItemRepository menuItemRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderItemRepository orderItemRepository;
+
+	@Autowired
+	private AddressRepository addressRepository;
+
+	@Autowired
+	private CartStore cartStore;
+
+	@Autowired
+	private OrderService orderService;
+
+	private User customer;
+	private User owner;
+	private Restaurant restaurant;
+	private List<MenuItem> menu;
+
+	@BeforeEach
+	void setUp() {
+		customer = newUser(Role.ROLE_CUSTOMER);
+		owner = newUser(Role.ROLE_RESTAURANT_OWNER);
+		restaurant = restaurantRepository.save(Restaurant.builder()
+				.name("Budget Kitchen")
+				.phone(unique("8"))
+				.email("kitchen-" + UUID.randomUUID() + "@example.com")
+				.cuisineTypes(List.of("Indian", "Chinese"))
+				.address(RestaurantAddress.builder().city("Pune").latitude(18.52).longitude(73.85).build())
+				.openingTime("00:00")
+				.closingTime("23:59")
+				.status(RestaurantStatus.ACTIVE)
+				.owner(owner)
+				.build());
+		menu = new ArrayList<>();
+		for (int i = 0; i < MENU_ITEMS; i++) {
+			menu.add(menuItemRepository.save(MenuItem.builder()
+					.restaurant(restaurant)
+					.name("Dish " + i)
+					.basePrice(10_000L + i * 1_000L)
+					.isAvailable(true)
+					.build()));
+		}
+	}
+
+	@Test
+	void myOrders() throws Exception {
+		placeOrders();
+
+		QueryBudget.assertAtMostCalling(5, "GET /orders/my", () -> mockMvc
+				.perform(get("/api/v1/orders/my").with(user(UserPrincipal.from(customer))))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void restaurantOrders() throws Exception {
+		placeOrders();
+
+		QueryBudget.assertAtMostCalling(5, "GET /restaurants/{id}/orders", () -> mockMvc
+				.perform(get("/api/v1/restaurants/" + restaurant.getId() + "/orders")
+						.with(user(UserPrincipal.from(owner))))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void menu() throws Exception {
+		clear();
+
+		// Cold: the read model is built from two selects, items and their option groups
+		QueryBudget.assertAtMostCalling(3, "GET /restaurants/{id}/menu-items (cold)", () -> mockMvc
+				.perform(get("/api/v1/restaurants/" + restaurant.getId() + "/menu-items"))
+				.andExpect(status().isOk()));
+		QueryBudget.assertAtMostCalling(0, "GET /restaurants/{id}/menu-items (warm)", () -> mockMvc
+				.perform(get("/api/v1/restaurants/" + restaurant.getId() + "/menu-items"))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void cart() throws Exception {
+		CartDocument cart = CartDocument.builder()
+				.userId(customer.getId())
+				.restaurantId(restaurant.getId())
+				.build();
+		for (MenuItem item : menu) {
+			cart.addLine(CartDocument.Line.builder()
+					.menuItemId(item.getId())
+					.name(item.getName())
+					.quantity(1)
+					.itemPrice(item.getBasePrice())
+					.totalPrice(item.getBasePrice())
+					.build());
+		}
+		cartStore.save(cart);
+		// First read reprices against the menu and stores the version
+		mockMvc.perform(get("/api/v1/cart").with(user(UserPrincipal.from(customer)))).andExpect(status().isOk());
+		entityManager.flush();
+		clear();
+
+		QueryBudget.assertAtMostCalling(2, "GET /cart", () -> mockMvc
+				.perform(get("/api/v1/cart").with(user(UserPrincipal.from(customer))))
+				.andExpect(status().isOk()));
+	}
+
+	@Test
+	void checkout() {
+		Address address = addressRepository.save(Address.builder()
+				.user(customer)
+				.label("Home")
+				.line1("1 Budget Lane")
+				.city("Pune")
+				.latitude(18.53)
+				.longitude(73.86)
+				.build());
+		CreateOrderRequest request = new CreateOrderRequest();
+		request.setDeliveryAddressId(address.getId());
+		request.setPaymentMethod("COD");
+
+		// Warm-up order fills the menu snapshot, schedule and kitchen load caches
+		checkout(request, 1);
+		long oneLine = checkout(request, 1);
+		long fullCart = checkout(request, MENU_ITEMS);
+
+		// Batched order lines prepare one statement however many there are
+		assertThat(fullCart).isLessThanOrEqualTo(9);
+		assertThat(fullCart).as("statements must not grow with cart lines").isEqualTo(oneLine);
+	}
+
+	private long checkout(CreateOrderRequest request, int lines) {
+		cartWith(lines);
+		clear();
+		long before = QueryCounter.current();
+		QueryBudget.assertAtMost(9, "checkout with " + lines + " lines",
+				() -> orderService.createOrder(customer.getId(), request));
+		return QueryCounter.current() - before;
+	}
+
+	private void cartWith(int lines) {
+		CartDocument cart = CartDocument.builder()
+				.userId(customer.getId())
+				.restaurantId(restaurant.getId())
+				.build();
+		for (MenuItem item : menu.subList(0, lines)) {
+			cart.addLine(CartDocument.Line.builder()
+					.menuItemId(item.getId())
+					.name(item.getName())
+					.quantity(2)
+					.itemPrice(item.getBasePrice())
+					.totalPrice(item.getBasePrice() * 2)
+					.build());
+		}
+		cartStore.save(cart);
+	}
+
+	private void placeOrders() {
+		for (int i = 0; i < ORDERS; i++) {
+			Order order = orderRepository.save(Order.builder()
+					.user(customer)
+					.restaurant(restaurant)
+					.status(OrderStatus.DELIVERED)
+					.paymentStatus(PaymentStatus.PAID)
+					.orderType(OrderType.DELIVERY)
+					.paymentMethod("COD")
+					.subtotalAmount(20_000L)
+					.totalAmount(20_000L)
+					.build());
+			for (MenuItem item : menu.subList(0, 2)) {
+				orderItemRepository.save(OrderItem.builder()
+						.order(order)
+						.menuItemId(item.getId())
+						.name(item.getName())
+						.quantity(1)
+						.basePrice(item.getBasePrice())
+						.totalPrice(item.getBasePrice())
+						.build());
+			}
+		}
+		clear();
+	}
+
+	private void clear() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private User newUser(Role role) {
+		return userRepository.save(User.builder()
+				.name("Budget " + role)
+				.email(role.name().toLowerCase() + "-" + UUID.randomUUID() + "@example.com")
+				.phone(unique("9"))
+				.passwordHash("-")
+				.role(role)
+				.status(UserStatus.ACTIVE)
+				.build());
+	}
+
+	private static String unique(String prefix) {
+		return prefix + String.format("%09d", Math.floorMod(UUID.randomUUID().getLeastSignificantBits(), 1_000_000_000L));
+	}
+}
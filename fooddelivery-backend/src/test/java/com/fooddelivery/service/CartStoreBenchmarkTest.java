@@ -0,0 +1,132 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.CartDocument;
+import com.fooddelivery.entity.MenuItem;
+import com.fooddelivery.entity.Role;
+import com.fooddelivery.entity.User;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Add-to-cart throughput of the two cart stores against the configured MySQL and
+ * Redis: each operation is the read-modify-write CartService does (load, merge or
+ * add a line, save). Run with {@code mvn test -Pbenchmark}; results are printed.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { "cart.store=redis", "cart.write-behind.enabled=false" })
+class CartStoreBenchmarkTest {
+
+	private static final int WARMUP = 200;
+	private static final int OPERATIONS = 2_000;
+	private static final int DISTINCT_LINES = 5;
+
+	@Autowired
+	private JpaCartStore jpaCartStore;
+
+	@Autowired
+	private RedisCartStore redisCartStore;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MenuItemRepository menuItemRepository;
+
+	private User user;
+	private MenuItem menuItem;
+
+	@BeforeEach
+	void setUp() {
+		List<MenuItem> items = menuItemRepository.findAll(PageRequest.of(0, 1)).getContent();
+		assumeTrue(!items.isEmpty(), "needs at least one menu item in the database");
+		menuItem = items.get(0);
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		user = userRepository.save(User.builder()
+				.name("Cart Benchmark")
+				.email("cart-benchmark-" + suffix + "@example.com")
+				.phone("9" + Math.abs(suffix.hashCode() % 1_000_000_000L))
+				.passwordHash("-")
+				.role(Role.ROLE_CUSTOMER)
+				.build());
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (user != null) {
+			jpaCartStore.delete(user.getId());
+			redisCartStore.delete(user.getId());
+			userRepository.delete(user);
+		}
+	}
+
+	@Test
+	void addToCartThroughput() {
+		double jpa = measure("jpa", jpaCartStore);
+		double redis = measure("redis", redisCartStore);
+		System.out.printf("add-to-cart: redis is %.1fx jpa%n", redis / jpa);
+	}
+
+	@Test
+	void snapshotKeepsDocumentIds() {
+		addToCart(redisCartStore, 0);
+		addToCart(redisCartStore, 1);
+		CartDocument inRedis = redisCartStore.load(user.getId());
+
+		jpaCartStore.save(redisCartStore.load(user.getId()));
+		CartDocument snapshot = jpaCartStore.load(user.getId());
+
+		assertThat(snapshot.getCartId()).isEqualTo(inRedis.getCartId());
+		assertThat(snapshot.getLines()).extracting(CartDocument.Line::getId)
+				.containsExactlyElementsOf(inRedis.getLines().stream().map(CartDocument.Line::getId).toList());
+	}
+
+	private double measure(String name, CartStore store) {
+		for (int i = 0; i < WARMUP; i++) {
+			addToCart(store, i);
+		}
+		store.delete(user.getId());
+		long start = System.nanoTime();
+		for (int i = 0; i < OPERATIONS; i++) {
+			addToCart(store, i);
+		}
+		double opsPerSecond = OPERATIONS / ((System.nanoTime() - start) / 1e9);
+		System.out.printf("add-to-cart (%s): %.0f ops/s%n", name, opsPerSecond);
+		store.delete(user.getId());
+		return opsPerSecond;
+	}
+
+	// Same item under a few option selections, so operations both merge and add lines
+	private void addToCart(CartStore store, int i) {
+		CartDocument cart = store.load(user.getId());
+		if (cart == null) {
+			cart = CartDocument.builder().userId(user.getId()).build();
+		}
+		cart.setRestaurantId(menuItem.getRestaurant().getId());
+		String fingerprint = CartDocument.Line.fingerprint(menuItem.getId(), "variant-" + i % DISTINCT_LINES);
+		CartDocument.Line line = cart.findLine(fingerprint);
+		if (line != null) {
+			line.setQuantity(line.getQuantity() + 1);
+		} else {
+			cart.addLine(CartDocument.Line.builder()
+					.menuItemId(menuItem.getId())
+					.fingerprint(fingerprint)
+					.name(menuItem.getName())
+					.quantity(1)
+					.build());
+		}
+		store.save(cart);
+	}
+}
@@ -0,0 +1,300 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.dto.CartDocument;
+import com.fooddelivery.dto.request.CreateOrderRequest;
+import com.fooddelivery.entity.Address;
+import com.fooddelivery.entity.Cart;
+import com.fooddelivery.entity.CartItem;
+import com.fooddelivery.entity.CartItemOption;
+import com.fooddelivery.entity.MenuItem;
+import com.fooddelivery.entity.MenuItemOption;
+import com.fooddelivery.entity.MenuItemOptionGroup;
+import com.fooddelivery.entity.Order;
+import com.fooddelivery.entity.OrderItem;
+import com.fooddelivery.entity.OrderStatus;
+import com.fooddelivery.entity.OrderType;
+import com.fooddelivery.entity.PaymentStatus;
+import com.fooddelivery.entity.Restaurant;
+import com.fooddelivery.entity.RestaurantAddress;
+import com.fooddelivery.entity.RestaurantStatus;
+import com.fooddelivery.entity.Role;
+import com.fooddelivery.entity.User;
+import com.fooddelivery.entity.UserStatus;
+import com.fooddelivery.repository.AddressRepository;
+import com.fooddelivery.repository.CartItemRepository;
+import com.fooddelivery.repository.CartRepository;
+import com.fooddelivery.repository.MenuItemOptionRepository;
+import com.fooddelivery.repository.MenuItemRepository;
+import com.fooddelivery.repository.OrderItemRepository;
+import com.fooddelivery.repository.OrderRepository;
+import com.fooddelivery.repository.RestaurantRepository;
+import com.fooddelivery.repository.UserRepository;
+import com.fooddelivery.util.Money;
+import com.fooddelivery.util.QueryCounter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements and latency of placing a 10-line COD order (one option per line)
+ * against the configured MySQL, before and after checkout became set-based. The
+ * old path is the earlier createOrder and calculatePrice replayed call for call
+ * on today's repositories; the new path is OrderService.createOrder. Everything
+ * runs in one rolled-back transaction, so commit time is not included. Run with
+ * {@code mvn test -Pbenchmark}; results are printed.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class CheckoutBenchmarkTest {
+
+	private static final int LINES = 10;
+	private static final int WARMUP = 20;
+	private static final int ORDERS = 200;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderStateMachine orderStateMachine;
+
+	@Autowired
+	private CartStore cartStore;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private MenuItemRepository menuItemRepository;
+
+	@Autowired
+	private MenuItemOptionRepository menuItemOptionRepository;
+
+	@Autowired
+	private AddressRepository addressRepository;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private CartItemRepository cartItemRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderItemRepository orderItemRepository;
+
+	private User customer;
+	private Restaurant restaurant;
+	private Address address;
+	private List<MenuItem> menu;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		customer = userRepository.save(User.builder()
+				.name("Checkout Benchmark")
+				.email("checkout-benchmark-" + suffix + "@example.com")
+				.phone("9" + String.format("%09d", Math.floorMod(suffix.hashCode(), 1_000_000_000)))
+				.passwordHash("-")
+				.role(Role.ROLE_CUSTOMER)
+				.status(UserStatus.ACTIVE)
+				.build());
+		restaurant = restaurantRepository.save(Restaurant.builder()
+				.name("Checkout Benchmark Kitchen")
+				.phone("8" + String.format("%09d", Math.floorMod(suffix.hashCode() * 31, 1_000_000_000)))
+				.email("checkout-kitchen-" + suffix + "@example.com")
+				.cuisineTypes(List.of("Indian"))
+				.address(RestaurantAddress.builder().city("Pune").latitude(18.52).longitude(73.85).build())
+				.openingTime("00:00")
+				.closingTime("23:59")
+				.status(RestaurantStatus.ACTIVE)
+				.owner(customer)
+				.build());
+		address = addressRepository.save(Address.builder()
+				.user(customer)
+				.label("Home")
+				.line1("1 Benchmark Lane")
+				.city("Pune")
+				.latitude(18.53)
+				.longitude(73.86)
+				.build());
+
+		menu = new ArrayList<>();
+		for (int i = 0; i < LINES; i++) {
+			MenuItem item = MenuItem.builder()
+					.restaurant(restaurant)
+					.name("Dish " + i)
+					.basePrice(15_000L + i * 1_000L)
+					.isAvailable(true)
+					.build();
+			MenuItemOptionGroup group = MenuItemOptionGroup.builder().menuItem(item).name("Add-ons").build();
+			group.getOptions().add(MenuItemOption.builder().optionGroup(group).label("Extra cheese")
+					.extraPrice(3_000L).build());
+			item.getOptionGroups().add(group);
+			menu.add(menuItemRepository.save(item));
+		}
+		clear();
+	}
+
+	@Test
+	void tenLineCheckout() {
+		CreateOrderRequest request = new CreateOrderRequest();
+		request.setDeliveryAddressId(address.getId());
+		request.setPaymentMethod("COD");
+
+		Result before = measure("before", userId -> legacyCheckout(userId, request));
+		Result after = measure("after", userId -> orderService.createOrder(userId, request));
+		System.out.printf("checkout: %d -> %d statements, p99 %.2f -> %.2f ms%n", before.statements(),
+				after.statements(), before.p99Millis(), after.p99Millis());
+
+		assertThat(after.statements()).isLessThan(before.statements());
+	}
+
+	private record Result(long statements, double p99Millis) {
+	}
+
+	private Result measure(String name, Consumer<String> checkout) {
+		for (int i = 0; i < WARMUP; i++) {
+			placeOne(checkout);
+		}
+		long[] nanos = new long[ORDERS];
+		long[] statements = new long[ORDERS];
+		for (int i = 0; i < ORDERS; i++) {
+			long[] sample = placeOne(checkout);
+			nanos[i] = sample[0];
+			statements[i] = sample[1];
+		}
+		Arrays.sort(nanos);
+		Arrays.sort(statements);
+		Result result = new Result(statements[ORDERS - 1], nanos[(int) Math.ceil(ORDERS * 0.99) - 1] / 1e6);
+		System.out.printf("checkout (%s): %d statements max, %d min, p50 %.2f ms, p99 %.2f ms%n", name,
+				statements[ORDERS - 1], statements[0], nanos[ORDERS / 2] / 1e6, result.p99Millis());
+		return result;
+	}
+
+	// Returns {nanos, statements} for one order from a fresh 10-line cart
+	private long[] placeOne(Consumer<String> checkout) {
+		fillCart();
+		clear();
+		long queries = QueryCounter.current();
+		long start = System.nanoTime();
+		checkout.accept(customer.getId());
+		entityManager.flush();
+		long[] sample = { System.nanoTime() - start, QueryCounter.current() - queries };
+		entityManager.clear();
+		return sample;
+	}
+
+	private void fillCart() {
+		CartDocument cart = CartDocument.builder()
+				.userId(customer.getId())
+				.restaurantId(restaurant.getId())
+				.build();
+		for (MenuItem item : menu) {
+			MenuItemOptionGroup group = item.getOptionGroups().get(0);
+			MenuItemOption option = group.getOptions().get(0);
+			long unit = Money.add(item.getBasePrice(), option.getExtraPrice());
+			cart.addLine(CartDocument.Line.builder()
+					.menuItemId(item.getId())
+					.name(item.getName())
+					.quantity(2)
+					.itemPrice(item.getBasePrice())
+					.totalPrice(Money.times(unit, 2))
+					.options(new ArrayList<>(List.of(CartDocument.LineOption.builder()
+							.groupId(group.getId())
+							.groupName(group.getName())
+							.optionId(option.getId())
+							.name(option.getLabel())
+							.price(option.getExtraPrice())
+							.build())))
+					.build());
+		}
+		cartStore.save(cart);
+	}
+
+	/**
+	 * Checkout as it was before set-based placement: the cart entity with lazily
+	 * loaded lines, calculatePrice looking up the restaurant, every item and every
+	 * option by id, the user and the address, then the address again for the
+	 * snapshot. Without JDBC batching each order line and each cart line delete was
+	 * its own statement, so those are flushed one at a time.
+	 */
+	private void legacyCheckout(String userId, CreateOrderRequest request) {
+		Cart cart = cartRepository.findByUserId(userId).orElseThrow();
+
+		Restaurant kitchen = restaurantRepository.findById(cart.getRestaurant().getId()).orElseThrow();
+		long subtotal = 0;
+		for (CartItem line : cart.getItems()) {
+			MenuItem item = menuItemRepository.findById(line.getMenuItem().getId()).orElseThrow();
+			long unit = item.getBasePrice();
+			for (CartItemOption selected : line.getOptions()) {
+				MenuItemOption option = menuItemOptionRepository.findById(selected.getOptionId()).orElse(null);
+				if (option != null) {
+					unit = Money.add(unit, option.getExtraPrice());
+				}
+			}
+			subtotal = Money.add(subtotal, Money.times(unit, line.getQuantity()));
+		}
+		User user = userRepository.findById(userId).orElseThrow();
+		addressRepository.findById(request.getDeliveryAddressId()).orElseThrow();
+		addressRepository.findById(request.getDeliveryAddressId()).orElseThrow();
+
+		Order order = orderRepository.save(Order.builder()
+				.user(user)
+				.restaurant(kitchen)
+				.status(OrderStatus.PLACED)
+				.paymentStatus(PaymentStatus.PENDING)
+				.paymentMethod(request.getPaymentMethod())
+				.orderType(OrderType.DELIVERY)
+				.subtotalAmount(subtotal)
+				.totalAmount(subtotal)
+				.build());
+		for (CartItem line : cart.getItems()) {
+			orderItemRepository.save(OrderItem.builder()
+					.order(order)
+					.menuItemId(line.getMenuItem().getId())
+					.name(line.getMenuItem().getName())
+					.quantity(line.getQuantity())
+					.basePrice(line.getItemPrice())
+					.totalPrice(line.getTotalPrice())
+					.optionsJson("[]")
+					.build());
+			entityManager.flush();
+		}
+
+		for (CartItem line : cart.getItems()) {
+			cartItemRepository.delete(line);
+			entityManager.flush();
+		}
+		cart.getItems().clear();
+		cart.setRestaurant(null);
+		cartRepository.save(cart);
+
+		orderStateMachine.record(order.getId(), null, order.getStatus());
+	}
+
+	private void clear() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+}
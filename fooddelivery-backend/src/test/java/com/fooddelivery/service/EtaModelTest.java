@@ -0,0 +1,80 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EtaModelTest {
+
+	private static final long MINUTE = 60_000;
+	private static final EtaModel.Trip TRIP = new EtaModel.Trip("r1", 3.0);
+
+	private final List<Double> errors = new ArrayList<>();
+
+	@Test
+	void learnsPrepTimeFromDeliveredOrders() {
+		EtaModel model = model();
+		int before = model.quoteMinutes("r1", 3.0, 0);
+
+		// Kitchen takes 40 minutes against the 15 minute default
+		for (int i = 0; i < 100; i++) {
+			deliver(model, "o" + i, i * 120 * MINUTE, 40);
+		}
+
+		assertThat(model.quoteMinutes("r1", 3.0, 0)).isGreaterThan(before + 15);
+		assertThat(model.quoteMinutes("other", 3.0, 0)).isEqualTo(before);
+		assertThat(model.tracked()).isZero();
+	}
+
+	@Test
+	void scoresEachStageAgainstTheDelivery() {
+		EtaModel model = model();
+
+		deliver(model, "o1", 0, 15);
+
+		// PLACED, ACCEPTED, READY_FOR_PICKUP, ASSIGNED_TO_RIDER and PICKED_UP were each predicted once
+		assertThat(errors).hasSize(5);
+	}
+
+	@Test
+	void warmStartCarriesLearnedAverages() {
+		EtaModel trained = model();
+		for (int i = 0; i < 100; i++) {
+			deliver(trained, "o" + i, i * 120 * MINUTE, 40);
+		}
+		EtaModel live = model();
+
+		live.absorb(trained);
+
+		assertThat(live.quoteMinutes("r1", 3.0, 0)).isEqualTo(trained.quoteMinutes("r1", 3.0, 0));
+	}
+
+	@Test
+	void ignoresRedeliveredEvents() {
+		EtaModel model = model();
+
+		assertThat(model.observe("o1", () -> TRIP, 1, OrderStatus.PLACED, 0, 0, null)).isNotNull();
+		assertThat(model.observe("o1", () -> TRIP, 1, OrderStatus.PLACED, MINUTE, 0, null)).isNull();
+	}
+
+	private EtaModel model() {
+		return new EtaModel(15, 4, 20, 3, 0.2, (stage, errorMinutes) -> errors.add(errorMinutes));
+	}
+
+	// Accepted after 2 minutes, ready after prepMinutes, picked up 5 minutes later, 12 minutes to the door
+	private static void deliver(EtaModel model, String orderId, long placedAt, int prepMinutes) {
+		long accepted = placedAt + 2 * MINUTE;
+		long ready = accepted + prepMinutes * MINUTE;
+		long event = 0;
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.PLACED, placedAt, 0, null);
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.ACCEPTED, accepted, 0, null);
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.READY_FOR_PICKUP, ready, 0, null);
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.ASSIGNED_TO_RIDER, ready + MINUTE, 0, null);
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.PICKED_UP, ready + 5 * MINUTE, 0, null);
+		model.observe(orderId, () -> TRIP, ++event, OrderStatus.DELIVERED, ready + 17 * MINUTE, 0, null);
+	}
+}
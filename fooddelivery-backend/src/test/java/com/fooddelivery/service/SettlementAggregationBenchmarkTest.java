@@ -0,0 +1,97 @@
+package com.fooddelivery.service;
+
+import com.fooddelivery.entity.RiderLedger;
+import com.fooddelivery.util.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Settlement aggregation throughput before and after paise: the old loop summed
+ * rupee doubles and rounded the totals, the new one sums long paise with
+ * overflow checks. Run with {@code mvn test -Pbenchmark}; results are printed.
+ */
+@Tag("benchmark")
+class SettlementAggregationBenchmarkTest {
+
+	private static final int ROWS = 1_000_000;
+	private static final int WARMUP = 5;
+	private static final int ROUNDS = 10;
+
+	// What the ledger looked like before: boxed rupee amounts
+	private record DoubleEntry(Double amount) {
+	}
+
+	@Test
+	void aggregationThroughput() {
+		Random random = new Random(42);
+		List<DoubleEntry> before = new ArrayList<>(ROWS);
+		List<RiderLedger> after = new ArrayList<>(ROWS);
+		long expected = 0;
+		for (int i = 0; i < ROWS; i++) {
+			long paise = (random.nextInt(5) == 0 ? -1 : 1) * (1 + random.nextInt(200_000));
+			before.add(new DoubleEntry(Money.toRupees(paise)));
+			after.add(RiderLedger.builder().amount(paise).build());
+			expected += paise;
+		}
+
+		long[] doubleNet = new long[1];
+		long[] paiseNet = new long[1];
+		double doubleRate = measure("double rupees", () -> doubleNet[0] = sumDoubles(before));
+		double paiseRate = measure("long paise", () -> paiseNet[0] = sumPaise(after));
+
+		System.out.printf("settlement aggregation: long paise is %.2fx double rupees, double drift %d paise%n",
+				paiseRate / doubleRate, doubleNet[0] - expected);
+		assertThat(paiseNet[0]).isEqualTo(expected);
+	}
+
+	// The loop SettlementService ran before the paise change
+	private static long sumDoubles(List<DoubleEntry> entries) {
+		double totalCredit = 0;
+		double totalDebit = 0;
+		for (DoubleEntry entry : entries) {
+			Double amount = entry.amount();
+			if (amount > 0) {
+				totalCredit += amount;
+			} else {
+				totalDebit += Math.abs(amount);
+			}
+		}
+		double net = Math.round((totalCredit - totalDebit) * 100.0) / 100.0;
+		return Math.round(net * 100);
+	}
+
+	// The loop SettlementService runs now
+	private static long sumPaise(List<RiderLedger> entries) {
+		long totalCredit = 0;
+		long totalDebit = 0;
+		for (RiderLedger entry : entries) {
+			long amount = entry.getAmount();
+			if (amount > 0) {
+				totalCredit = Money.add(totalCredit, amount);
+			} else {
+				totalDebit = Money.subtract(totalDebit, amount);
+			}
+		}
+		return totalCredit - totalDebit;
+	}
+
+	private static double measure(String name, Runnable aggregation) {
+		for (int i = 0; i < WARMUP; i++) {
+			aggregation.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			aggregation.run();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double rowsPerSecond = (double) ROWS * ROUNDS / seconds;
+		System.out.printf("settlement aggregation (%s): %.1f M rows/s%n", name, rowsPerSecond / 1e6);
+		return rowsPerSecond;
+	}
+}
@@ -0,0 +1,46 @@
+package com.fooddelivery.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fooddelivery.dto.response.PricingResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyJsonTest {
+
+	// Spring MVC's mapper
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+	// The internal mapper from JacksonConfig (caches, menu read model)
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void jackson3WritesPaiseAsRupees() {
+		String json = jsonMapper.writeValueAsString(PricingResponse.builder().total(12345L).build());
+
+		assertThat(json).contains("\"total\":123.45");
+	}
+
+	@Test
+	void jackson3ReadsRupeesAsPaise() {
+		PricingResponse response = jsonMapper.readValue("{\"total\":123.45,\"tax\":0.005}", PricingResponse.class);
+
+		assertThat(response.getTotal()).isEqualTo(12345L);
+		assertThat(response.getTax()).isEqualTo(1L);
+	}
+
+	@Test
+	void jackson2WritesPaiseAsRupees() throws Exception {
+		String json = objectMapper.writeValueAsString(PricingResponse.builder().total(12345L).build());
+
+		assertThat(json).contains("\"total\":123.45");
+	}
+
+	@Test
+	void jackson2ReadsRupeesAsPaise() throws Exception {
+		PricingResponse response = objectMapper.readValue("{\"total\":123.45}", PricingResponse.class);
+
+		assertThat(response.getTotal()).isEqualTo(12345L);
+	}
+}
@@ -0,0 +1,40 @@
+package com.fooddelivery.util;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Test helper that fails when code issues more SQL statements than its budget,
+ * counted by {@link QueryCounter} on the calling thread. MockMvc dispatches on
+ * the test thread, so whole endpoints can be measured; perform throws a checked
+ * exception, so endpoints go through {@link #assertAtMostCalling}:
+ *
+ * <pre>
+ * QueryBudget.assertAtMostCalling(5, "GET /orders/my", () -&gt; mockMvc.perform(get("/api/v1/orders/my")));
+ * </pre>
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertAtMost(long budget, String description, Supplier<T> action) {
+        long before = QueryCounter.current();
+        T result = action.get();
+        check(budget, description, QueryCounter.current() - before);
+        return result;
+    }
+
+    public static <T> T assertAtMostCalling(long budget, String description, Callable<T> action) throws Exception {
+        long before = QueryCounter.current();
+        T result = action.call();
+        check(budget, description, QueryCounter.current() - before);
+        return result;
+    }
+
+    private static void check(long budget, String description, long used) {
+        if (used > budget) {
+            throw new AssertionError(description + " issued " + used + " SQL statements, budget is " + budget);
+        }
+    }
+}
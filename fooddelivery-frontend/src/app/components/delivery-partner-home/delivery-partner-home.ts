@@ -376,7 +376,7 @@ export class DeliveryPartnerHome implements OnInit, OnDestroy {
   }
 
   fetchHistory() {
-    this.deliveryService.getHistory().subscribe(res => this.history.set(res.data));
+    this.deliveryService.getHistory().subscribe(res => this.history.set(res.data.items));
   }
 
   fetchEarnings() {